@@ -0,0 +1,12 @@
+package org.practice.mapper;
+
+import org.practice.BO.EmployeeBO;
+import org.practice.DTO.EmployeeDTO;
+import org.practice.beanmapper.BeanMapper;
+
+@BeanMapper
+public interface EmployeeMapper {
+    EmployeeMapper INSTANCE = new EmployeeMapperImpl();
+
+    EmployeeDTO toDTO(EmployeeBO bo);
+}
@@ -3,7 +3,7 @@ package org.practice.service;
 import org.practice.BO.EmployeeBO;
 import org.practice.DAO.EmployeeDAO;
 import org.practice.DTO.EmployeeDTO;
-import org.springframework.beans.BeanUtils;
+import org.practice.mapper.EmployeeMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -35,9 +35,8 @@ public class EmployeeManagementServiceIMPL implements EmployeeManagementServiceI
         //convert ListBO to ListDTO
         List<EmployeeDTO> listDTO = new ArrayList<>();
         list.forEach(bo -> { // lamda Expression
-            EmployeeDTO dto = new EmployeeDTO();
             //copy each BO class obj data to each DTO class obj data
-            BeanUtils.copyProperties(bo, dto); // property names and type must match in both class bean
+            EmployeeDTO dto = EmployeeMapper.INSTANCE.toDTO(bo); // generated at compile time, no reflection
             dto.setSerialNO(listDTO.size() + 1);
             //add each obj of DTO class to List dtos
             listDTO.add(dto);
@@ -1,10 +1,17 @@
 package org.annotations.patientreport;
 
+import org.annotations.patientreport.bo.PatientStayRevenue;
 import org.annotations.patientreport.controller.AppControler;
+import org.annotations.patientreport.dao.PatientReportDAO;
+import org.annotations.patientreport.ingest.IngestionReport;
+import org.annotations.patientreport.ingest.PatientIngestionPipeline;
+import org.annotations.patientreport.report.PatientReportExporter;
+import org.annotations.patientreport.service.BulkBillingEngine;
 import org.annotations.patientreport.vo.PatientVO;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.nio.file.Path;
 import java.util.Scanner;
 
 @SpringBootApplication
@@ -12,6 +19,33 @@ public class PatientReportApplication {
 
     public static void main(String[] args) {
         try (var context = SpringApplication.run(PatientReportApplication.class, args)) {
+            // --ingest=<file.csv|file.ndjson> loads a whole export instead of asking for one patient
+            String ingestFile = context.getEnvironment().getProperty("ingest");
+            if (ingestFile != null) {
+                IngestionReport report = context.getBean(PatientIngestionPipeline.class).ingest(Path.of(ingestFile));
+                System.out.println(report);
+                return;
+            }
+            // --rebill recalculates the bill of every stored patient
+            if (context.getEnvironment().containsProperty("rebill")) {
+                context.getBean(BulkBillingEngine.class).rebillAll();
+                return;
+            }
+            // --report prints billing totals and revenue by length of stay
+            if (context.getEnvironment().containsProperty("report")) {
+                PatientReportDAO reports = context.getBean(PatientReportDAO.class);
+                System.out.println(reports.summarize());
+                for (PatientStayRevenue stay : reports.revenueByStay()) {
+                    System.out.println(stay);
+                }
+                return;
+            }
+            // --export=<file.csv> writes every stored patient to a CSV file
+            String exportFile = context.getEnvironment().getProperty("export");
+            if (exportFile != null) {
+                context.getBean(PatientReportExporter.class).exportCsv(Path.of(exportFile));
+                return;
+            }
             Scanner sc = new Scanner(System.in);
             System.out.println("Patient Name :: ");
             String patientName = sc.nextLine();
@@ -0,0 +1,71 @@
+package org.annotations.patientreport.bo;
+
+/**
+ * Billing inputs and results for many patients held in parallel primitive arrays, one slot per
+ * patient, so bulk billing can run without a PatientDetail or boxed Float per row.
+ */
+public class PatientBillingBatch {
+    private final long[] patientIds;
+    private final float[] billPerDay;
+    private final int[] numberOfDays;
+    private final float[] totalBillAmount;
+    private final float[] discount;
+    private final float[] netBillAmount;
+    private int size;
+
+    public PatientBillingBatch(int capacity) {
+        patientIds = new long[capacity];
+        billPerDay = new float[capacity];
+        numberOfDays = new int[capacity];
+        totalBillAmount = new float[capacity];
+        discount = new float[capacity];
+        netBillAmount = new float[capacity];
+    }
+
+    public void add(long patientId, float billPerDay, int numberOfDays) {
+        this.patientIds[size] = patientId;
+        this.billPerDay[size] = billPerDay;
+        this.numberOfDays[size] = numberOfDays;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return patientIds.length;
+    }
+
+    public boolean isFull() {
+        return size == patientIds.length;
+    }
+
+    public long[] getPatientIds() {
+        return patientIds;
+    }
+
+    public float[] getBillPerDay() {
+        return billPerDay;
+    }
+
+    public int[] getNumberOfDays() {
+        return numberOfDays;
+    }
+
+    public float[] getTotalBillAmount() {
+        return totalBillAmount;
+    }
+
+    public float[] getDiscount() {
+        return discount;
+    }
+
+    public float[] getNetBillAmount() {
+        return netBillAmount;
+    }
+}
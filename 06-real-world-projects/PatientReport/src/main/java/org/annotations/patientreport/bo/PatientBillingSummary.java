@@ -0,0 +1,75 @@
+package org.annotations.patientreport.bo;
+
+/**
+ * Whole-table billing totals. Patients without a bill are counted but add nothing to the sums.
+ */
+public class PatientBillingSummary {
+    private long patients;
+    private long patientDays;
+    private double averageStay;
+    private double totalBillAmount;
+    private double totalDiscount;
+    private double netRevenue;
+
+    public long getPatients() {
+        return patients;
+    }
+
+    public void setPatients(long patients) {
+        this.patients = patients;
+    }
+
+    public long getPatientDays() {
+        return patientDays;
+    }
+
+    public void setPatientDays(long patientDays) {
+        this.patientDays = patientDays;
+    }
+
+    public double getAverageStay() {
+        return averageStay;
+    }
+
+    public void setAverageStay(double averageStay) {
+        this.averageStay = averageStay;
+    }
+
+    public double getTotalBillAmount() {
+        return totalBillAmount;
+    }
+
+    public void setTotalBillAmount(double totalBillAmount) {
+        this.totalBillAmount = totalBillAmount;
+    }
+
+    public double getTotalDiscount() {
+        return totalDiscount;
+    }
+
+    public void setTotalDiscount(double totalDiscount) {
+        this.totalDiscount = totalDiscount;
+    }
+
+    public double getNetRevenue() {
+        return netRevenue;
+    }
+
+    public void setNetRevenue(double netRevenue) {
+        this.netRevenue = netRevenue;
+    }
+
+    /**
+     * Net revenue per patient-day, 0 when no days are recorded.
+     */
+    public double getRevenuePerDay() {
+        return patientDays == 0 ? 0 : netRevenue / patientDays;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Patients: %d, patient-days: %d, average stay: %.2f days, billed: %.2f, discounts: %.2f,"
+                        + " net revenue: %.2f (%.2f per day)",
+                patients, patientDays, averageStay, totalBillAmount, totalDiscount, netRevenue, getRevenuePerDay());
+    }
+}
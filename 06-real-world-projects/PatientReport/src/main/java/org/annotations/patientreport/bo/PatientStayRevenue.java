@@ -0,0 +1,47 @@
+package org.annotations.patientreport.bo;
+
+/**
+ * Billing totals of all patients who stayed the same number of days.
+ */
+public class PatientStayRevenue {
+    private final int numberOfDays;
+    private final long patients;
+    private final double netRevenue;
+    private final double totalDiscount;
+
+    public PatientStayRevenue(int numberOfDays, long patients, double netRevenue, double totalDiscount) {
+        this.numberOfDays = numberOfDays;
+        this.patients = patients;
+        this.netRevenue = netRevenue;
+        this.totalDiscount = totalDiscount;
+    }
+
+    public int getNumberOfDays() {
+        return numberOfDays;
+    }
+
+    public long getPatients() {
+        return patients;
+    }
+
+    public double getNetRevenue() {
+        return netRevenue;
+    }
+
+    public double getTotalDiscount() {
+        return totalDiscount;
+    }
+
+    /**
+     * Net revenue per patient-day for this stay length, 0 for zero-day stays.
+     */
+    public double getRevenuePerDay() {
+        return numberOfDays == 0 ? 0 : netRevenue / ((double) patients * numberOfDays);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d days: %d patients, net revenue %.2f (%.2f per day), discounts %.2f",
+                numberOfDays, patients, netRevenue, getRevenuePerDay(), totalDiscount);
+    }
+}
@@ -1,22 +1,24 @@
 package org.annotations.patientreport.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
-
-import java.sql.DriverManager;
 
 @Configuration
 @ComponentScan(basePackages= "org.annotations.patientreport")
 public class AppConfig {
-    @Bean(name="driverManager", initMethod = "getConnection", destroyMethod = "getLoginTimeout")
-    public DriverManagerDataSource datasource(){
-        DriverManagerDataSource datasource = new DriverManagerDataSource();
-        datasource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        datasource.setUrl("jdbc:mysql://localhost:3306/mini_project");
-        datasource.setUsername("root");
-        datasource.setPassword("8252");
+    /**
+     * Connection pool for the DAOs. URL, credentials, pool size, timeouts and driver
+     * properties such as the MySQL statement cache are bound from patient.datasource.*.
+     * The pool opens its connections on first use and closes them with the context.
+     */
+    @Bean(name="dataSource")
+    @ConfigurationProperties(prefix = "patient.datasource")
+    public HikariDataSource datasource(){
+        HikariDataSource datasource = new HikariDataSource();
+        datasource.setPoolName("patient-pool");
         return datasource;
     }
 }
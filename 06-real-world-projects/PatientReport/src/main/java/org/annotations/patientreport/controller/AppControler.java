@@ -1,30 +1,43 @@
 package org.annotations.patientreport.controller;
 
-import org.annotations.patientreport.bo.PatientDetail;
 import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.mapper.PatientMapper;
 import org.annotations.patientreport.service.PatientServiceIMPL;
+import org.annotations.patientreport.submission.PatientSubmissionService;
 import org.annotations.patientreport.vo.PatientVO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
 
 @Controller
 public class AppControler {
     private final PatientServiceIMPL patientService;
-@Autowired
+    private final PatientSubmissionService submissionService;
+
     public AppControler(PatientServiceIMPL patientService) {
+        this(patientService, null);
+    }
+
+    /**
+     * {@code submissionService} is only present with patient.submission.async=true; patients are
+     * then journaled and stored in the background instead of inserted before returning.
+     */
+@Autowired
+    public AppControler(PatientServiceIMPL patientService, @Nullable PatientSubmissionService submissionService) {
         this.patientService = patientService;
+        this.submissionService = submissionService;
     }
     public String processPatient(PatientVO patientVO) throws Exception {
-        PatientDTO patientDTO = new PatientDTO();
-        PatientDetail patientDetail = new PatientDetail();
-        patientDTO.setPatient_name(patientVO.getPatient_name());
-        patientDTO.setPatient_addr(patientVO.getPatient_addr());
-        patientDTO.setPatient_MobNumber(String.valueOf(patientVO.getPatient_MobNumber()));
-        patientDTO.setNumber_of_days(patientVO.getNumber_of_days());
-        patientDTO.setBill_per_day(patientVO.getBill_per_day());
-        patientDTO.setTotalBillAmount(patientDetail.getTotalBillAmount());
-        patientDTO.setDiscount(patientDetail.getDiscount());
-        patientDTO.setNetBillAmount(patientDetail.getNetBillAmount());
-        return patientService.calculateNetBillAmount(patientDTO);
+        if (submissionService != null) {
+            return submissionService.submit(toDTO(patientVO));
+        }
+        return patientService.calculateNetBillAmount(toDTO(patientVO));
+    }
+
+    /**
+     * Copies the submitted fields; totals are calculated later by the service.
+     */
+    public PatientDTO toDTO(PatientVO patientVO) {
+        return PatientMapper.INSTANCE.toDTO(patientVO);
     }
 }
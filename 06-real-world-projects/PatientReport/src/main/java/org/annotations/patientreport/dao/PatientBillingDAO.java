@@ -0,0 +1,17 @@
+package org.annotations.patientreport.dao;
+
+import org.annotations.patientreport.bo.PatientBillingBatch;
+
+public interface PatientBillingDAO {
+    /**
+     * Replaces the contents of {@code batch} with the next patients after {@code afterPatientId},
+     * in id order, up to its capacity. Patients without a per-day bill or stay are skipped.
+     * Returns the number of patients loaded.
+     */
+    int loadBillingPage(long afterPatientId, PatientBillingBatch batch) throws Exception;
+
+    /**
+     * Writes the calculated totals, discounts and net bills of {@code batch} back in one transaction.
+     */
+    int updateBills(PatientBillingBatch batch) throws Exception;
+}
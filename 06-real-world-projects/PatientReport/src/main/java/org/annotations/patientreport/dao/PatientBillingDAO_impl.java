@@ -0,0 +1,125 @@
+package org.annotations.patientreport.dao;
+
+import org.annotations.patientreport.bo.PatientBillingBatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@Repository
+public class PatientBillingDAO_impl implements PatientBillingDAO{
+    private static final String SELECT_PAGE_QUERY = "SELECT Patient_ID, bill_per_day, number_of_days FROM corona_patient_details"
+            + " WHERE Patient_ID > ? AND bill_per_day IS NOT NULL AND number_of_days IS NOT NULL ORDER BY Patient_ID LIMIT ?";
+    private static final String UPDATE_BILL_QUERY = "UPDATE corona_patient_details SET totalBillAmount=?, discount=?, netBillAmount=? WHERE Patient_ID=?";
+    private final DataSource dataSource;
+    private final int batchSize;
+@Autowired
+    public PatientBillingDAO_impl(DataSource dataSource, @Value("${patient.dao.batch-size:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("patient.dao.batch-size must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int loadBillingPage(long afterPatientId, PatientBillingBatch batch) throws Exception {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        batch.clear();
+        try {
+            con = dataSource.getConnection();
+            pstmt = con.prepareStatement(SELECT_PAGE_QUERY);
+            pstmt.setLong(1, afterPatientId);
+            pstmt.setInt(2, batch.capacity());
+            pstmt.setFetchSize(Math.min(batch.capacity(), 10_000));
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                batch.add(rs.getLong(1), rs.getFloat(2), rs.getInt(3));
+            }
+        } catch (Exception e){
+            System.out.println(e.getMessage());
+            throw new Exception(e.getMessage(), e);
+        } finally {
+            try {
+                if (rs != null) rs.close();
+            }catch(SQLException se){
+                System.out.println(se.getMessage());
+            }
+            try {
+                if (pstmt != null) pstmt.close();
+            }catch(SQLException se){
+                System.out.println(se.getMessage());
+            }
+            try {
+                if (con != null) con.close();
+            }catch (SQLException se){
+                System.out.println(se.getMessage());
+            }
+        }
+
+        return batch.size();
+    }
+
+    @Override
+    public int updateBills(PatientBillingBatch batch) throws Exception {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        boolean autoCommit = true;
+        int count = 0;
+        try {
+            con = dataSource.getConnection();
+            autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            pstmt = con.prepareStatement(UPDATE_BILL_QUERY);
+            long[] ids = batch.getPatientIds();
+            float[] totals = batch.getTotalBillAmount();
+            float[] discounts = batch.getDiscount();
+            float[] nets = batch.getNetBillAmount();
+            for (int i = 0; i < batch.size(); i++) {
+                pstmt.setFloat(1, totals[i]);
+                pstmt.setFloat(2, discounts[i]);
+                pstmt.setFloat(3, nets[i]);
+                pstmt.setLong(4, ids[i]);
+                pstmt.addBatch();
+                if ((i + 1) % batchSize == 0) {
+                    count += PatientDAO_impl.countRows(pstmt.executeBatch());
+                }
+            }
+            if (batch.size() % batchSize != 0) {
+                count += PatientDAO_impl.countRows(pstmt.executeBatch());
+            }
+            con.commit();
+        } catch (Exception e){
+            System.out.println(e.getMessage());
+            try {
+                if (con != null) con.rollback();
+            }catch (SQLException se){
+                System.out.println(se.getMessage());
+            }
+            throw new Exception(e.getMessage(), e);
+        } finally {
+            try {
+                if (pstmt != null) pstmt.close();
+            }catch(SQLException se){
+                System.out.println(se.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.setAutoCommit(autoCommit);
+                    con.close();
+                }
+            }catch (SQLException se){
+                System.out.println(se.getMessage());
+            }
+        }
+
+        return count;
+    }
+}
@@ -2,6 +2,14 @@ package org.annotations.patientreport.dao;
 
 import org.annotations.patientreport.bo.PatientDetail;
 
+import java.util.List;
+
 public interface PatientDAO {
     int insert(PatientDetail BO) throws Exception;
+
+    /**
+     * Inserts all records in one transaction, sending them to the database in chunks.
+     * Either every record is stored or none is. Returns the number of rows inserted.
+     */
+    int insertBatch(List<PatientDetail> BOs) throws Exception;
 }
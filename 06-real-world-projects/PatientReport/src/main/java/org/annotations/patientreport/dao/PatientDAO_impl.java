@@ -2,20 +2,28 @@ package org.annotations.patientreport.dao;
 
 import org.annotations.patientreport.bo.PatientDetail;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
 
 @Repository
 public class PatientDAO_impl implements PatientDAO{
-    private static final String INSERT_QUERY = "INSERT INTO corona_patient_details values(Patient_ID,?,?,?,?,?,?,?,?)";
+    private static final String INSERT_QUERY = "INSERT INTO corona_patient_details values(DEFAULT,?,?,?,?,?,?,?,?)";
     private final DataSource dataSource;
+    private final int batchSize;
 @Autowired
-    public PatientDAO_impl(DataSource dataSource) {
+    public PatientDAO_impl(DataSource dataSource, @Value("${patient.dao.batch-size:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("patient.dao.batch-size must be at least 1");
+        }
         this.dataSource = dataSource;
+        this.batchSize = batchSize;
     }
 
     @Override
@@ -26,18 +34,11 @@ public class PatientDAO_impl implements PatientDAO{
         try {
             con = dataSource.getConnection();
             pstmt = con.prepareStatement(INSERT_QUERY);
-            pstmt.setString(1,BO.getPatient_name());
-            pstmt.setString(2,BO.getPatient_addr());
-            pstmt.setString(3,BO.getPatient_MobNumber());
-            pstmt.setFloat(4,BO.getBill_per_day());
-            pstmt.setFloat(5,BO.getNumber_of_days());
-            pstmt.setFloat(6,BO.getTotalBillAmount());
-            pstmt.setFloat(7,BO.getDiscount());
-            pstmt.setFloat(8,BO.getNetBillAmount());
+            bind(pstmt, BO);
             count = pstmt.executeUpdate();
         } catch (Exception e){
             System.out.println(e.getMessage());
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         } finally {
             try {
                 if (pstmt != null) pstmt.close();
@@ -53,4 +54,78 @@ public class PatientDAO_impl implements PatientDAO{
 
         return count;
     }
+
+    @Override
+    public int insertBatch(List<PatientDetail> BOs) throws Exception {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        boolean autoCommit = true;
+        int count = 0;
+        try {
+            con = dataSource.getConnection();
+            autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            pstmt = con.prepareStatement(INSERT_QUERY);
+            int pending = 0;
+            for (PatientDetail BO : BOs) {
+                bind(pstmt, BO);
+                pstmt.addBatch();
+                if (++pending == batchSize) {
+                    count += countRows(pstmt.executeBatch());
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                count += countRows(pstmt.executeBatch());
+            }
+            con.commit();
+        } catch (Exception e){
+            System.out.println(e.getMessage());
+            try {
+                if (con != null) con.rollback();
+            }catch (SQLException se){
+                System.out.println(se.getMessage());
+            }
+            throw new Exception(e.getMessage(), e);
+        } finally {
+            try {
+                if (pstmt != null) pstmt.close();
+            }catch(SQLException se){
+                System.out.println(se.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.setAutoCommit(autoCommit);
+                    con.close();
+                }
+            }catch (SQLException se){
+                System.out.println(se.getMessage());
+            }
+        }
+
+        return count;
+    }
+
+    private static void bind(PreparedStatement pstmt, PatientDetail BO) throws SQLException {
+        pstmt.setString(1,BO.getPatient_name());
+        pstmt.setString(2,BO.getPatient_addr());
+        pstmt.setString(3,BO.getPatient_MobNumber());
+        pstmt.setFloat(4,BO.getBill_per_day());
+        pstmt.setFloat(5,BO.getNumber_of_days());
+        pstmt.setFloat(6,BO.getTotalBillAmount());
+        pstmt.setFloat(7,BO.getDiscount());
+        pstmt.setFloat(8,BO.getNetBillAmount());
+    }
+
+    /**
+     * The MySQL driver rewrites a batch into multi-row inserts and then reports
+     * SUCCESS_NO_INFO instead of a count for each statement.
+     */
+    static int countRows(int[] results) {
+        int rows = 0;
+        for (int result : results) {
+            rows += result == Statement.SUCCESS_NO_INFO ? 1 : result;
+        }
+        return rows;
+    }
 }
@@ -0,0 +1,24 @@
+package org.annotations.patientreport.dao;
+
+import org.annotations.patientreport.bo.PatientBillingSummary;
+import org.annotations.patientreport.bo.PatientStayRevenue;
+
+import java.util.List;
+
+public interface PatientReportDAO {
+    /**
+     * Passes every stored patient to {@code handler} in id order through one forward-only cursor,
+     * fetching patient.report.fetch-size rows per round trip. Returns the number of rows read.
+     */
+    long forEachPatient(PatientRowHandler handler) throws Exception;
+
+    /**
+     * Totals over the whole table, calculated by the database.
+     */
+    PatientBillingSummary summarize() throws Exception;
+
+    /**
+     * Patients, revenue and discounts grouped by length of stay, shortest stay first.
+     */
+    List<PatientStayRevenue> revenueByStay() throws Exception;
+}
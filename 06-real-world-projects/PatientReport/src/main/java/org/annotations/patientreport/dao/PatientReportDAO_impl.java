@@ -0,0 +1,144 @@
+package org.annotations.patientreport.dao;
+
+import org.annotations.patientreport.bo.PatientBillingSummary;
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.bo.PatientStayRevenue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read side of corona_patient_details. Rows are streamed through a forward-only cursor and
+ * aggregates are left to the database, so no query holds the whole table in memory. MySQL only
+ * honours the fetch size with useCursorFetch=true on the connection.
+ */
+@Repository
+public class PatientReportDAO_impl implements PatientReportDAO{
+    private static final String SELECT_ALL_QUERY = "SELECT Patient_ID, Patient_name, Patient_addr, Patient_MobNumber, bill_per_day,"
+            + " number_of_days, totalBillAmount, discount, netBillAmount FROM corona_patient_details ORDER BY Patient_ID";
+    private static final String SUMMARY_QUERY = "SELECT COUNT(*), SUM(number_of_days), AVG(number_of_days * 1.0),"
+            + " SUM(totalBillAmount), SUM(discount), SUM(netBillAmount) FROM corona_patient_details";
+    private static final String REVENUE_BY_STAY_QUERY = "SELECT number_of_days, COUNT(*), SUM(netBillAmount), SUM(discount)"
+            + " FROM corona_patient_details WHERE number_of_days IS NOT NULL GROUP BY number_of_days ORDER BY number_of_days";
+    private final DataSource dataSource;
+    private final int fetchSize;
+@Autowired
+    public PatientReportDAO_impl(DataSource dataSource, @Value("${patient.report.fetch-size:1000}") int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("patient.report.fetch-size must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public long forEachPatient(PatientRowHandler handler) throws Exception {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        long count = 0;
+        try {
+            con = dataSource.getConnection();
+            pstmt = con.prepareStatement(SELECT_ALL_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                PatientDetail patient = new PatientDetail();
+                patient.setPatient_name(rs.getString(2));
+                patient.setPatient_addr(rs.getString(3));
+                patient.setPatient_MobNumber(rs.getString(4));
+                patient.setBill_per_day(rs.getObject(5) == null ? null : rs.getFloat(5));
+                patient.setNumber_of_days(rs.getObject(6) == null ? null : rs.getInt(6));
+                patient.setTotalBillAmount(rs.getObject(7) == null ? null : rs.getFloat(7));
+                patient.setDiscount(rs.getObject(8) == null ? null : rs.getFloat(8));
+                patient.setNetBillAmount(rs.getObject(9) == null ? null : rs.getFloat(9));
+                handler.handle(rs.getLong(1), patient);
+                count++;
+            }
+        } catch (Exception e){
+            System.out.println(e.getMessage());
+            throw new Exception(e.getMessage());
+        } finally {
+            close(rs, pstmt, con);
+        }
+
+        return count;
+    }
+
+    @Override
+    public PatientBillingSummary summarize() throws Exception {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        PatientBillingSummary summary = new PatientBillingSummary();
+        try {
+            con = dataSource.getConnection();
+            pstmt = con.prepareStatement(SUMMARY_QUERY);
+            rs = pstmt.executeQuery();
+            if (rs.next()) {
+                summary.setPatients(rs.getLong(1));
+                summary.setPatientDays(rs.getLong(2));
+                summary.setAverageStay(rs.getDouble(3));
+                summary.setTotalBillAmount(rs.getDouble(4));
+                summary.setTotalDiscount(rs.getDouble(5));
+                summary.setNetRevenue(rs.getDouble(6));
+            }
+        } catch (Exception e){
+            System.out.println(e.getMessage());
+            throw new Exception(e.getMessage());
+        } finally {
+            close(rs, pstmt, con);
+        }
+
+        return summary;
+    }
+
+    @Override
+    public List<PatientStayRevenue> revenueByStay() throws Exception {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<PatientStayRevenue> stays = new ArrayList<>();
+        try {
+            con = dataSource.getConnection();
+            pstmt = con.prepareStatement(REVENUE_BY_STAY_QUERY);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                stays.add(new PatientStayRevenue(rs.getInt(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4)));
+            }
+        } catch (Exception e){
+            System.out.println(e.getMessage());
+            throw new Exception(e.getMessage());
+        } finally {
+            close(rs, pstmt, con);
+        }
+
+        return stays;
+    }
+
+    private static void close(ResultSet rs, PreparedStatement pstmt, Connection con) {
+        try {
+            if (rs != null) rs.close();
+        }catch(SQLException se){
+            System.out.println(se.getMessage());
+        }
+        try {
+            if (pstmt != null) pstmt.close();
+        }catch(SQLException se){
+            System.out.println(se.getMessage());
+        }
+        try {
+            if (con != null) con.close();
+        }catch (SQLException se){
+            System.out.println(se.getMessage());
+        }
+    }
+}
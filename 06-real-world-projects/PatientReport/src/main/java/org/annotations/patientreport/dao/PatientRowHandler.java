@@ -0,0 +1,12 @@
+package org.annotations.patientreport.dao;
+
+import org.annotations.patientreport.bo.PatientDetail;
+
+/**
+ * Receives the rows of a streaming query one at a time. {@code patient} is a new object per row
+ * and may be kept, but streaming callers normally write it out and let it go.
+ */
+@FunctionalInterface
+public interface PatientRowHandler {
+    void handle(long patientId, PatientDetail patient) throws Exception;
+}
@@ -0,0 +1,41 @@
+package org.annotations.patientreport.ingest;
+
+public class IngestionReport {
+    private final long rowsRead;
+    private final long rowsStored;
+    private final long rowsRejected;
+    private final long elapsedNanos;
+
+    public IngestionReport(long rowsRead, long rowsStored, long rowsRejected, long elapsedNanos) {
+        this.rowsRead = rowsRead;
+        this.rowsStored = rowsStored;
+        this.rowsRejected = rowsRejected;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsStored() {
+        return rowsStored;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsStored / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Read %d rows, stored %d, rejected %d in %.1f s (%.0f rows/s)",
+                rowsRead, rowsStored, rowsRejected, elapsedNanos / 1e9, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,165 @@
+package org.annotations.patientreport.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads patient records one line at a time from a CSV export with a header row, or from NDJSON
+ * with one object per line (.ndjson, .jsonl or .json). Fields are matched to the
+ * corona_patient_details column names in {@link #COLUMNS}, ignoring case. Quoted CSV fields may
+ * contain commas and doubled quotes but not line breaks.
+ */
+public class PatientFileReader implements Closeable {
+    static final String[] COLUMNS = {"Patient_name", "Patient_addr", "Patient_MobNumber", "bill_per_day", "number_of_days"};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private final boolean json;
+    private int[] csvPositions;
+    private long lineNumber;
+
+    public PatientFileReader(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        json = name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json");
+        reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        if (!json) {
+            try {
+                readHeader();
+            } catch (IOException | RuntimeException e) {
+                reader.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Fields of the next record in {@link #COLUMNS} order, empty values as {@code null}, or
+     * {@code null} at the end of the file. A malformed line throws IllegalArgumentException and
+     * the next call continues with the following line.
+     */
+    public String[] next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+        return json ? parseJson(line) : parseCsv(line);
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader() throws IOException {
+        String header = reader.readLine();
+        lineNumber++;
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty, expected a header row");
+        }
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        csvPositions = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            csvPositions[c] = -1;
+            for (int i = 0; i < names.size(); i++) {
+                if (names.get(i).trim().equalsIgnoreCase(COLUMNS[c])) {
+                    csvPositions[c] = i;
+                }
+            }
+            if (csvPositions[c] < 0) {
+                throw new IllegalArgumentException("CSV header has no " + COLUMNS[c] + " column");
+            }
+        }
+    }
+
+    private String[] parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        String[] fields = new String[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (csvPositions[c] >= values.size()) {
+                throw new IllegalArgumentException("Line " + lineNumber + " has " + values.size() + " fields");
+            }
+            fields[c] = emptyToNull(values.get(csvPositions[c]));
+        }
+        return fields;
+    }
+
+    private List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>(8);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has an unterminated quote");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private String[] parseJson(String line) {
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + " is not valid JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Line " + lineNumber + " is not a JSON object");
+        }
+        String[] fields = new String[COLUMNS.length];
+        Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (entry.getKey().equalsIgnoreCase(COLUMNS[c]) && !entry.getValue().isNull()) {
+                    fields[c] = emptyToNull(entry.getValue().asText());
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static String emptyToNull(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,233 @@
+package org.annotations.patientreport.ingest;
+
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.controller.AppControler;
+import org.annotations.patientreport.service.PatientServiceINT;
+import org.annotations.patientreport.vo.PatientVO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads a whole admission export without holding it in memory. The calling thread parses the file
+ * into chunks of patient.dao.batch-size rows, compute threads map each row VO to DTO to BO and
+ * calculate the bill, and one writer thread stores every chunk with a batched insert.
+ * <p>
+ * The stages are joined by queues holding at most patient.ingest.queue-capacity chunks. When the
+ * database falls behind, the queues fill and parsing waits, so memory use stays flat however
+ * large the file is. Each chunk is committed on its own: if a write fails, ingestion stops and
+ * the chunks already stored stay stored. Rows that cannot be parsed or billed are skipped and
+ * counted as rejected.
+ */
+@Component
+public class PatientIngestionPipeline {
+    private static final List<PatientVO> END_OF_INPUT = new ArrayList<>(0);
+    private static final List<PatientDetail> END_OF_BILLS = new ArrayList<>(0);
+    private static final int REJECTIONS_SHOWN = 20;
+    private static final long PROGRESS_EVERY = 100_000;
+
+    private final AppControler controller;
+    private final PatientServiceINT service;
+    private final int chunkSize;
+    private final int computeThreads;
+    private final int queueCapacity;
+
+    @Autowired
+    public PatientIngestionPipeline(AppControler controller, PatientServiceINT service,
+                                    @Value("${patient.dao.batch-size:500}") int chunkSize,
+                                    @Value("${patient.ingest.compute-threads:2}") int computeThreads,
+                                    @Value("${patient.ingest.queue-capacity:8}") int queueCapacity) {
+        if (chunkSize < 1 || computeThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Ingestion chunk size, compute threads and queue capacity must be at least 1");
+        }
+        this.controller = controller;
+        this.service = service;
+        this.chunkSize = chunkSize;
+        this.computeThreads = computeThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public IngestionReport ingest(Path file) throws Exception {
+        return new Run().execute(file);
+    }
+
+    private class Run {
+        private final BlockingQueue<List<PatientVO>> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<List<PatientDetail>> billed = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong stored = new AtomicLong();
+        private long startNanos;
+
+        IngestionReport execute(Path file) throws Exception {
+            startNanos = System.nanoTime();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < computeThreads; i++) {
+                threads.add(stage("ingest-compute-" + i, this::compute));
+            }
+            threads.add(stage("ingest-write", this::write));
+
+            long read = 0;
+            try (PatientFileReader reader = new PatientFileReader(file)) {
+                List<PatientVO> chunk = new ArrayList<>(chunkSize);
+                while (failure.get() == null) {
+                    String[] fields;
+                    try {
+                        fields = reader.next();
+                    } catch (IllegalArgumentException e) {
+                        read++;
+                        reject(e.getMessage());
+                        continue;
+                    }
+                    if (fields == null) {
+                        break;
+                    }
+                    read++;
+                    PatientVO vo = toVO(fields, reader.getLineNumber());
+                    if (vo == null) {
+                        continue;
+                    }
+                    chunk.add(vo);
+                    if (chunk.size() == chunkSize) {
+                        put(parsed, chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    put(parsed, chunk);
+                }
+                for (int i = 0; i < computeThreads; i++) {
+                    put(parsed, END_OF_INPUT);
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+
+            IngestionReport report = new IngestionReport(read, stored.get(), rejected.get(), System.nanoTime() - startNanos);
+            if (failure.get() != null) {
+                System.out.println(report);
+                throw new Exception("Ingestion of " + file + " stopped: " + failure.get().getMessage());
+            }
+            return report;
+        }
+
+        private void compute() throws InterruptedException {
+            List<PatientVO> chunk;
+            while ((chunk = take(parsed)) != END_OF_INPUT && chunk != null) {
+                List<PatientDetail> bills = new ArrayList<>(chunk.size());
+                for (PatientVO vo : chunk) {
+                    try {
+                        bills.add(service.calculateBill(controller.toDTO(vo)));
+                    } catch (RuntimeException e) {
+                        reject("Patient " + vo.getPatient_name() + ": " + e.getMessage());
+                    }
+                }
+                if (!bills.isEmpty()) {
+                    put(billed, bills);
+                }
+            }
+            put(billed, END_OF_BILLS);
+        }
+
+        private void write() throws Exception {
+            int finishedComputeThreads = 0;
+            long nextProgress = PROGRESS_EVERY;
+            while (finishedComputeThreads < computeThreads) {
+                List<PatientDetail> bills = take(billed);
+                if (bills == null) {
+                    return;
+                }
+                if (bills == END_OF_BILLS) {
+                    finishedComputeThreads++;
+                    continue;
+                }
+                long total = stored.addAndGet(service.saveBills(bills));
+                if (total >= nextProgress) {
+                    System.out.printf("Stored %d patients (%.0f rows/s)%n", total, total / elapsedSeconds());
+                    nextProgress = (total / PROGRESS_EVERY + 1) * PROGRESS_EVERY;
+                }
+            }
+        }
+
+        private PatientVO toVO(String[] fields, long lineNumber) {
+            try {
+                PatientVO vo = new PatientVO();
+                vo.setPatient_name(fields[0]);
+                vo.setPatient_addr(fields[1]);
+                vo.setPatient_MobNumber(fields[2]);
+                vo.setBill_per_day(fields[3] == null ? null : Float.valueOf(fields[3]));
+                vo.setNumber_of_days(fields[4] == null ? null : Integer.valueOf(fields[4]));
+                if (vo.getBill_per_day() == null || vo.getNumber_of_days() == null) {
+                    throw new IllegalArgumentException("bill_per_day and number_of_days are required");
+                }
+                return vo;
+            } catch (IllegalArgumentException e) {
+                reject("Line " + lineNumber + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        private void reject(String reason) {
+            if (rejected.incrementAndGet() <= REJECTIONS_SHOWN) {
+                System.out.println("Rejected " + reason);
+            }
+        }
+
+        private double elapsedSeconds() {
+            return (System.nanoTime() - startNanos) / 1e9;
+        }
+
+        private Thread stage(String name, Stage stage) {
+            Thread thread = new Thread(() -> {
+                try {
+                    stage.run();
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }, name);
+            thread.start();
+            return thread;
+        }
+
+        /**
+         * Blocks while the queue is full, giving up once another stage has failed.
+         */
+        private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new IllegalStateException("Ingestion aborted");
+                }
+            }
+        }
+
+        /**
+         * Next item, or {@code null} once another stage has failed.
+         */
+        private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+            T item;
+            while ((item = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                if (failure.get() != null) {
+                    return null;
+                }
+            }
+            return item;
+        }
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+}
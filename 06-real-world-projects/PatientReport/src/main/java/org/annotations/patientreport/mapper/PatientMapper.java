@@ -0,0 +1,18 @@
+package org.annotations.patientreport.mapper;
+
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.vo.PatientVO;
+import org.practice.beanmapper.BeanMapper;
+
+/**
+ * Copies patient fields between the layers. The implementation is generated at compile time.
+ */
+@BeanMapper
+public interface PatientMapper {
+    PatientMapper INSTANCE = new PatientMapperImpl();
+
+    PatientDTO toDTO(PatientVO vo);
+
+    PatientDetail toBO(PatientDTO dto);
+}
@@ -0,0 +1,85 @@
+package org.annotations.patientreport.report;
+
+import org.annotations.patientreport.dao.PatientReportDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes every stored patient as CSV, straight from the database cursor to the file. Memory use
+ * does not depend on the size of the table. The columns use the table names, so the file can be
+ * loaded again with --ingest.
+ */
+@Component
+public class PatientReportExporter {
+    static final String HEADER = "Patient_ID,Patient_name,Patient_addr,Patient_MobNumber,bill_per_day,number_of_days,"
+            + "totalBillAmount,discount,netBillAmount";
+
+    private final PatientReportDAO dao;
+
+    @Autowired
+    public PatientReportExporter(PatientReportDAO dao) {
+        this.dao = dao;
+    }
+
+    public long exportCsv(Path file) throws Exception {
+        long start = System.nanoTime();
+        long rows;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            rows = exportCsv(writer);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Exported %d patients to %s in %.1f s (%.0f rows/s)%n", rows, file, seconds, rows / seconds);
+        return rows;
+    }
+
+    public long exportCsv(Writer writer) throws Exception {
+        writer.write(HEADER);
+        writer.write('\n');
+        return dao.forEachPatient((patientId, patient) -> {
+            writer.write(Long.toString(patientId));
+            writer.write(',');
+            writeText(writer, patient.getPatient_name());
+            writer.write(',');
+            writeText(writer, patient.getPatient_addr());
+            writer.write(',');
+            writeText(writer, patient.getPatient_MobNumber());
+            writer.write(',');
+            writeValue(writer, patient.getBill_per_day());
+            writer.write(',');
+            writeValue(writer, patient.getNumber_of_days());
+            writer.write(',');
+            writeValue(writer, patient.getTotalBillAmount());
+            writer.write(',');
+            writeValue(writer, patient.getDiscount());
+            writer.write(',');
+            writeValue(writer, patient.getNetBillAmount());
+            writer.write('\n');
+        });
+    }
+
+    private static void writeText(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        if (value != null) {
+            writer.write(value.toString());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.annotations.patientreport.service;
+
+import jakarta.annotation.PreDestroy;
+import org.annotations.patientreport.bo.PatientBillingBatch;
+import org.annotations.patientreport.dao.PatientBillingDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Re-bills the whole patient table with the same tiered discount as
+ * {@link PatientServiceIMPL#calculateBill}. Patients are loaded a page of
+ * patient.billing.page-size rows at a time into a {@link PatientBillingBatch}, billed in parallel
+ * on a fork/join pool of patient.billing.parallelism threads, and written back with batched
+ * updates before the next page is loaded.
+ */
+@Service
+public class BulkBillingEngine {
+    private static final Logger log = LoggerFactory.getLogger(BulkBillingEngine.class);
+
+    /**
+     * Rows per fork/join leaf: large enough that splitting costs little next to the loop.
+     */
+    private static final int SPLIT_THRESHOLD = 16_384;
+
+    private final PatientBillingDAO dao;
+    private final ForkJoinPool pool;
+    private final int pageSize;
+
+    @Autowired
+    public BulkBillingEngine(PatientBillingDAO dao,
+                             @Value("${patient.billing.page-size:100000}") int pageSize,
+                             @Value("${patient.billing.parallelism:0}") int parallelism) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("patient.billing.page-size must be at least 1");
+        }
+        this.dao = dao;
+        this.pageSize = pageSize;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public long rebillAll() throws Exception {
+        long start = System.nanoTime();
+        PatientBillingBatch batch = new PatientBillingBatch(pageSize);
+        long lastPatientId = Long.MIN_VALUE;
+        long billed = 0;
+        while (dao.loadBillingPage(lastPatientId, batch) > 0) {
+            bill(batch);
+            dao.updateBills(batch);
+            billed += batch.size();
+            lastPatientId = batch.getPatientIds()[batch.size() - 1];
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Re-billed {} patients in {} s ({} rows/s)", billed, String.format("%.1f", seconds),
+                String.format("%.0f", billed / seconds));
+        return billed;
+    }
+
+    /**
+     * Fills the total, discount and net bill of every patient in {@code batch}.
+     */
+    public void bill(PatientBillingBatch batch) {
+        pool.invoke(new BillingTask(batch, 0, batch.size()));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static class BillingTask extends RecursiveAction {
+        private final PatientBillingBatch batch;
+        private final int from;
+        private final int to;
+
+        BillingTask(PatientBillingBatch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BillingTask(batch, from, middle), new BillingTask(batch, middle, to));
+                return;
+            }
+            float[] billPerDay = batch.getBillPerDay();
+            int[] numberOfDays = batch.getNumberOfDays();
+            float[] totals = batch.getTotalBillAmount();
+            float[] discounts = batch.getDiscount();
+            float[] nets = batch.getNetBillAmount();
+            for (int i = from; i < to; i++) {
+                float totalBill = billPerDay[i] * numberOfDays[i];
+                float discount = PatientServiceIMPL.discountFor(totalBill);
+                totals[i] = totalBill;
+                discounts[i] = discount;
+                nets[i] = totalBill - discount;
+            }
+        }
+    }
+}
@@ -3,9 +3,13 @@ package org.annotations.patientreport.service;
 import org.annotations.patientreport.bo.PatientDetail;
 import org.annotations.patientreport.dao.PatientDAO;
 import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.mapper.PatientMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 public class PatientServiceIMPL implements PatientServiceINT{
     private final PatientDAO dao;
@@ -17,33 +21,59 @@ public class PatientServiceIMPL implements PatientServiceINT{
 
     @Override
     public String calculateNetBillAmount(PatientDTO dto) throws Exception {
+        PatientDetail bo = calculateBill(dto);
+        float totalBill = bo.getTotalBillAmount();
+        System.out.println("Calculated Total Bill = " + totalBill );
+        if (totalBill>100000 && totalBill<200000){
+            System.out.println("NetBillAmount will be = "+bo.getNetBillAmount());
+        }
+
+        int count = dao.insert(bo);
+        return count==1?"Patient Details Are Submitted :: TotalBillAmount==>"+totalBill:"Details Submission Failed";
+    }
+
+    @Override
+    public String calculateNetBillAmounts(List<PatientDTO> dtos) throws Exception {
+        List<PatientDetail> bos = new ArrayList<>(dtos.size());
+        float totalBill = 0.0f;
+        for (PatientDTO dto : dtos) {
+            PatientDetail bo = calculateBill(dto);
+            totalBill += bo.getTotalBillAmount();
+            bos.add(bo);
+        }
+
+        int count = saveBills(bos);
+        return count==dtos.size()?count+" Patient Details Are Submitted :: TotalBillAmount==>"+totalBill:"Details Submission Failed";
+    }
+
+    @Override
+    public int saveBills(List<PatientDetail> bos) throws Exception {
+        return dao.insertBatch(bos);
+    }
+
+    @Override
+    public PatientDetail calculateBill(PatientDTO dto) {
         if (dto.getBill_per_day()==null){
             throw new IllegalArgumentException("Bill per day not found");
         }
         float totalBill = dto.getBill_per_day()*dto.getNumber_of_days();
         dto.setTotalBillAmount(totalBill);
-        System.out.println("Calculated Total Bill = " + totalBill );
-        float netBillAmount = totalBill;
-        float discount = 0.0f;
-        if(totalBill<=100000){
-            discount = (totalBill)*0.01f;
-            netBillAmount = totalBill-discount;
-        } else if (totalBill>100000 && totalBill>=200000){
-            discount = (totalBill)*0.01f;
-            netBillAmount = totalBill-discount;
-        }else System.out.println("NetBillAmount will be = "+netBillAmount);
-
-        PatientDetail bo = new PatientDetail();
-        bo.setPatient_name(dto.getPatient_name());
-        bo.setPatient_addr(dto.getPatient_addr());
-        bo.setPatient_MobNumber(String.valueOf(dto.getPatient_MobNumber()));
-        bo.setBill_per_day(dto.getBill_per_day());
-        bo.setNumber_of_days(dto.getNumber_of_days());
-        bo.setTotalBillAmount(totalBill);
+        float discount = discountFor(totalBill);
+        float netBillAmount = totalBill-discount;
+
+        PatientDetail bo = PatientMapper.INSTANCE.toBO(dto);
         bo.setDiscount(discount);
         bo.setNetBillAmount(netBillAmount);
+        return bo;
+    }
 
-        int count = dao.insert(bo);
-        return count==1?"Patient Details Are Submitted :: TotalBillAmount==>"+totalBill:"Details Submission Failed";
+    /**
+     * 1% off bills up to 100000 and from 200000 up; bills in between get no discount.
+     */
+    public static float discountFor(float totalBill) {
+        if (totalBill<=100000 || totalBill>=200000){
+            return totalBill*0.01f;
+        }
+        return 0.0f;
     }
 }
@@ -1,7 +1,22 @@
 package org.annotations.patientreport.service;
 
+import org.annotations.patientreport.bo.PatientDetail;
 import org.annotations.patientreport.dto.PatientDTO;
 
+import java.util.List;
+
 public interface PatientServiceINT {
     String calculateNetBillAmount(PatientDTO dto) throws Exception;
+
+    String calculateNetBillAmounts(List<PatientDTO> dtos) throws Exception;
+
+    /**
+     * Computes the total, discount and net bill without storing anything.
+     */
+    PatientDetail calculateBill(PatientDTO dto);
+
+    /**
+     * Stores already calculated bills in one batch. Returns the number of rows stored.
+     */
+    int saveBills(List<PatientDetail> bos) throws Exception;
 }
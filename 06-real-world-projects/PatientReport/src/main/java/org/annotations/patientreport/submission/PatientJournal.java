@@ -0,0 +1,400 @@
+package org.annotations.patientreport.submission;
+
+import org.annotations.patientreport.bo.PatientDetail;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of billed patients waiting to be stored, kept in numbered segment files.
+ * Every record carries a sequence number and a CRC. {@link #sync} forces the file to disk, and
+ * callers waiting at the same time share one force. The checkpoint file holds the highest
+ * sequence known to be in the database; segments entirely at or below it are deleted.
+ * <p>
+ * Opening the journal checks every segment without keeping its records; {@link #read} reads
+ * them back later, a bounded number at a time. A record cut short by a crash at the end of the
+ * newest segment is truncated away.
+ */
+public class PatientJournal implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(PatientJournal.class);
+    private static final String SEGMENT_PREFIX = "patients-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Object syncLock = new Object();
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final long openedCheckpoint;
+    private FileChannel channel;
+    private long segmentSize;
+    private long nextSequence;
+    private volatile long durableSequence;
+    private volatile boolean closed;
+
+    public PatientJournal(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        long checkpoint = readCheckpoint();
+        openedCheckpoint = checkpoint;
+        long lastSequence = checkpoint;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && f.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(f -> segments.put(firstSequence(f), f));
+        }
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            lastSequence = Math.max(lastSequence, recover(segment.getValue(), segment.getKey().equals(segments.lastKey())));
+        }
+        nextSequence = lastSequence + 1;
+        durableSequence = lastSequence;
+
+        if (!segments.isEmpty() && Files.size(segments.lastEntry().getValue()) < segmentBytes) {
+            channel = FileChannel.open(segments.lastEntry().getValue(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            segmentSize = channel.size();
+        } else {
+            openSegment();
+        }
+    }
+
+    /**
+     * Highest sequence marked as stored when the journal was opened; every record after it was
+     * left over from the previous run.
+     */
+    public long getOpenedCheckpoint() {
+        return openedCheckpoint;
+    }
+
+    /**
+     * Sequence of the last record appended, or of the checkpoint if there is none after it.
+     */
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Up to {@code limit} records with a sequence above {@code afterSequence}, oldest first. A
+     * record still being appended is not returned.
+     */
+    public List<Entry> read(long afterSequence, int limit) throws IOException {
+        List<Path> candidates;
+        synchronized (this) {
+            Long first = segments.floorKey(afterSequence + 1);
+            candidates = new ArrayList<>((first == null ? segments : segments.tailMap(first, true)).values());
+        }
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 1_024));
+        for (Path segment : candidates) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            scan(segment, entry -> {
+                if (entry.getSequence() > afterSequence) {
+                    entries.add(entry);
+                }
+                return entries.size() < limit;
+            });
+        }
+        return entries;
+    }
+
+    /**
+     * Writes {@code patient} to the current segment and returns its sequence number. The record
+     * is not durable until {@link #sync} returns for that sequence.
+     */
+    public synchronized long append(PatientDetail patient, long submittedAtMillis) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        byte[] record = encode(nextSequence, submittedAtMillis, patient);
+        if (segmentSize > 0 && segmentSize + record.length > segmentBytes) {
+            channel.force(false);
+            durableSequence = nextSequence - 1;
+            channel.close();
+            openSegment();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        segmentSize += record.length;
+        return nextSequence++;
+    }
+
+    /**
+     * Returns once every record up to {@code sequence} is on disk. Threads arriving while a force
+     * is running wait for it and usually find their record already covered.
+     */
+    public void sync(long sequence) throws IOException {
+        while (durableSequence < sequence) {
+            synchronized (syncLock) {
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                if (closed) {
+                    throw new IOException("Journal is closed");
+                }
+                FileChannel current;
+                long upTo;
+                synchronized (this) {
+                    current = channel;
+                    upTo = nextSequence - 1;
+                }
+                try {
+                    current.force(false);
+                } catch (ClosedChannelException e) {
+                    // rolled over to a new segment, which forces the old one first
+                    continue;
+                }
+                if (upTo > durableSequence) {
+                    durableSequence = upTo;
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks every record up to {@code sequence} as stored in the database and deletes the
+     * segments that no longer hold anything newer.
+     */
+    public void checkpoint(long sequence) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (this) {
+            Map.Entry<Long, Path> segment = segments.firstEntry();
+            while (segment != null && !segment.getKey().equals(segments.lastKey())
+                    && segments.higherKey(segment.getKey()) - 1 <= sequence) {
+                obsolete.add(segment.getValue());
+                segments.remove(segment.getKey());
+                segment = segments.firstEntry();
+            }
+        }
+        for (Path path : obsolete) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    public int getSegmentCount() {
+        synchronized (this) {
+            return segments.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                channel.force(false);
+                channel.close();
+            }
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentSize = channel.size();
+        segments.put(nextSequence, path);
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(path)).getLong();
+    }
+
+    /**
+     * Checks one segment and returns the last valid sequence in it, or 0 for an empty segment.
+     */
+    private long recover(Path segment, boolean newest) throws IOException {
+        long[] lastSequence = {0};
+        long validBytes = scan(segment, entry -> {
+            lastSequence[0] = entry.getSequence();
+            return true;
+        });
+        if (validBytes < Files.size(segment)) {
+            if (newest) {
+                log.warn("Journal {} ends in an incomplete record, truncating it", segment.getFileName());
+                try (FileChannel out = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    out.truncate(validBytes);
+                    out.force(true);
+                }
+            } else {
+                log.warn("Journal {} is damaged after byte {}, skipping the rest", segment.getFileName(), validBytes);
+            }
+        }
+        return lastSequence[0];
+    }
+
+    /**
+     * Passes the records of {@code segment} to {@code visitor}, oldest first, until it returns
+     * false or a record is cut short or fails its CRC. Returns the bytes taken by the records read.
+     */
+    private static long scan(Path segment, Predicate<Entry> visitor) throws IOException {
+        long validBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            while (true) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    if (length < Long.BYTES * 2 + Integer.BYTES || length > MAX_RECORD_BYTES) {
+                        return validBytes;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    return validBytes;
+                }
+                Entry entry = decode(body);
+                if (entry == null) {
+                    return validBytes;
+                }
+                validBytes += Integer.BYTES + body.length;
+                if (!visitor.test(entry)) {
+                    return validBytes;
+                }
+            }
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Record layout: length, sequence, submitted-at millis, the eight patient fields, CRC32 of
+     * everything after the length.
+     */
+    static byte[] encode(long sequence, long submittedAtMillis, PatientDetail patient) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeLong(sequence);
+        out.writeLong(submittedAtMillis);
+        writeString(out, patient.getPatient_name());
+        writeString(out, patient.getPatient_addr());
+        writeString(out, patient.getPatient_MobNumber());
+        writeFloat(out, patient.getBill_per_day());
+        out.writeBoolean(patient.getNumber_of_days() != null);
+        out.writeInt(patient.getNumber_of_days() == null ? 0 : patient.getNumber_of_days());
+        writeFloat(out, patient.getTotalBillAmount());
+        writeFloat(out, patient.getDiscount());
+        writeFloat(out, patient.getNetBillAmount());
+        CRC32 crc = new CRC32();
+        byte[] record = bytes.toByteArray();
+        crc.update(record, Integer.BYTES, record.length - Integer.BYTES);
+        out.writeInt((int) crc.getValue());
+        record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(0, record.length - Integer.BYTES);
+        return record;
+    }
+
+    /**
+     * The record in {@code body}, or {@code null} if its CRC does not match.
+     */
+    static Entry decode(byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length - Integer.BYTES);
+        if ((int) crc.getValue() != ByteBuffer.wrap(body).getInt(body.length - Integer.BYTES)) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        long sequence = in.readLong();
+        long submittedAtMillis = in.readLong();
+        PatientDetail patient = new PatientDetail();
+        patient.setPatient_name(readString(in));
+        patient.setPatient_addr(readString(in));
+        patient.setPatient_MobNumber(readString(in));
+        patient.setBill_per_day(readFloat(in));
+        boolean hasDays = in.readBoolean();
+        int days = in.readInt();
+        patient.setNumber_of_days(hasDays ? days : null);
+        patient.setTotalBillAmount(readFloat(in));
+        patient.setDiscount(readFloat(in));
+        patient.setNetBillAmount(readFloat(in));
+        return new Entry(sequence, submittedAtMillis, patient);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeFloat(DataOutputStream out, Float value) throws IOException {
+        out.writeBoolean(value != null);
+        out.writeFloat(value == null ? 0 : value);
+    }
+
+    private static Float readFloat(DataInputStream in) throws IOException {
+        boolean present = in.readBoolean();
+        float value = in.readFloat();
+        return present ? value : null;
+    }
+
+    public static class Entry {
+        private final long sequence;
+        private final long submittedAtMillis;
+        private final PatientDetail patient;
+
+        Entry(long sequence, long submittedAtMillis, PatientDetail patient) {
+            this.sequence = sequence;
+            this.submittedAtMillis = submittedAtMillis;
+            this.patient = patient;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getSubmittedAtMillis() {
+            return submittedAtMillis;
+        }
+
+        public PatientDetail getPatient() {
+            return patient;
+        }
+    }
+}
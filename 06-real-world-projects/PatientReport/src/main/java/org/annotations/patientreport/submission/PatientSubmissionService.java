@@ -0,0 +1,380 @@
+package org.annotations.patientreport.submission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.dao.PatientDAO;
+import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.service.PatientServiceINT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind submission, enabled with patient.submission.async=true. The bill is calculated
+ * straight away and the patient is appended to a {@link PatientJournal}; the caller is answered
+ * once the journal is on disk, without waiting for the database. A background thread stores
+ * queued patients in batches of patient.dao.batch-size and moves the journal checkpoint forward.
+ * A crash between a batch insert and its checkpoint stores that batch twice.
+ * <p>
+ * At most patient.submission.queue-capacity patients are held in memory. Once the queue is full,
+ * for example while the database is down, new patients are only journaled and the flusher reads
+ * them back from the journal when the queue has drained. Patients still in the journal after a
+ * crash or shutdown are read back the same way on the next start.
+ * <p>
+ * A batch rejected for its data, such as a value too long for its column, is stored one patient
+ * at a time. Patients that still fail are appended to the dead-letter journal under
+ * {@code <journal-dir>/dead-letter} instead of holding up everything submitted after them. Any
+ * other failure, such as a lost connection, is retried with backoff.
+ * <p>
+ * Metrics: patient.submission.queue.depth (patients not yet stored), patient.submission.flush.lag
+ * (age in ms of the oldest of them), patient.submission.ack and patient.submission.flush timers,
+ * and patient.submission.stored / patient.submission.flush.failures /
+ * patient.submission.dead.letters counters.
+ */
+@Service
+@ConditionalOnProperty(name = "patient.submission.async", havingValue = "true")
+public class PatientSubmissionService {
+    private static final Logger log = LoggerFactory.getLogger(PatientSubmissionService.class);
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+    static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+    private final PatientServiceINT patientService;
+    private final PatientDAO dao;
+    private final MeterRegistry registry;
+    private final Path journalDirectory;
+    private final long segmentBytes;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final long shutdownTimeoutMs;
+    private final LinkedBlockingQueue<PatientJournal.Entry> queue;
+    private final Object appendLock = new Object();
+    private PatientJournal journal;
+    private PatientJournal deadLetterJournal;
+    private Thread flusher;
+    private Timer ackTimer;
+    private Timer flushTimer;
+    private Counter stored;
+    private Counter failures;
+    private Counter deadLetters;
+    private volatile boolean running;
+    private volatile long inFlightSubmittedAt;
+    private volatile long lastSequence;
+    private volatile long checkpointed;
+    // guarded by appendLock: the queue holds the journal in order up to queuedUpTo; while spilled,
+    // later entries are only in the journal
+    private long queuedUpTo;
+    private boolean spilled;
+    private volatile long spilledSince;
+
+    @Autowired
+    public PatientSubmissionService(PatientServiceINT patientService, PatientDAO dao, MeterRegistry registry,
+                                    @Value("${patient.submission.journal-dir:journal}") Path journalDirectory,
+                                    @Value("${patient.submission.segment-bytes:67108864}") long segmentBytes,
+                                    @Value("${patient.dao.batch-size:500}") int batchSize,
+                                    @Value("${patient.submission.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${patient.submission.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("patient.dao.batch-size must be at least 1");
+        }
+        if (queueCapacity < batchSize) {
+            throw new IllegalArgumentException("patient.submission.queue-capacity must be at least patient.dao.batch-size");
+        }
+        this.patientService = patientService;
+        this.dao = dao;
+        this.registry = registry;
+        this.journalDirectory = journalDirectory;
+        this.segmentBytes = segmentBytes;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Opens the journals and starts the flusher, which first reads back whatever the journal
+     * still holds.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        journal = new PatientJournal(journalDirectory, segmentBytes);
+        deadLetterJournal = new PatientJournal(journalDirectory.resolve(DEAD_LETTER_DIRECTORY), segmentBytes);
+        checkpointed = journal.getOpenedCheckpoint();
+        lastSequence = journal.getLastSequence();
+        queuedUpTo = checkpointed;
+        spilled = lastSequence > checkpointed;
+        if (spilled) {
+            log.info("Replaying {} patients from {}", lastSequence - checkpointed, journalDirectory);
+        }
+        Gauge.builder("patient.submission.queue.depth", this, PatientSubmissionService::getQueueDepth)
+                .register(registry);
+        Gauge.builder("patient.submission.flush.lag", this, PatientSubmissionService::getFlushLagMillis)
+                .baseUnit("milliseconds").register(registry);
+        ackTimer = registry.timer("patient.submission.ack");
+        flushTimer = registry.timer("patient.submission.flush");
+        stored = registry.counter("patient.submission.stored");
+        failures = registry.counter("patient.submission.flush.failures");
+        deadLetters = registry.counter("patient.submission.dead.letters");
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "patient-journal-flusher");
+        flusher.start();
+    }
+
+    /**
+     * Bills the patient and journals it. Returns once the journal entry is durable; the row is
+     * written to the database later.
+     */
+    public String submit(PatientDTO patientDTO) throws Exception {
+        if (!running) {
+            throw new IllegalStateException("Patient submission is shut down");
+        }
+        long start = System.nanoTime();
+        PatientDetail patient = patientService.calculateBill(patientDTO);
+        long sequence;
+        // the flusher checkpoints the last entry of each batch, so the queue must be in journal order
+        synchronized (appendLock) {
+            long submittedAt = System.currentTimeMillis();
+            sequence = journal.append(patient, submittedAt);
+            lastSequence = sequence;
+            if (!spilled && queue.offer(new PatientJournal.Entry(sequence, submittedAt, patient))) {
+                queuedUpTo = sequence;
+            } else if (!spilled) {
+                spilled = true;
+                spilledSince = submittedAt;
+            }
+        }
+        journal.sync(sequence);
+        ackTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return "Patient Details Are Accepted :: TotalBillAmount==>" + patient.getTotalBillAmount();
+    }
+
+    /**
+     * Patients journaled but not yet stored or dead-lettered, whether queued or only on disk.
+     */
+    public int getQueueDepth() {
+        return (int) Math.max(0, lastSequence - checkpointed);
+    }
+
+    /**
+     * Patients held in the in-memory queue, at most patient.submission.queue-capacity.
+     */
+    int getQueuedInMemory() {
+        return queue.size();
+    }
+
+    /**
+     * Milliseconds since the oldest patient not yet in the database was submitted, 0 if none.
+     * While the oldest patients wait only in the journal this is an upper bound.
+     */
+    public long getFlushLagMillis() {
+        if (getQueueDepth() == 0) {
+            return 0;
+        }
+        long oldest = inFlightSubmittedAt;
+        if (oldest == 0) {
+            PatientJournal.Entry head = queue.peek();
+            oldest = head == null ? spilledSince : head.getSubmittedAtMillis();
+        }
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    /**
+     * Stops accepting patients and gives the flusher patient.submission.shutdown-timeout-ms to
+     * store what is queued. Anything left over stays in the journal.
+     */
+    @PreDestroy
+    public void close() throws Exception {
+        running = false;
+        flusher.join(shutdownTimeoutMs);
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+            flusher.join();
+        }
+        if (getQueueDepth() > 0) {
+            log.warn("{} patients left in {} for the next start", getQueueDepth(), journalDirectory);
+        }
+        journal.close();
+        deadLetterJournal.close();
+    }
+
+    private void flushLoop() {
+        List<PatientJournal.Entry> batch = new ArrayList<>(batchSize);
+        long retryDelay = 100;
+        try {
+            while (running || !queue.isEmpty() || !batch.isEmpty()) {
+                try {
+                    if (batch.isEmpty()) {
+                        if (queue.isEmpty()) {
+                            refillFromJournal();
+                        }
+                        PatientJournal.Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        inFlightSubmittedAt = first.getSubmittedAtMillis();
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - 1);
+                    }
+                    store(batch);
+                    retryDelay = 100;
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failures.increment();
+                    log.warn("Could not store {} journaled patients, retrying in {} ms: {}", batch.size(), retryDelay, e.getMessage());
+                    if (!running) {
+                        break;
+                    }
+                    Thread.sleep(retryDelay);
+                    retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stores {@code batch} and removes what was stored or dead-lettered from it; whatever is left
+     * failed for a reason worth retrying.
+     */
+    private void store(List<PatientJournal.Entry> batch) throws Exception {
+        List<PatientDetail> patients = new ArrayList<>(batch.size());
+        for (PatientJournal.Entry entry : batch) {
+            patients.add(entry.getPatient());
+        }
+        try {
+            long start = System.nanoTime();
+            dao.insertBatch(patients);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            completed(batch, batch.size(), batch.size());
+            return;
+        } catch (Exception e) {
+            if (!isPermanent(e)) {
+                throw e;
+            }
+            log.warn("A batch of {} patients was rejected, storing them one at a time: {}", batch.size(), e.getMessage());
+        }
+
+        // insertBatch rolled the whole batch back; find the patients that are rejected on their own
+        int done = 0;
+        int inserted = 0;
+        try {
+            for (PatientJournal.Entry entry : batch) {
+                try {
+                    dao.insert(entry.getPatient());
+                    inserted++;
+                } catch (Exception e) {
+                    if (!isPermanent(e)) {
+                        throw e;
+                    }
+                    deadLetter(entry, e);
+                }
+                done++;
+            }
+        } finally {
+            if (done > 0) {
+                completed(batch, done, inserted);
+            }
+        }
+    }
+
+    /**
+     * Checkpoints the first {@code done} entries of {@code batch} and removes them.
+     */
+    private void completed(List<PatientJournal.Entry> batch, int done, int inserted) throws IOException {
+        long sequence = batch.get(done - 1).getSequence();
+        journal.checkpoint(sequence);
+        checkpointed = sequence;
+        batch.subList(0, done).clear();
+        inFlightSubmittedAt = batch.isEmpty() ? 0 : batch.get(0).getSubmittedAtMillis();
+        stored.increment(inserted);
+    }
+
+    private void deadLetter(PatientJournal.Entry entry, Exception cause) throws IOException {
+        deadLetterJournal.sync(deadLetterJournal.append(entry.getPatient(), entry.getSubmittedAtMillis()));
+        deadLetters.increment();
+        log.error("Patient {} (journal sequence {}) cannot be stored and was moved to {}: {}",
+                entry.getPatient().getPatient_name(), entry.getSequence(),
+                journalDirectory.resolve(DEAD_LETTER_DIRECTORY), cause.getMessage());
+    }
+
+    /**
+     * Moves the next patients that did not fit in the queue from the journal into it. Called by
+     * the flusher only when the queue is empty, and submit does not add to the queue while
+     * spilled, so they always fit.
+     */
+    private void refillFromJournal() throws IOException {
+        long after;
+        synchronized (appendLock) {
+            if (!spilled) {
+                return;
+            }
+            after = queuedUpTo;
+        }
+        List<PatientJournal.Entry> entries = journal.read(after, queueCapacity);
+        synchronized (appendLock) {
+            for (PatientJournal.Entry entry : entries) {
+                queue.add(entry);
+                queuedUpTo = entry.getSequence();
+            }
+            if (queuedUpTo >= lastSequence) {
+                spilled = false;
+            } else if (!entries.isEmpty()) {
+                spilledSince = entries.get(entries.size() - 1).getSubmittedAtMillis();
+            }
+        }
+    }
+
+    /**
+     * Whether {@code e} was caused by the data itself (SQLState classes 22 and 23), which fails the
+     * same way on every retry. Lost connections, anything that is not a SQL error and statement
+     * errors (42) are treated as transient: a missing table or column after a bad deploy is
+     * retried with backoff until the schema is fixed rather than dead-lettering every patient.
+     */
+    static boolean isPermanent(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql) {
+                return isPermanent(sql);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPermanent(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException) {
+            return false;
+        }
+        if (e instanceof SQLDataException || e instanceof SQLIntegrityConstraintViolationException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        if (state == null) {
+            // a batch failure may only carry the state on the exception chained to it
+            return e.getNextException() != null && isPermanent(e.getNextException());
+        }
+        return state.startsWith("22") || state.startsWith("23");
+    }
+}
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS corona_patient_details (
+    Patient_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Patient_name VARCHAR(100),
+    Patient_addr VARCHAR(255),
+    Patient_MobNumber VARCHAR(20),
+    bill_per_day FLOAT,
+    number_of_days INT,
+    totalBillAmount FLOAT,
+    discount FLOAT,
+    netBillAmount FLOAT
+);
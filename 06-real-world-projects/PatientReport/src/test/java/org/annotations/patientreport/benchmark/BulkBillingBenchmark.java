@@ -0,0 +1,61 @@
+package org.annotations.patientreport.benchmark;
+
+import org.annotations.patientreport.bo.PatientBillingBatch;
+import org.annotations.patientreport.service.BulkBillingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Billing 10M synthetic patients in memory at different pool sizes, to see how the fork/join
+ * engine scales with cores. Database time is left out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BulkBillingBenchmark {
+    private static final int PATIENTS = 10_000_000;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private PatientBillingBatch batch;
+    private BulkBillingEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        batch = new PatientBillingBatch(PATIENTS);
+        Random random = new Random(42);
+        for (int i = 0; i < PATIENTS; i++) {
+            batch.add(i + 1, 500 + random.nextInt(20_000), 1 + random.nextInt(30));
+        }
+        engine = new BulkBillingEngine(null, 1, parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public PatientBillingBatch bill() {
+        engine.bill(batch);
+        return batch;
+    }
+}
@@ -0,0 +1,72 @@
+package org.annotations.patientreport.benchmark;
+
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.mapper.PatientMapper;
+import org.annotations.patientreport.vo.PatientVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One patient copied VO to DTO to BO: with the generated {@link PatientMapper}, by hand as the
+ * controller and service used to, and with reflective {@link BeanUtils#copyProperties}. Run with
+ * {@code -prof gc} to compare allocation per copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    private final PatientVO vo = new PatientVO();
+
+    public MapperBenchmark() {
+        vo.setPatient_name("Anil Rao");
+        vo.setPatient_addr("12 Main Road, Pune");
+        vo.setPatient_MobNumber("9000000001");
+        vo.setBill_per_day(1_500f);
+        vo.setNumber_of_days(4);
+    }
+
+    @Benchmark
+    public PatientDetail generated() {
+        return PatientMapper.INSTANCE.toBO(PatientMapper.INSTANCE.toDTO(vo));
+    }
+
+    @Benchmark
+    public PatientDetail handWritten() {
+        PatientDTO dto = new PatientDTO();
+        dto.setPatient_name(vo.getPatient_name());
+        dto.setPatient_addr(vo.getPatient_addr());
+        dto.setPatient_MobNumber(String.valueOf(vo.getPatient_MobNumber()));
+        dto.setNumber_of_days(vo.getNumber_of_days());
+        dto.setBill_per_day(vo.getBill_per_day());
+        PatientDetail bo = new PatientDetail();
+        bo.setPatient_name(dto.getPatient_name());
+        bo.setPatient_addr(dto.getPatient_addr());
+        bo.setPatient_MobNumber(String.valueOf(dto.getPatient_MobNumber()));
+        bo.setBill_per_day(dto.getBill_per_day());
+        bo.setNumber_of_days(dto.getNumber_of_days());
+        return bo;
+    }
+
+    @Benchmark
+    public PatientDetail beanUtils() {
+        PatientDTO dto = new PatientDTO();
+        BeanUtils.copyProperties(vo, dto);
+        PatientDetail bo = new PatientDetail();
+        BeanUtils.copyProperties(dto, bo);
+        return bo;
+    }
+}
@@ -0,0 +1,50 @@
+package org.annotations.patientreport.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.dao.PatientDAO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class AppConfigTests {
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PatientDAO dao;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void dataSourceIsPooledAndBoundFromProperties() {
+        HikariDataSource pool = assertInstanceOf(HikariDataSource.class, dataSource);
+        assertEquals("patient-pool", pool.getPoolName());
+        assertEquals(4, pool.getMaximumPoolSize());
+        assertEquals(5000, pool.getConnectionTimeout());
+    }
+
+    @Test
+    void poolMetricsAreRecorded() throws Exception {
+        PatientDetail bo = new PatientDetail();
+        bo.setPatient_name("metrics");
+        bo.setBill_per_day(100f);
+        bo.setNumber_of_days(2);
+        bo.setTotalBillAmount(200f);
+        bo.setDiscount(2f);
+        bo.setNetBillAmount(198f);
+        dao.insert(bo);
+
+        assertTrue(meterRegistry.get("hikaricp.connections.acquire").tag("pool", "patient-pool").timer().count() > 0);
+        assertTrue(meterRegistry.get("hikaricp.connections.usage").tag("pool", "patient-pool").timer().count() > 0);
+        assertNotNull(meterRegistry.get("hikaricp.connections.creation").tag("pool", "patient-pool").timer());
+    }
+}
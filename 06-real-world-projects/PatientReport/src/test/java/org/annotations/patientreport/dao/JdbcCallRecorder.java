@@ -0,0 +1,60 @@
+package org.annotations.patientreport.dao;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the JDBC calls made on the connections, statements and result sets handed out by a
+ * wrapped data source, so tests can check how the DAOs talk to the database.
+ */
+public class JdbcCallRecorder {
+    private final Map<String, List<List<Object>>> calls = new ConcurrentHashMap<>();
+
+    public DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource);
+    }
+
+    public int calls(String method) {
+        return arguments(method).size();
+    }
+
+    /**
+     * Arguments of every call to {@code method}, in call order.
+     */
+    public List<List<Object>> arguments(String method) {
+        return calls.getOrDefault(method, List.of());
+    }
+
+    private <T> T proxy(Class<T> type, Object target) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            calls.computeIfAbsent(method.getName(), name -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(args == null ? List.of() : Arrays.asList(args.clone()));
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                return proxy(ResultSet.class, result);
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, result);
+            }
+            if (result instanceof Connection) {
+                return proxy(Connection.class, result);
+            }
+            return result;
+        }));
+    }
+}
@@ -0,0 +1,132 @@
+package org.annotations.patientreport.dao;
+
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.service.PatientServiceIMPL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the DAO against an in-memory H2 database created from schema.sql in place of MySQL.
+ */
+class PatientDAOBatchTests {
+    private static final int ROWS = 5_000;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void insertBatchStoresEveryRow() throws Exception {
+        PatientDAO dao = new PatientDAO_impl(database, 100);
+
+        assertEquals(ROWS, dao.insertBatch(patients(ROWS)));
+        assertEquals(ROWS, count());
+        assertEquals(4_999f, jdbc.queryForObject(
+                "SELECT bill_per_day FROM corona_patient_details WHERE Patient_name = 'patient-4999'", Float.class));
+    }
+
+    @Test
+    void insertBatchRollsBackWhenAnyRowFails() throws Exception {
+        PatientDAO dao = new PatientDAO_impl(database, 100);
+        List<PatientDetail> patients = patients(1_000);
+        patients.get(750).setBill_per_day(null);
+
+        assertThrows(Exception.class, () -> dao.insertBatch(patients));
+        assertEquals(0, count());
+    }
+
+    @Test
+    void bulkBillingMatchesSingleBilling() throws Exception {
+        PatientServiceIMPL service = new PatientServiceIMPL(new PatientDAO_impl(database, 100));
+        List<PatientDTO> dtos = new ArrayList<>();
+        for (float perDay : new float[]{1_000f, 15_000f, 25_000f}) {
+            PatientDTO dto = new PatientDTO();
+            dto.setPatient_name("bulk-" + perDay);
+            dto.setBill_per_day(perDay);
+            dto.setNumber_of_days(10);
+            dtos.add(dto);
+        }
+
+        assertTrue(service.calculateNetBillAmounts(dtos).startsWith("3 Patient Details Are Submitted"));
+        List<Float> discounts = jdbc.queryForList(
+                "SELECT discount FROM corona_patient_details ORDER BY bill_per_day", Float.class);
+        // the 100000 < total < 200000 tier gets no discount
+        assertEquals(List.of(100f, 0f, 2_500f), discounts);
+    }
+
+    @Test
+    void insertBatchSendsOneJdbcBatchPerChunk() throws Exception {
+        JdbcCallRecorder counter = new JdbcCallRecorder();
+        PatientDAO dao = new PatientDAO_impl(counter.wrap(database), 500);
+
+        dao.insertBatch(patients(1_250));
+
+        assertEquals(1_250, count());
+        assertEquals(1, counter.calls("prepareStatement"));
+        assertEquals(1_250, counter.calls("addBatch"));
+        // two full chunks of 500 and the remaining 250
+        assertEquals(3, counter.calls("executeBatch"));
+        assertEquals(0, counter.calls("executeUpdate"));
+    }
+
+    @Test
+    void insertSendsOneStatementPerRow() throws Exception {
+        JdbcCallRecorder counter = new JdbcCallRecorder();
+        PatientDAO dao = new PatientDAO_impl(counter.wrap(database), 500);
+
+        for (PatientDetail patient : patients(10)) {
+            dao.insert(patient);
+        }
+
+        assertEquals(10, counter.calls("executeUpdate"));
+        assertEquals(0, counter.calls("executeBatch"));
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM corona_patient_details", Integer.class);
+    }
+
+    private static List<PatientDetail> patients(int count) {
+        List<PatientDetail> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PatientDetail bo = new PatientDetail();
+            bo.setPatient_name("patient-" + i);
+            bo.setPatient_addr("ward " + (i % 40));
+            bo.setPatient_MobNumber(String.valueOf(9_000_000_000L + i));
+            bo.setBill_per_day((float) i);
+            bo.setNumber_of_days(1 + i % 20);
+            bo.setTotalBillAmount(bo.getBill_per_day() * bo.getNumber_of_days());
+            bo.setDiscount(0.0f);
+            bo.setNetBillAmount(bo.getTotalBillAmount());
+            patients.add(bo);
+        }
+        return patients;
+    }
+}
@@ -0,0 +1,96 @@
+package org.annotations.patientreport.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.annotations.patientreport.bo.PatientDetail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the physical connections opened for a run of inserts with a new connection per call, as
+ * the old DriverManagerDataSource did, and through the pool. Uses an in-memory H2 database in
+ * place of MySQL.
+ */
+class PatientDAOPoolingTests {
+    private static final String URL = "jdbc:h2:mem:pooling;DB_CLOSE_DELAY=-1";
+    private static final int POOL_SIZE = 2;
+    private static final int INSERTS = 500;
+
+    private CountingDataSource physical;
+    private HikariDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        physical = new CountingDataSource();
+        pool = new HikariDataSource();
+        pool.setDataSource(physical);
+        pool.setMaximumPoolSize(POOL_SIZE);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void pooledInsertsReuseConnections() throws Exception {
+        insert(new PatientDAO_impl(pool, 500), INSERTS);
+
+        int total = pool.getHikariPoolMXBean().getTotalConnections();
+        assertTrue(total >= 1 && total <= POOL_SIZE, "total connections: " + total);
+        assertTrue(physical.opened.get() <= POOL_SIZE, "physical connections opened: " + physical.opened.get());
+    }
+
+    @Test
+    void unpooledInsertsOpenAConnectionEach() throws Exception {
+        CountingDataSource unpooled = new CountingDataSource();
+
+        insert(new PatientDAO_impl(unpooled, 500), INSERTS);
+
+        assertEquals(INSERTS, unpooled.opened.get());
+    }
+
+    private static void insert(PatientDAO dao, int count) throws Exception {
+        PatientDetail bo = new PatientDetail();
+        bo.setPatient_name("pooling");
+        bo.setPatient_addr("ward 1");
+        bo.setPatient_MobNumber("9000000000");
+        bo.setBill_per_day(1_500f);
+        bo.setNumber_of_days(3);
+        bo.setTotalBillAmount(4_500f);
+        bo.setDiscount(45f);
+        bo.setNetBillAmount(4_455f);
+        for (int i = 0; i < count; i++) {
+            dao.insert(bo);
+        }
+    }
+
+    /**
+     * Opens a new H2 connection on every call and counts them.
+     */
+    private static class CountingDataSource extends DriverManagerDataSource {
+        private final AtomicInteger opened = new AtomicInteger();
+
+        CountingDataSource() {
+            super(URL, "sa", "");
+        }
+
+        @Override
+        protected Connection getConnectionFromDriverManager(String url, Properties props) throws SQLException {
+            opened.incrementAndGet();
+            return super.getConnectionFromDriverManager(url, props);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.annotations.patientreport.dao;
+
+import org.annotations.patientreport.bo.PatientBillingSummary;
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.bo.PatientStayRevenue;
+import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.service.PatientServiceIMPL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the report queries against an in-memory H2 database created from schema.sql.
+ */
+class PatientReportDAOTests {
+    private EmbeddedDatabase database;
+    private PatientReportDAO reports;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        reports = new PatientReportDAO_impl(database, 2);
+
+        PatientServiceIMPL service = new PatientServiceIMPL(null);
+        List<PatientDetail> patients = new ArrayList<>();
+        // totals 10000, 20000 and 150000 (no discount in that tier), and 300000
+        patients.add(service.calculateBill(patient("a", 1_000f, 10)));
+        patients.add(service.calculateBill(patient("b", 2_000f, 10)));
+        patients.add(service.calculateBill(patient("c", 5_000f, 30)));
+        patients.add(service.calculateBill(patient("d", 10_000f, 30)));
+        new PatientDAO_impl(database, 100).insertBatch(patients);
+        new JdbcTemplate(database).update("INSERT INTO corona_patient_details (Patient_name, bill_per_day) VALUES ('e', 500)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void summarizeAddsUpTheWholeTable() throws Exception {
+        PatientBillingSummary summary = reports.summarize();
+
+        assertEquals(5, summary.getPatients());
+        assertEquals(80, summary.getPatientDays());
+        assertEquals(20.0, summary.getAverageStay(), 1e-9);
+        assertEquals(480_000.0, summary.getTotalBillAmount(), 1e-3);
+        assertEquals(100 + 200 + 3_000, summary.getTotalDiscount(), 1e-3);
+        assertEquals(480_000.0 - 3_300, summary.getNetRevenue(), 1e-3);
+        assertEquals((480_000.0 - 3_300) / 80, summary.getRevenuePerDay(), 1e-6);
+    }
+
+    @Test
+    void revenueByStayGroupsOnNumberOfDays() throws Exception {
+        List<PatientStayRevenue> stays = reports.revenueByStay();
+
+        assertEquals(2, stays.size());
+        assertEquals(10, stays.get(0).getNumberOfDays());
+        assertEquals(2, stays.get(0).getPatients());
+        assertEquals(30_000.0 - 300, stays.get(0).getNetRevenue(), 1e-3);
+        assertEquals((30_000.0 - 300) / 20, stays.get(0).getRevenuePerDay(), 1e-6);
+        assertEquals(30, stays.get(1).getNumberOfDays());
+        assertEquals(3_000.0, stays.get(1).getTotalDiscount(), 1e-3);
+    }
+
+    @Test
+    void forEachPatientStreamsRowsInIdOrder() throws Exception {
+        List<String> names = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        PatientDetail[] last = new PatientDetail[1];
+
+        long rows = reports.forEachPatient((patientId, patient) -> {
+            ids.add(patientId);
+            names.add(patient.getPatient_name());
+            last[0] = patient;
+        });
+
+        assertEquals(5, rows);
+        assertEquals(List.of("a", "b", "c", "d", "e"), names);
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i) > ids.get(i - 1));
+        }
+        assertEquals(500f, last[0].getBill_per_day());
+        assertNull(last[0].getNumber_of_days());
+        assertNull(last[0].getNetBillAmount());
+    }
+
+    private static PatientDTO patient(String name, float perDay, int days) {
+        PatientDTO dto = new PatientDTO();
+        dto.setPatient_name(name);
+        dto.setBill_per_day(perDay);
+        dto.setNumber_of_days(days);
+        return dto;
+    }
+}
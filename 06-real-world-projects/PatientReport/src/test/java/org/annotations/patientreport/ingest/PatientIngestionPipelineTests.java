@@ -0,0 +1,163 @@
+package org.annotations.patientreport.ingest;
+
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.controller.AppControler;
+import org.annotations.patientreport.dao.PatientDAO;
+import org.annotations.patientreport.dao.PatientDAO_impl;
+import org.annotations.patientreport.service.PatientServiceIMPL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class PatientIngestionPipelineTests {
+    @TempDir
+    Path directory;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void csvRowsAreBilledAndStored() throws Exception {
+        Path file = directory.resolve("admissions.csv");
+        Files.writeString(file, """
+                number_of_days,Patient_Name,patient_addr,Patient_MobNumber,bill_per_day,ward
+                10,"Rao, Anil","12 ""Main"" Road",9000000001,1000,A
+                3,Meena,Pune,9000000002,abc,B
+                5,Kiran,Delhi,9000000003,,C
+
+                20,Sita,Chennai,9000000004,25000,D
+                2,"Broken,Pune,9000000005,100,E
+                """);
+
+        IngestionReport report = pipeline(new PatientDAO_impl(database, 2), 2).ingest(file);
+
+        assertEquals(5, report.getRowsRead());
+        assertEquals(2, report.getRowsStored());
+        assertEquals(3, report.getRowsRejected());
+        assertEquals("12 \"Main\" Road", jdbc.queryForObject(
+                "SELECT Patient_addr FROM corona_patient_details WHERE Patient_name = 'Rao, Anil'", String.class));
+        assertEquals(List.of(100f, 5_000f), jdbc.queryForList(
+                "SELECT discount FROM corona_patient_details ORDER BY bill_per_day", Float.class));
+    }
+
+    @Test
+    void ndjsonRowsAreBilledAndStored() throws Exception {
+        Path file = directory.resolve("admissions.ndjson");
+        Files.writeString(file, """
+                {"Patient_name":"Rao","Patient_addr":"Pune","Patient_MobNumber":"9000000001","bill_per_day":1000,"number_of_days":10}
+                {"Patient_name":"Meena","bill_per_day":null,"number_of_days":3}
+                not json
+                {"patient_name":"Sita","bill_per_day":"25000.5","number_of_days":"2","extra":true}
+                """);
+
+        IngestionReport report = pipeline(new PatientDAO_impl(database, 500), 1).ingest(file);
+
+        assertEquals(4, report.getRowsRead());
+        assertEquals(2, report.getRowsStored());
+        assertEquals(2, report.getRowsRejected());
+        assertEquals(50_001f, jdbc.queryForObject(
+                "SELECT totalBillAmount FROM corona_patient_details WHERE Patient_name = 'Sita'", Float.class));
+    }
+
+    @Test
+    void largeFileStreamsThroughBoundedQueues() throws Exception {
+        int rows = 500_000;
+        Path file = directory.resolve("large.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("Patient_name,Patient_addr,Patient_MobNumber,bill_per_day,number_of_days\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write("patient-" + i + ",ward " + (i % 40) + "," + (9_000_000_000L + i) + "," + (i % 9_000) + "," + (1 + i % 30) + "\n");
+            }
+        }
+        CountingDAO dao = new CountingDAO(-1);
+
+        IngestionReport report = pipeline(dao, 2).ingest(file);
+
+        System.out.println(report);
+        assertEquals(rows, report.getRowsStored());
+        assertEquals(rows, dao.rows.get());
+    }
+
+    @Test
+    void writeFailureStopsIngestion() throws IOException {
+        Path file = directory.resolve("failing.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("Patient_name,Patient_addr,Patient_MobNumber,bill_per_day,number_of_days\n");
+            for (int i = 0; i < 100_000; i++) {
+                writer.write("patient-" + i + ",ward,9000000000,100,2\n");
+            }
+        }
+        CountingDAO dao = new CountingDAO(3);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            Exception e = assertThrows(Exception.class, () -> pipeline(dao, 2).ingest(file));
+            assertEquals("Ingestion of " + file + " stopped: database unavailable", e.getMessage());
+        });
+        assertEquals(3 * 500, dao.rows.get());
+    }
+
+    private static PatientIngestionPipeline pipeline(PatientDAO dao, int computeThreads) {
+        PatientServiceIMPL service = new PatientServiceIMPL(dao);
+        return new PatientIngestionPipeline(new AppControler(service), service, 500, computeThreads, 2);
+    }
+
+    /**
+     * Counts rows instead of storing them, failing every batch after {@code failAfter} batches.
+     */
+    private static class CountingDAO implements PatientDAO {
+        private final int failAfter;
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+
+        CountingDAO(int failAfter) {
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public int insert(PatientDetail BO) {
+            rows.incrementAndGet();
+            return 1;
+        }
+
+        @Override
+        public int insertBatch(List<PatientDetail> BOs) throws Exception {
+            if (failAfter >= 0 && batches.incrementAndGet() > failAfter) {
+                throw new Exception("database unavailable");
+            }
+            rows.addAndGet(BOs.size());
+            return BOs.size();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.annotations.patientreport.report;
+
+import org.annotations.patientreport.dao.JdbcCallRecorder;
+import org.annotations.patientreport.dao.PatientDAO_impl;
+import org.annotations.patientreport.dao.PatientReportDAO_impl;
+import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.service.PatientServiceIMPL;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PatientReportExporterTests {
+    private static final int ROWS = 5_000;
+
+    @TempDir
+    Path databaseDirectory;
+
+    @Test
+    void exportQuotesTextAndLeavesNullsEmpty() throws Exception {
+        DriverManagerDataSource dataSource = database(false);
+        PatientDTO dto = new PatientDTO();
+        dto.setPatient_name("Rao, \"Kiran\"");
+        dto.setPatient_addr("Pune");
+        dto.setBill_per_day(1_000f);
+        dto.setNumber_of_days(2);
+        new PatientDAO_impl(dataSource, 10).insertBatch(List.of(new PatientServiceIMPL(null).calculateBill(dto)));
+        StringWriter csv = new StringWriter();
+
+        assertEquals(1, new PatientReportExporter(new PatientReportDAO_impl(dataSource, 100)).exportCsv(csv));
+        assertEquals(PatientReportExporter.HEADER + "\n1,\"Rao, \"\"Kiran\"\"\",Pune,,1000.0,2,2000.0,20.0,1980.0\n",
+                csv.toString());
+    }
+
+    /**
+     * Each row must be written before the next one is read, from a forward-only cursor that
+     * fetches patient.report.fetch-size rows per round trip, so nothing collects the table.
+     */
+    @Test
+    void exportWritesEachRowAsTheCursorAdvances() throws Exception {
+        DriverManagerDataSource dataSource = database(true);
+        new JdbcTemplate(dataSource).update("INSERT INTO corona_patient_details (Patient_name, Patient_addr, Patient_MobNumber,"
+                + " bill_per_day, number_of_days, totalBillAmount, discount, netBillAmount)"
+                + " SELECT 'patient-' || X, 'ward ' || MOD(X, 10), '98' || X, 1000, MOD(X, 30) + 1,"
+                + " 1000 * (MOD(X, 30) + 1), 0, 1000 * (MOD(X, 30) + 1) FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        JdbcCallRecorder jdbc = new JdbcCallRecorder();
+        CursorCheckingWriter out = new CursorCheckingWriter(() -> jdbc.calls("next"));
+
+        long rows = new PatientReportExporter(new PatientReportDAO_impl(jdbc.wrap(dataSource), 250)).exportCsv(out);
+
+        assertEquals(ROWS, rows);
+        assertEquals(ROWS + 1, out.lines);
+        assertEquals(0, out.linesOutOfStep);
+        assertEquals(List.of(List.of(250)), jdbc.arguments("setFetchSize"));
+        List<Object> prepare = jdbc.arguments("prepareStatement").get(0);
+        assertEquals(List.of(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), prepare.subList(1, 3));
+    }
+
+    /**
+     * File-backed H2 so the table itself does not live on the heap; lazy execution makes H2 hand
+     * rows over as the cursor advances, as MySQL does with useCursorFetch.
+     */
+    private DriverManagerDataSource database(boolean lazy) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:file:" + databaseDirectory.resolve("patients") + (lazy ? ";LAZY_QUERY_EXECUTION=1" : ""), "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        return dataSource;
+    }
+
+    /**
+     * Discards the CSV and counts the lines whose row was not the last one read from the cursor.
+     */
+    private static class CursorCheckingWriter extends Writer {
+        private final IntSupplier rowsRead;
+        private long lines;
+        private long linesOutOfStep;
+
+        CursorCheckingWriter(IntSupplier rowsRead) {
+            this.rowsRead = rowsRead;
+        }
+
+        @Override
+        public void write(int c) {
+            if (c == '\n') {
+                // the header is line 1, written before the first row is read
+                if (rowsRead.getAsInt() != lines) {
+                    linesOutOfStep++;
+                }
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void write(String text) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.annotations.patientreport.service;
+
+import org.annotations.patientreport.bo.PatientBillingBatch;
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.dao.PatientBillingDAO_impl;
+import org.annotations.patientreport.dto.PatientDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkBillingEngineTests {
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void billMatchesSinglePatientBilling() {
+        PatientServiceIMPL single = new PatientServiceIMPL(null);
+        BulkBillingEngine engine = new BulkBillingEngine(null, 1, 4);
+        Random random = new Random(7);
+        int patients = 100_000;
+        PatientBillingBatch batch = new PatientBillingBatch(patients + 3);
+        // the tier boundaries: 100000, in between, 200000
+        batch.add(1, 10_000f, 10);
+        batch.add(2, 15_000f, 10);
+        batch.add(3, 20_000f, 10);
+        for (int i = 0; i < patients; i++) {
+            batch.add(i + 4, random.nextInt(30_000) + random.nextFloat(), 1 + random.nextInt(30));
+        }
+
+        engine.bill(batch);
+        engine.close();
+
+        for (int i = 0; i < batch.size(); i++) {
+            PatientDTO dto = new PatientDTO();
+            dto.setBill_per_day(batch.getBillPerDay()[i]);
+            dto.setNumber_of_days(batch.getNumberOfDays()[i]);
+            PatientDetail expected = single.calculateBill(dto);
+            assertEquals(expected.getTotalBillAmount(), batch.getTotalBillAmount()[i]);
+            assertEquals(expected.getDiscount(), batch.getDiscount()[i]);
+            assertEquals(expected.getNetBillAmount(), batch.getNetBillAmount()[i]);
+        }
+        assertEquals(0f, batch.getDiscount()[1]);
+    }
+
+    @Test
+    void rebillAllUpdatesEveryPage() throws Exception {
+        int patients = 2_500;
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < patients; i++) {
+            rows.add(new Object[]{"patient-" + i, 1_000f + i, 1 + i % 30});
+        }
+        jdbc.batchUpdate("INSERT INTO corona_patient_details (Patient_name, bill_per_day, number_of_days,"
+                + " totalBillAmount, discount, netBillAmount) VALUES (?, ?, ?, 0, 0, 0)", rows);
+        jdbc.update("INSERT INTO corona_patient_details (Patient_name) VALUES ('no bill yet')");
+
+        BulkBillingEngine engine = new BulkBillingEngine(new PatientBillingDAO_impl(database, 100), 1_000, 2);
+        assertEquals(patients, engine.rebillAll());
+        engine.close();
+
+        Map<String, Object> last = jdbc.queryForMap("SELECT totalBillAmount, discount, netBillAmount"
+                + " FROM corona_patient_details WHERE Patient_name = 'patient-2499'");
+        float total = 3_499f * 10;
+        assertEquals(total, ((Number) last.get("TOTALBILLAMOUNT")).floatValue());
+        assertEquals(total * 0.01f, ((Number) last.get("DISCOUNT")).floatValue());
+        assertEquals(0, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM corona_patient_details WHERE bill_per_day IS NOT NULL AND totalBillAmount = 0", Integer.class));
+    }
+}
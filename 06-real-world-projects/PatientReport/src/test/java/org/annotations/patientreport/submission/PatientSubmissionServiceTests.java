@@ -0,0 +1,260 @@
+package org.annotations.patientreport.submission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.annotations.patientreport.bo.PatientDetail;
+import org.annotations.patientreport.dao.PatientDAO;
+import org.annotations.patientreport.dao.PatientDAO_impl;
+import org.annotations.patientreport.dto.PatientDTO;
+import org.annotations.patientreport.service.PatientServiceIMPL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.BatchUpdateException;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Submits patients through the journal into an in-memory H2 database created from schema.sql.
+ */
+class PatientSubmissionServiceTests {
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbc;
+
+    @TempDir
+    Path journalDirectory;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void submittedPatientsAreStoredInTheBackground() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        PatientSubmissionService submission = start(new PatientDAO_impl(database, 100), registry);
+        try {
+            for (int i = 0; i < 2_000; i++) {
+                assertTrue(submission.submit(patient(i)).startsWith("Patient Details Are Accepted"));
+            }
+            awaitStored(registry, 2_000);
+            assertEquals(2_000, count());
+            assertEquals(0, submission.getQueueDepth());
+            assertEquals(0, submission.getFlushLagMillis());
+            assertEquals(0.0, registry.get("patient.submission.queue.depth").gauge().value());
+            assertEquals(2_000, registry.get("patient.submission.ack").timer().count());
+        } finally {
+            submission.close();
+        }
+        // 8 KB segments roll over many times; everything before the current one is checkpointed away
+        assertEquals(1, segments().size());
+        assertEquals(49_000f, jdbc.queryForObject(
+                "SELECT totalBillAmount FROM corona_patient_details WHERE Patient_name = 'patient-1049'", Float.class));
+    }
+
+    @Test
+    void journaledPatientsAreStoredAfterRestartWhenDatabaseWasDown() throws Exception {
+        PatientSubmissionService submission = start(switchable(new AtomicBoolean()), new SimpleMeterRegistry());
+        for (int i = 0; i < 300; i++) {
+            submission.submit(patient(i));
+        }
+        assertTrue(submission.getQueueDepth() > 0);
+        submission.close();
+        assertEquals(0, count());
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        PatientSubmissionService restarted = start(new PatientDAO_impl(database, 100), registry);
+        try {
+            awaitStored(registry, 300);
+        } finally {
+            restarted.close();
+        }
+        assertEquals(300, count());
+    }
+
+    @Test
+    void patientsBeyondTheQueueCapacityAreReadBackFromTheJournal() throws Exception {
+        AtomicBoolean available = new AtomicBoolean();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        PatientSubmissionService submission = start(switchable(available), registry);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                submission.submit(patient(i));
+                assertTrue(submission.getQueuedInMemory() <= 200, "queued: " + submission.getQueuedInMemory());
+            }
+            assertEquals(1_000, submission.getQueueDepth());
+
+            available.set(true);
+            awaitStored(registry, 1_000);
+            assertEquals(0, submission.getQueueDepth());
+        } finally {
+            submission.close();
+        }
+        assertEquals(1_000, jdbc.queryForObject("SELECT COUNT(DISTINCT Patient_name) FROM corona_patient_details", Integer.class));
+        assertEquals(1_000, count());
+    }
+
+    @Test
+    void rejectedPatientIsDeadLetteredWithoutHoldingUpLaterOnes() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        PatientSubmissionService submission = start(new PatientDAO_impl(database, 100), registry);
+        PatientDTO tooLong = patient(120);
+        tooLong.setPatient_name("x".repeat(150));
+        try {
+            for (int i = 0; i < 250; i++) {
+                submission.submit(i == 120 ? tooLong : patient(i));
+            }
+            awaitStored(registry, 249);
+            assertEquals(1.0, registry.get("patient.submission.dead.letters").counter().count());
+            assertEquals(0, submission.getQueueDepth());
+        } finally {
+            submission.close();
+        }
+        assertEquals(249, count());
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM corona_patient_details WHERE Patient_name = 'patient-249'", Integer.class));
+        try (PatientJournal deadLetters = new PatientJournal(
+                journalDirectory.resolve(PatientSubmissionService.DEAD_LETTER_DIRECTORY), 1 << 20)) {
+            List<PatientJournal.Entry> entries = deadLetters.read(0, 10);
+            assertEquals(1, entries.size());
+            assertEquals(tooLong.getPatient_name(), entries.get(0).getPatient().getPatient_name());
+        }
+    }
+
+    @Test
+    void onlyDataErrorsArePermanent() {
+        assertTrue(PatientSubmissionService.isPermanent(
+                new Exception("wrapped", new SQLDataException("Value too long", "22001"))));
+        assertTrue(PatientSubmissionService.isPermanent(
+                new BatchUpdateException("Duplicate entry", "23000", new int[0])));
+        assertFalse(PatientSubmissionService.isPermanent(
+                new Exception("wrapped", new SQLTransientConnectionException("Connection is not available", "08001"))));
+        assertFalse(PatientSubmissionService.isPermanent(new SQLException("Communications link failure", "08S01")));
+        assertFalse(PatientSubmissionService.isPermanent(new Exception("Communications link failure")));
+        // a schema missing after a bad deploy is retried until it is fixed
+        assertFalse(PatientSubmissionService.isPermanent(
+                new Exception("wrapped", new SQLSyntaxErrorException("Table \"CORONA_PATIENT_DETAILS\" not found", "42S02"))));
+        assertFalse(PatientSubmissionService.isPermanent(new BatchUpdateException("Unknown column", "42S22", new int[0])));
+    }
+
+    @Test
+    void incompleteRecordAtTheEndOfTheJournalIsDropped() throws Exception {
+        PatientServiceIMPL service = new PatientServiceIMPL(null);
+        try (PatientJournal journal = new PatientJournal(journalDirectory, 1 << 20)) {
+            for (int i = 0; i < 3; i++) {
+                journal.sync(journal.append(service.calculateBill(patient(i)), System.currentTimeMillis()));
+            }
+        }
+        Path segment = segments().get(0);
+        byte[] next = PatientJournal.encode(4, System.currentTimeMillis(), service.calculateBill(patient(3)));
+        Files.write(segment, Arrays.copyOf(next, next.length / 2), StandardOpenOption.APPEND);
+
+        try (PatientJournal journal = new PatientJournal(journalDirectory, 1 << 20)) {
+            List<PatientJournal.Entry> recovered = journal.read(journal.getOpenedCheckpoint(), 10);
+            assertEquals(3, recovered.size());
+            assertEquals("patient-2", recovered.get(2).getPatient().getPatient_name());
+            assertEquals(4, journal.append(service.calculateBill(patient(3)), System.currentTimeMillis()));
+        }
+        try (PatientJournal journal = new PatientJournal(journalDirectory, 1 << 20)) {
+            List<PatientJournal.Entry> recovered = journal.read(journal.getOpenedCheckpoint(), 10);
+            assertEquals(4, recovered.size());
+            assertEquals(3_000f, recovered.get(3).getPatient().getTotalBillAmount());
+            assertEquals(List.of(3L, 4L), journal.read(2, 10).stream().map(PatientJournal.Entry::getSequence).toList());
+            assertEquals(1, journal.read(0, 1).size());
+        }
+    }
+
+    private PatientSubmissionService start(PatientDAO dao, MeterRegistry registry) throws Exception {
+        PatientSubmissionService submission = new PatientSubmissionService(
+                new PatientServiceIMPL(dao), dao, registry, journalDirectory, 8_192, 100, 200, 2_000);
+        submission.start();
+        return submission;
+    }
+
+    private static PatientDTO patient(int i) {
+        PatientDTO dto = new PatientDTO();
+        dto.setPatient_name("patient-" + i);
+        dto.setPatient_addr("ward " + i % 10);
+        dto.setPatient_MobNumber("98" + i);
+        dto.setBill_per_day(1_000f);
+        dto.setNumber_of_days(i % 50);
+        return dto;
+    }
+
+    /**
+     * Fails every insert like an unreachable database until {@code available} is set.
+     */
+    private PatientDAO switchable(AtomicBoolean available) {
+        PatientDAO h2 = new PatientDAO_impl(database, 100);
+        return new PatientDAO() {
+            @Override
+            public int insert(PatientDetail BO) throws Exception {
+                if (!available.get()) {
+                    throw new Exception("Communications link failure");
+                }
+                return h2.insert(BO);
+            }
+
+            @Override
+            public int insertBatch(List<PatientDetail> BOs) throws Exception {
+                if (!available.get()) {
+                    throw new Exception("Communications link failure");
+                }
+                return h2.insertBatch(BOs);
+            }
+        };
+    }
+
+    /**
+     * Waits for the stored counter, which the flusher raises only after the checkpoint.
+     */
+    private static void awaitStored(MeterRegistry registry, int patients) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (stored(registry) < patients && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(patients, stored(registry));
+    }
+
+    private static double stored(MeterRegistry registry) {
+        return registry.get("patient.submission.stored").counter().count();
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM corona_patient_details", Integer.class);
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
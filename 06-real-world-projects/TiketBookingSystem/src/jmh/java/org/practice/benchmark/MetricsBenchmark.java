@@ -0,0 +1,52 @@
+package org.practice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.practice.metrics.LatencyHistogram;
+import org.practice.metrics.MetricsRegistry;
+import org.practice.metrics.Operation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of instrumenting one operation: {@code timerBaseline} is the two clock reads every
+ * measurement needs, {@code startAndRecord} is the full path the services run, and the
+ * {@code Contended} variants record into the same histogram from four threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private long value = 12_345;
+
+    @Benchmark
+    public long timerBaseline() {
+        long start = MetricsRegistry.startTimer();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        histogram.record(value);
+        value = (value * 31 + 7) & 0xFFFFFFF;
+    }
+
+    @Benchmark
+    public void startAndRecord() {
+        long start = MetricsRegistry.startTimer();
+        MetricsRegistry.record(Operation.SEARCH, start, true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void startAndRecordContended() {
+        long start = MetricsRegistry.startTimer();
+        MetricsRegistry.record(Operation.SEARCH, start, true);
+    }
+}
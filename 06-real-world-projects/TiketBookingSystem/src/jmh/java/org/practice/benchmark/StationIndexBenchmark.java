@@ -0,0 +1,87 @@
+package org.practice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.practice.entities.Train;
+import org.practice.index.StationIndex;
+import org.practice.loadtest.WorkloadGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Station lookups against a catalog of 50k distinct stations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StationIndexBenchmark {
+    private static final int STATION_COUNT = 50_000;
+
+    private List<Train> trains;
+    private StationIndex index;
+    private String shortPrefix;
+    private String longPrefix;
+    private String typo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WorkloadGenerator generator = new WorkloadGenerator(7L, 1.1, 4);
+        List<String> stations = generator.generateStationNames(STATION_COUNT);
+        trains = new ArrayList<>(generator.generateTrains(5_000, stations, 4, 30));
+        // Make sure every station is served by at least one train
+        for (int i = 0; i < stations.size(); i += 10) {
+            Train local = new Train();
+            local.setTrainId("local-" + i);
+            local.setStation(stations.subList(i, Math.min(stations.size(), i + 10)));
+            trains.add(local);
+        }
+        index = new StationIndex(trains);
+
+        String busiest = index.autocomplete("", 1).get(0);
+        shortPrefix = busiest.substring(0, 2);
+        longPrefix = busiest.substring(0, Math.min(busiest.length(), 6));
+        char[] chars = busiest.toCharArray();
+        chars[chars.length / 2] = chars[chars.length / 2] == 'x' ? 'y' : 'x';
+        typo = new String(chars);
+        System.out.println("\n" + index.size() + " stations, busiest " + busiest + ", typo " + typo);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public StationIndex build() {
+        return new StationIndex(trains);
+    }
+
+    @Benchmark
+    public String exactLookup() {
+        return index.find(longPrefix);
+    }
+
+    @Benchmark
+    public List<String> autocompleteShortPrefix() {
+        return index.autocomplete(shortPrefix, 10);
+    }
+
+    @Benchmark
+    public List<String> autocompleteLongPrefix() {
+        return index.autocomplete(longPrefix, 10);
+    }
+
+    @Benchmark
+    public List<String> suggestOneEdit() {
+        return index.suggest(typo, 1, 10);
+    }
+
+    @Benchmark
+    public List<String> suggestTwoEdits() {
+        return index.suggest(typo, 2, 10);
+    }
+}
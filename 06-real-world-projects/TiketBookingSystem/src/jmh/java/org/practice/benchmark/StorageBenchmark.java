@@ -0,0 +1,156 @@
+package org.practice.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.practice.entities.Ticket;
+import org.practice.entities.Train;
+import org.practice.entities.User;
+import org.practice.storage.BlockCompressedStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pretty-printed JSON user file against the block compressed format.
+ * The "one user" benchmarks show what a login costs: JSON has to parse the whole file,
+ * the compressed store inflates a single block.
+ * <p>
+ * File sizes are printed during setup so the I/O saving can be read next to the CPU cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int USER_COUNT = 10_000;
+
+    static List<User> generateUsers(int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<Ticket> tickets = new ArrayList<>();
+            for (int t = random.nextInt(4); t > 0; t--) {
+                Ticket ticket = new Ticket();
+                ticket.setTicketId(UUID.randomUUID().toString());
+                int source = random.nextInt(500);
+                ticket.setSource("Station-" + source);
+                ticket.setDestination("Station-" + (source + 1 + random.nextInt(500)));
+                ticket.setTravelDate("2025-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10));
+                Train train = new Train();
+                train.setTrainId(String.valueOf(10_000 + random.nextInt(90_000)));
+                train.setTrainNumber(String.valueOf(10_000 + random.nextInt(90_000)));
+                train.setStation(List.of(ticket.getSource(), ticket.getDestination()));
+                train.setStationTime(Map.of(ticket.getSource(), "09:00:00", ticket.getDestination(), "17:30:00"));
+                ticket.setTrain(train);
+                tickets.add(ticket);
+            }
+            users.add(new User("user" + i, null, "$2a$10$" + UUID.randomUUID(), tickets, UUID.randomUUID().toString()));
+        }
+        return users;
+    }
+
+    @State(Scope.Benchmark)
+    public static class JsonState {
+        List<User> users;
+        File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            users = generateUsers(USER_COUNT);
+            file = Files.createTempFile("user", ".json").toFile();
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, users);
+            System.out.println("\njson file: " + file.length() + " bytes");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CompressedState {
+        @Param({"1", "6", "9"})
+        int level;
+
+        @Param({"32", "256", "2048"})
+        int blockSize;
+
+        List<User> users;
+        File file;
+        BlockCompressedStore<User> store;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            users = generateUsers(USER_COUNT);
+            file = Files.createTempFile("user", ".json.blk").toFile();
+            store = new BlockCompressedStore<>(file, User.class, User::getName, level, blockSize);
+            store.writeAll(users);
+            System.out.println("\ncompressed file (level " + level + ", block " + blockSize + "): " + file.length() + " bytes");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            file.delete();
+        }
+
+        String randomName() {
+            return users.get(ThreadLocalRandom.current().nextInt(users.size())).getName();
+        }
+    }
+
+    @Benchmark
+    public File writeJson(JsonState state) throws IOException {
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(state.file, state.users);
+        return state.file;
+    }
+
+    @Benchmark
+    public File writeCompressed(CompressedState state) throws IOException {
+        state.store.writeAll(state.users);
+        return state.file;
+    }
+
+    @Benchmark
+    public List<User> readAllJson(JsonState state) throws IOException {
+        return objectMapper.readValue(state.file, new TypeReference<List<User>>() {
+        });
+    }
+
+    @Benchmark
+    public List<User> readAllCompressed(CompressedState state) throws IOException {
+        return state.store.readAll();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Optional<User> readOneUserJson(JsonState state) throws IOException {
+        String name = "user" + ThreadLocalRandom.current().nextInt(USER_COUNT);
+        List<User> users = objectMapper.readValue(state.file, new TypeReference<List<User>>() {
+        });
+        return users.stream().filter(u -> u.getName().equals(name)).findFirst();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Optional<User> readOneUserCompressed(CompressedState state) throws IOException {
+        return state.store.read(state.randomName());
+    }
+}
@@ -1,6 +1,8 @@
 package org.practice;
 
 import org.practice.entities.User;
+import org.practice.index.StationIndex;
+import org.practice.metrics.MetricsRegistry;
 import org.practice.services.UserBookingService;
 import org.practice.services.TrainService;
 import org.practice.util.UserServiceUtil;
@@ -20,11 +22,12 @@ public class Main {
         UserBookingService userBookingService;
         TrainService trainService;
         User user = null;
+        MetricsRegistry.registerMBeans();
         try {
             userBookingService = new UserBookingService();
             trainService = new TrainService();
 
-            while (option != 7) {
+            while (option != 8) {
                 System.out.println("Please enter your option");
                 System.out.println("1. Create a new user");
                 System.out.println("2. Login");
@@ -32,7 +35,8 @@ public class Main {
                 System.out.println("4. Search Trains");
                 System.out.println("5. Book a seat");
                 System.out.println("6. Cancel Booking");
-                System.out.println("7. Exit");
+                System.out.println("7. Show metrics");
+                System.out.println("8. Exit");
                 option = sc.nextInt();
                 switch (option) {
                     case 1:
@@ -70,9 +74,9 @@ public class Main {
                         break;
                     case 4:
                         System.out.println("Please enter source station");
-                        String source = sc.next();
+                        String source = resolveStation(sc, trainService.getStationIndex(), sc.next());
                         System.out.println("Please enter destination station");
-                        String destination = sc.next();
+                        String destination = resolveStation(sc, trainService.getStationIndex(), sc.next());
                         List<Train> trains = trainService.searchTrains(source, destination);
                         if (trains.isEmpty()) {
                             System.out.println("No trains found");
@@ -110,6 +114,9 @@ public class Main {
                             System.out.println("Please login first");
                         }
                         break;
+                    case 7:
+                        MetricsRegistry.print();
+                        break;
                 }
             }
         } catch (IOException e) {
@@ -117,4 +124,25 @@ public class Main {
             e.printStackTrace();
         }
     }
+
+    private static String resolveStation(Scanner sc, StationIndex stationIndex, String input) {
+        String station = stationIndex.find(input);
+        if (station != null) {
+            return station;
+        }
+        List<String> suggestions = stationIndex.autocomplete(input, 5);
+        if (suggestions.isEmpty()) {
+            suggestions = stationIndex.suggest(input, 2, 5);
+        }
+        if (suggestions.isEmpty()) {
+            return input;
+        }
+        System.out.println("Did you mean:");
+        for (int i = 0; i < suggestions.size(); i++) {
+            System.out.println((i + 1) + ". " + suggestions.get(i));
+        }
+        System.out.println("Please enter a number, or 0 to keep " + input);
+        int choice = sc.nextInt();
+        return choice >= 1 && choice <= suggestions.size() ? suggestions.get(choice - 1) : input;
+    }
 }
\ No newline at end of file
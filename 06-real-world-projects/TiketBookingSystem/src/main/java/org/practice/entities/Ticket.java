@@ -3,6 +3,7 @@ package org.practice.entities;
 import lombok.Data;
 
 import java.util.Date;
+import java.util.UUID;
 
 public class Ticket {
     private String ticketId;
@@ -60,6 +61,10 @@ public class Ticket {
         this.train = train;
     }
 
+    public Ticket() {
+    }
+
     public Ticket(String trainId, int seatNumber) {
+        this.ticketId = UUID.randomUUID().toString();
     }
 }
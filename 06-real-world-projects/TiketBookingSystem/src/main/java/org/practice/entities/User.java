@@ -14,6 +14,9 @@ public class User {
     private List<Ticket> bookedTickets;
     private String userId;
 
+    public User() {
+    }
+
     public User(String name, String password, String hashPassword, List<Ticket> bookedTickets, String userId) {
         this.name = name;
         this.password = password;
@@ -69,7 +72,7 @@ public class User {
     }
 
     public boolean cancelTicket(String ticketId) {
-        return bookedTickets.removeIf(ticket -> ticket.getTicketId().equals(ticketId));
+        return bookedTickets.removeIf(ticket -> ticketId.equals(ticket.getTicketId()));
     }
 
     public boolean bookSeat(String trainId, int seatNumber) {
@@ -0,0 +1,251 @@
+package org.practice.index;
+
+import org.practice.entities.Train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Case-insensitive index of every station in the catalog, weighted by the number of trains that
+ * stop there. Names are kept in a sorted array, so all names sharing a prefix form one contiguous
+ * range. Prefix lookups are two binary searches. Typo suggestions walk the array as an implicit
+ * trie: edit-distance rows are reused for the prefix a name shares with the previous one, and the
+ * whole range under a prefix is skipped once that prefix is already too far from the query.
+ */
+public class StationIndex {
+    private final String[] keys;
+    private final String[] names;
+    private final int[] trainCounts;
+    private final int[] byPopularity;
+    private final int longestKey;
+
+    public StationIndex(List<Train> trains) {
+        Map<String, String> displayNames = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        for (Train train : trains) {
+            Set<String> served = new HashSet<>();
+            for (String station : train.getStation()) {
+                String key = normalize(station);
+                if (served.add(key)) {
+                    displayNames.putIfAbsent(key, station);
+                    counts.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+
+        keys = counts.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        names = new String[keys.length];
+        trainCounts = new int[keys.length];
+        int longest = 0;
+        for (int i = 0; i < keys.length; i++) {
+            names[i] = displayNames.get(keys[i]);
+            trainCounts[i] = counts.get(keys[i]);
+            longest = Math.max(longest, keys[i].length());
+        }
+        longestKey = longest;
+
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> rankBefore(a, b) ? -1 : rankBefore(b, a) ? 1 : 0);
+        byPopularity = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            byPopularity[i] = order[i];
+        }
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Catalog spelling of {@code station}, or {@code null} if no train stops there.
+     */
+    public String find(String station) {
+        int index = Arrays.binarySearch(keys, normalize(station));
+        return index >= 0 ? names[index] : null;
+    }
+
+    public int getTrainCount(String station) {
+        int index = Arrays.binarySearch(keys, normalize(station));
+        return index >= 0 ? trainCounts[index] : 0;
+    }
+
+    /**
+     * Up to {@code limit} stations starting with {@code prefix}, busiest first.
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        String key = normalize(prefix);
+        int from = lowerBound(key);
+        int to = endOfPrefix(key, key.length(), from);
+        int[] top = new int[Math.max(0, limit)];
+        int found = 0;
+        if ((long) (to - from) * (to - from) > (long) keys.length * limit) {
+            // A wide range is cheaper to fill by walking stations busiest-first until enough match
+            for (int i = 0; i < byPopularity.length && found < limit; i++) {
+                if (byPopularity[i] >= from && byPopularity[i] < to) {
+                    top[found++] = byPopularity[i];
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                if (found < limit) {
+                    found++;
+                } else if (!rankBefore(i, top[limit - 1])) {
+                    continue;
+                }
+                int position = found - 1;
+                while (position > 0 && rankBefore(i, top[position - 1])) {
+                    top[position] = top[position - 1];
+                    position--;
+                }
+                top[position] = i;
+            }
+        }
+        List<String> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(names[top[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code limit} stations within {@code maxEdits} insertions, deletions or substitutions of
+     * {@code query}, closest first and busiest first among equally close names.
+     */
+    public List<String> suggest(String query, int maxEdits, int limit) {
+        String target = normalize(query);
+        List<int[]> matches = new ArrayList<>();
+        if (target.isEmpty()) {
+            // The band below has no columns to walk; every name is simply its length away
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].length() <= maxEdits) {
+                    matches.add(new int[]{i, keys[i].length()});
+                }
+            }
+            return ranked(matches, limit);
+        }
+        int columns = target.length() + 1;
+        int outOfBand = maxEdits + 1;
+        int[][] rows = new int[longestKey + 1][columns];
+        for (int j = 0; j < columns; j++) {
+            rows[0][j] = Math.min(j, outOfBand);
+        }
+
+        String previous = "";
+        int validDepth = 0;
+        int i = 0;
+        while (i < keys.length) {
+            String key = keys[i];
+            int depth = Math.min(validDepth, commonPrefixLength(previous, key));
+            boolean pruned = false;
+            while (depth < key.length()) {
+                depth++;
+                int[] above = rows[depth - 1];
+                int[] row = rows[depth];
+                char c = key.charAt(depth - 1);
+                // Only cells within maxEdits of the diagonal can stay under the limit
+                int low = Math.max(1, depth - maxEdits);
+                int high = Math.min(columns - 1, depth + maxEdits);
+                if (low > high) {
+                    // Longer than the query by more than maxEdits, as is everything below it
+                    pruned = true;
+                    break;
+                }
+                row[0] = Math.min(depth, outOfBand);
+                row[low - 1] = low - 1 == 0 ? row[0] : outOfBand;
+                if (high + 1 < columns) {
+                    row[high + 1] = outOfBand;
+                }
+                int rowMin = row[0];
+                for (int j = low; j <= high; j++) {
+                    int substitution = above[j - 1] + (target.charAt(j - 1) == c ? 0 : 1);
+                    row[j] = Math.min(substitution, Math.min(above[j] + 1, row[j - 1] + 1));
+                    rowMin = Math.min(rowMin, row[j]);
+                }
+                if (rowMin > maxEdits) {
+                    // Every name below this prefix is at least rowMin edits away
+                    pruned = true;
+                    break;
+                }
+            }
+            previous = key;
+            if (pruned) {
+                validDepth = depth - 1;
+                i = endOfPrefix(key, depth, i);
+            } else {
+                validDepth = depth;
+                int distance = Math.abs(depth - target.length()) <= maxEdits ? rows[depth][columns - 1] : outOfBand;
+                if (distance <= maxEdits) {
+                    matches.add(new int[]{i, distance});
+                }
+                i++;
+            }
+        }
+        return ranked(matches, limit);
+    }
+
+    /**
+     * Names of {@code matches} ({index, distance} pairs), closest first, then busiest first.
+     */
+    private List<String> ranked(List<int[]> matches, int limit) {
+        matches.sort(Comparator.comparingInt((int[] m) -> m[1]).thenComparingInt(m -> -trainCounts[m[0]]));
+        List<String> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int m = 0; m < matches.size() && m < limit; m++) {
+            result.add(names[matches.get(m)[0]]);
+        }
+        return result;
+    }
+
+    private static String normalize(String station) {
+        return station.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int limit = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < limit && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private int lowerBound(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Busier stations rank first, then alphabetical order.
+     */
+    private boolean rankBefore(int a, int b) {
+        return trainCounts[a] != trainCounts[b] ? trainCounts[a] > trainCounts[b] : a < b;
+    }
+
+    /**
+     * First index at or after {@code from} whose key does not start with the first {@code length}
+     * characters of {@code prefix}.
+     */
+    private int endOfPrefix(String prefix, int length, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].regionMatches(0, prefix, 0, length)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,311 @@
+package org.practice.loadtest;
+
+import org.practice.entities.Ticket;
+import org.practice.entities.Train;
+import org.practice.entities.User;
+import org.practice.metrics.MetricsRegistry;
+import org.practice.services.TrainService;
+import org.practice.services.UserBookingService;
+import org.practice.storage.StorageConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a mixed search/login/book/cancel workload against {@link TrainService} and
+ * {@link UserBookingService} at a fixed target rate from several threads.
+ * <p>
+ * Each worker owns a {@link UserBookingService}, the same way each console session does, over its
+ * own copy of the users file: the service rewrites the whole file on every book and cancel, so
+ * workers sharing one file would lose each other's updates. All workers share one
+ * {@link TrainService}. Latency is measured from the time an operation was scheduled to start, so
+ * time spent queued behind a slow operation is counted too.
+ * <p>
+ * Example: {@code dir=build/loadtest threads=8 rate=200 duration=30 mix=search:60,login:20,book:15,cancel:5}.
+ * A workload is generated into {@code dir} first if it has no trains.json, using the
+ * {@link WorkloadGenerator} arguments.
+ */
+public class LoadSimulator {
+
+    enum Operation {
+        SEARCH, LOGIN, BOOK, CANCEL
+    }
+
+    private final TrainService trainService;
+    private final List<String> userNames;
+    private final String usersFile;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final ZipfSampler trainSampler;
+
+    public LoadSimulator(TrainService trainService, List<String> userNames, String usersFile, String mix, double zipf) {
+        this.trainService = trainService;
+        this.userNames = userNames;
+        this.usersFile = usersFile;
+        this.trainSampler = new ZipfSampler(trainService.getTrainList().size(), zipf);
+
+        String[] parts = mix.split(",");
+        operations = new Operation[parts.length];
+        cumulativeWeights = new int[parts.length];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            String[] entry = parts[i].split(":");
+            operations[i] = Operation.valueOf(entry[0].trim().toUpperCase());
+            total += Integer.parseInt(entry[1].trim());
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public Report run(int threads, double rate, int durationSeconds, long seed) throws IOException, InterruptedException {
+        List<UserBookingService> bookingServices = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            bookingServices.add(new UserBookingService(null, workerUsersFile(i)));
+        }
+        long intervalNanos = (long) (threads * 1_000_000_000L / rate);
+        long startNanos = System.nanoTime() + 100_000_000L;
+        long endNanos = startNanos + durationSeconds * 1_000_000_000L;
+
+        List<Worker> workers = new ArrayList<>(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(bookingServices.get(i), new Random(seed + i),
+                    startNanos + i * intervalNanos / threads, intervalNanos, endNanos);
+            workers.add(worker);
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.run();
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            thread.start();
+        }
+        done.await();
+        if (failure.get() != null) {
+            throw new IllegalStateException("Worker failed", failure.get());
+        }
+        return new Report(workers, System.nanoTime() - startNanos, rate);
+    }
+
+    /**
+     * A fresh copy of the users file for worker {@code index}, replacing any left by an earlier run.
+     */
+    private String workerUsersFile(int index) throws IOException {
+        Path source = Path.of(usersFile);
+        Path copy = source.resolveSibling("worker-" + index + "-" + source.getFileName());
+        Files.deleteIfExists(Path.of(StorageConfig.resolveFileName(copy.toString())));
+        Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+        return copy.toString();
+    }
+
+    private Operation nextOperation(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    class Worker {
+        private final Random random;
+        private final long intervalNanos;
+        private final long endNanos;
+        private final Map<Operation, LatencyRecorder> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        private final UserBookingService bookingService;
+        private long nextStartNanos;
+        private long allocatedBytes;
+
+        Worker(UserBookingService bookingService, Random random, long firstStartNanos, long intervalNanos, long endNanos) {
+            this.bookingService = bookingService;
+            this.random = random;
+            this.nextStartNanos = firstStartNanos;
+            this.intervalNanos = intervalNanos;
+            this.endNanos = endNanos;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyRecorder());
+                errors.put(operation, 0L);
+            }
+        }
+
+        void run() {
+            com.sun.management.ThreadMXBean threadBean =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long allocatedAtStart = threadBean.getCurrentThreadAllocatedBytes();
+            while (nextStartNanos < endNanos) {
+                long waitNanos = nextStartNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                    continue;
+                }
+                Operation operation = nextOperation(random);
+                boolean succeeded;
+                try {
+                    succeeded = execute(operation);
+                } catch (IOException | RuntimeException e) {
+                    succeeded = false;
+                }
+                latencies.get(operation).record(System.nanoTime() - nextStartNanos);
+                if (!succeeded) {
+                    errors.merge(operation, 1L, Long::sum);
+                }
+                nextStartNanos += intervalNanos;
+            }
+            allocatedBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+        }
+
+        private boolean execute(Operation operation) throws IOException {
+            switch (operation) {
+                case SEARCH:
+                    Train train = trainService.getTrainList().get(trainSampler.sample(random));
+                    List<String> route = train.getStation();
+                    int from = random.nextInt(Math.max(1, route.size() - 1));
+                    int to = Math.min(route.size() - 1, from + 1 + random.nextInt(Math.max(1, route.size() - from - 1)));
+                    return !trainService.searchTrains(route.get(from), route.get(to)).isEmpty();
+                case LOGIN:
+                    return login();
+                case BOOK:
+                    if (bookingService.getUser() == null && !login()) {
+                        return false;
+                    }
+                    Train bookedTrain = trainService.getTrainList().get(trainSampler.sample(random));
+                    return bookingService.bookSeat(bookingService.getUser(), bookedTrain.getTrainId(), random.nextInt(48));
+                case CANCEL:
+                    if (bookingService.getUser() == null && !login()) {
+                        return false;
+                    }
+                    List<Ticket> tickets = bookingService.getUser().getBookedTickets();
+                    if (tickets.isEmpty()) {
+                        return false;
+                    }
+                    return bookingService.cancelTicket(tickets.get(random.nextInt(tickets.size())).getTicketId());
+                default:
+                    throw new IllegalArgumentException("Unknown operation " + operation);
+            }
+        }
+
+        private boolean login() throws IOException {
+            String name = userNames.get(random.nextInt(userNames.size()));
+            return bookingService.loginUser(new User(name, WorkloadGenerator.passwordFor(name), null,
+                    new ArrayList<>(), null));
+        }
+    }
+
+    static class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int count;
+
+        void record(long nanos) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = nanos;
+        }
+    }
+
+    public static class Report {
+        private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        private final long elapsedNanos;
+        private final double targetRate;
+        private final long allocatedBytes;
+
+        Report(List<Worker> workers, long elapsedNanos, double targetRate) {
+            this.elapsedNanos = elapsedNanos;
+            this.targetRate = targetRate;
+            long allocated = 0;
+            for (Operation operation : Operation.values()) {
+                int total = 0;
+                for (Worker worker : workers) {
+                    total += worker.latencies.get(operation).count;
+                }
+                long[] merged = new long[total];
+                int position = 0;
+                long errorCount = 0;
+                for (Worker worker : workers) {
+                    LatencyRecorder recorder = worker.latencies.get(operation);
+                    System.arraycopy(recorder.values, 0, merged, position, recorder.count);
+                    position += recorder.count;
+                    errorCount += worker.errors.get(operation);
+                }
+                Arrays.sort(merged);
+                latencies.put(operation, merged);
+                errors.put(operation, errorCount);
+            }
+            for (Worker worker : workers) {
+                allocated += worker.allocatedBytes;
+            }
+            this.allocatedBytes = allocated;
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        public void print() {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            long completed = 0;
+            System.out.printf("%-8s %9s %7s %10s %10s %10s %10s %10s%n",
+                    "op", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            for (Operation operation : Operation.values()) {
+                long[] sorted = latencies.get(operation);
+                completed += sorted.length;
+                System.out.printf("%-8s %9d %7d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                        operation.name().toLowerCase(), sorted.length, errors.get(operation),
+                        percentileMillis(sorted, 50), percentileMillis(sorted, 90), percentileMillis(sorted, 99),
+                        percentileMillis(sorted, 99.9), percentileMillis(sorted, 100));
+            }
+            System.out.printf("throughput: %.1f ops/s (target %.1f ops/s) over %.1f s%n", completed / seconds, targetRate, seconds);
+            System.out.printf("allocation rate: %.1f MB/s (%.1f KB/op)%n",
+                    allocatedBytes / seconds / (1024 * 1024), completed == 0 ? 0 : allocatedBytes / 1024.0 / completed);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTestArgs arguments = new LoadTestArgs(args);
+        File directory = new File(arguments.getString("dir", "build/loadtest"));
+        if (arguments.getBoolean("generate", false) || !new File(directory, "trains.json").exists()) {
+            WorkloadGenerator.generate(arguments);
+        }
+        String usersFile = new File(directory, "user.json").getPath();
+        TrainService trainService = new TrainService(new File(directory, "trains.json").getPath());
+        List<String> userNames = new UserBookingService(null, usersFile).getUserList().stream()
+                .map(User::getName)
+                .toList();
+
+        LoadSimulator simulator = new LoadSimulator(trainService, userNames, usersFile,
+                arguments.getString("mix", "search:60,login:20,book:15,cancel:5"), arguments.getDouble("zipf", 1.1));
+        int threads = arguments.getInt("threads", 4);
+        double rate = arguments.getDouble("rate", 100);
+        int duration = arguments.getInt("duration", 30);
+        System.out.println("Running " + threads + " threads at " + rate + " ops/s for " + duration + " s against "
+                + trainService.getTrainList().size() + " trains and " + userNames.size() + " users");
+        MetricsRegistry.reset();
+        simulator.run(threads, rate, duration, arguments.getLong("seed", 42L)).print();
+        System.out.println();
+        System.out.println("Service-side latency (excludes scheduling delay):");
+        MetricsRegistry.print();
+    }
+}
@@ -0,0 +1,169 @@
+package org.practice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mindrot.jbcrypt.BCrypt;
+import org.practice.entities.Ticket;
+import org.practice.entities.Train;
+import org.practice.entities.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds a synthetic train catalog and user base in the same shape as trains.json and user.json.
+ * Station popularity follows a Zipf distribution, so a few hub stations appear on most routes.
+ * <p>
+ * Run standalone with e.g. {@code dir=build/loadtest trains=2000 stations=5000 users=10000}.
+ */
+public class WorkloadGenerator {
+    private static final String[] SYLLABLES = {
+            "ra", "ma", "pur", "na", "gar", "ban", "ga", "lo", "re", "ja", "de", "hi",
+            "ko", "ta", "se", "cha", "vi", "ka", "ru", "dha", "sa", "li", "mu", "bad"
+    };
+    private static final String[] SUFFIXES = {"", " Junction", " Central", " City", " Cantt", " Road"};
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Random random;
+    private final double zipfExponent;
+    private final int bcryptRounds;
+
+    public WorkloadGenerator(long seed, double zipfExponent, int bcryptRounds) {
+        this.random = new Random(seed);
+        this.zipfExponent = zipfExponent;
+        this.bcryptRounds = bcryptRounds;
+    }
+
+    /**
+     * Passwords are derived from the user name so the simulator can log generated users in.
+     */
+    public static String passwordFor(String userName) {
+        return "pw-" + userName;
+    }
+
+    public List<String> generateStationNames(int count) {
+        Set<String> names = new HashSet<>();
+        List<String> stations = new ArrayList<>(count);
+        while (stations.size() < count) {
+            StringBuilder name = new StringBuilder();
+            for (int i = 2 + random.nextInt(3); i > 0; i--) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+            name.append(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+            if (names.add(name.toString())) {
+                stations.add(name.toString());
+            }
+        }
+        return stations;
+    }
+
+    /**
+     * The position of a station in {@code stations} is its popularity rank.
+     */
+    public List<Train> generateTrains(int count, List<String> stations, int minStops, int maxStops) {
+        ZipfSampler stationSampler = new ZipfSampler(stations.size(), zipfExponent);
+        int longestRoute = Math.min(maxStops, stations.size());
+        List<Train> trains = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int stops = Math.min(longestRoute, minStops + random.nextInt(maxStops - minStops + 1));
+            Set<String> route = new LinkedHashSet<>();
+            for (int attempts = 0; route.size() < stops && attempts < stops * 20; attempts++) {
+                route.add(stations.get(stationSampler.sample(random)));
+            }
+
+            Map<String, String> stationTime = new LinkedHashMap<>();
+            int minuteOfDay = random.nextInt(24 * 60);
+            for (String station : route) {
+                stationTime.put(station, String.format("%02d:%02d:00", (minuteOfDay / 60) % 24, minuteOfDay % 60));
+                minuteOfDay += 20 + random.nextInt(70);
+            }
+
+            List<List<Integer>> seats = new ArrayList<>();
+            for (int row = 4 + random.nextInt(9); row > 0; row--) {
+                List<Integer> seatRow = new ArrayList<>(6);
+                for (int seat = 0; seat < 6; seat++) {
+                    seatRow.add(random.nextDouble() < 0.3 ? 1 : 0);
+                }
+                seats.add(seatRow);
+            }
+
+            Train train = new Train();
+            train.setTrainId(String.valueOf(10_000 + i));
+            train.setTrainNumber(String.valueOf(10_000 + random.nextInt(90_000)));
+            train.setStation(new ArrayList<>(route));
+            train.setStationTime(stationTime);
+            train.setSeats(seats);
+            trains.add(train);
+        }
+        return trains;
+    }
+
+    /**
+     * Each user gets a booking history of 0..maxTickets tickets, most users holding only a few.
+     */
+    public List<User> generateUsers(int count, List<Train> trains, int maxTickets) {
+        String salt = BCrypt.gensalt(bcryptRounds);
+        LocalDate firstTravelDate = LocalDate.of(2025, 1, 1);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = "user" + i;
+            String userId = new UUID(random.nextLong(), random.nextLong()).toString();
+            List<Ticket> tickets = new ArrayList<>();
+            while (tickets.size() < maxTickets && random.nextDouble() < 0.6) {
+                Train train = trains.get(random.nextInt(trains.size()));
+                List<String> route = train.getStation();
+                if (route.size() < 2) {
+                    continue;
+                }
+                int from = random.nextInt(route.size() - 1);
+                int to = from + 1 + random.nextInt(route.size() - from - 1);
+                Ticket ticket = new Ticket();
+                ticket.setTicketId(new UUID(random.nextLong(), random.nextLong()).toString());
+                ticket.setUserId(userId);
+                ticket.setSource(route.get(from));
+                ticket.setDestination(route.get(to));
+                ticket.setTravelDate(firstTravelDate.plusDays(random.nextInt(365)).toString());
+                ticket.setTrain(train);
+                tickets.add(ticket);
+            }
+            // One salt for the whole batch keeps generation fast; checkpw still does the full hash
+            users.add(new User(name, null, BCrypt.hashpw(passwordFor(name), salt), tickets, userId));
+        }
+        return users;
+    }
+
+    public static void writeTo(File directory, List<Train> trains, List<User> users) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        objectMapper.writeValue(new File(directory, "trains.json"), trains);
+        objectMapper.writeValue(new File(directory, "user.json"), users);
+    }
+
+    public static void generate(LoadTestArgs args) throws IOException {
+        WorkloadGenerator generator = new WorkloadGenerator(args.getLong("seed", 42L),
+                args.getDouble("zipf", 1.1), args.getInt("bcryptRounds", 4));
+        List<String> stations = generator.generateStationNames(args.getInt("stations", 5_000));
+        List<Train> trains = generator.generateTrains(args.getInt("trains", 2_000), stations,
+                args.getInt("minStops", 4), args.getInt("maxStops", 30));
+        List<User> users = generator.generateUsers(args.getInt("users", 10_000), trains, args.getInt("maxTickets", 8));
+        File directory = new File(args.getString("dir", "build/loadtest"));
+        writeTo(directory, trains, users);
+        System.out.println("Generated " + stations.size() + " stations, " + trains.size() + " trains and "
+                + users.size() + " users in " + directory.getAbsolutePath());
+    }
+
+    public static void main(String[] args) throws IOException {
+        generate(new LoadTestArgs(args));
+    }
+}
@@ -0,0 +1,154 @@
+package org.practice.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency histograms and failure counters for the booking operations.
+ * <pre>
+ *   long start = MetricsRegistry.startTimer();
+ *   boolean succeeded = false;
+ *   try {
+ *       ...
+ *       succeeded = true;
+ *   } finally {
+ *       MetricsRegistry.record(Operation.BOOK, start, succeeded);
+ *   }
+ * </pre>
+ */
+public class MetricsRegistry {
+    private static final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    private static final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private static boolean mbeansRegistered;
+
+    static {
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    public static long startTimer() {
+        return System.nanoTime();
+    }
+
+    public static void record(Operation operation, long startNanos) {
+        histograms.get(operation).record(System.nanoTime() - startNanos);
+    }
+
+    public static void record(Operation operation, long startNanos, boolean succeeded) {
+        record(operation, startNanos);
+        if (!succeeded) {
+            recordFailure(operation);
+        }
+    }
+
+    public static void recordFailure(Operation operation) {
+        failures.get(operation).increment();
+    }
+
+    public static LatencyHistogram.Snapshot snapshot(Operation operation) {
+        return histograms.get(operation).snapshot();
+    }
+
+    public static long getFailures(Operation operation) {
+        return failures.get(operation).sum();
+    }
+
+    public static void reset() {
+        for (Operation operation : Operation.values()) {
+            histograms.get(operation).reset();
+            failures.get(operation).reset();
+        }
+    }
+
+    public static synchronized void registerMBeans() {
+        if (mbeansRegistered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Operation operation : Operation.values()) {
+                server.registerMBean(new OperationMetrics(operation),
+                        new ObjectName("org.practice:type=BookingMetrics,operation=" + operation.displayName()));
+            }
+            mbeansRegistered = true;
+        } catch (JMException e) {
+            System.out.println("Could not register booking metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    public static void print() {
+        System.out.printf("%-10s %9s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "failures", "mean us", "p50 us", "p99 us", "p99.9 us", "max us");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot snapshot = snapshot(operation);
+            System.out.printf("%-10s %9d %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    operation.displayName(), snapshot.getCount(), getFailures(operation),
+                    snapshot.getMeanNanos() / 1000.0,
+                    snapshot.getPercentileNanos(50) / 1000.0,
+                    snapshot.getPercentileNanos(99) / 1000.0,
+                    snapshot.getPercentileNanos(99.9) / 1000.0,
+                    snapshot.getMaxNanos() / 1000.0);
+        }
+    }
+
+    static class OperationMetrics implements OperationMetricsMXBean {
+        private final Operation operation;
+
+        OperationMetrics(Operation operation) {
+            this.operation = operation;
+        }
+
+        @Override
+        public long getCount() {
+            return histograms.get(operation).getCount();
+        }
+
+        @Override
+        public long getFailures() {
+            return MetricsRegistry.getFailures(operation);
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return snapshot(operation).getMeanNanos() / 1000.0;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return snapshot(operation).getPercentileNanos(50) / 1000.0;
+        }
+
+        @Override
+        public double getP90Micros() {
+            return snapshot(operation).getPercentileNanos(90) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return snapshot(operation).getPercentileNanos(99) / 1000.0;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return snapshot(operation).getPercentileNanos(99.9) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return snapshot(operation).getMaxNanos() / 1000.0;
+        }
+
+        @Override
+        public void reset() {
+            histograms.get(operation).reset();
+            failures.get(operation).reset();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.practice.metrics;
+
+public enum Operation {
+    SEARCH,
+    BOOK,
+    CANCEL,
+    LOGIN,
+    FILE_LOAD,
+    FILE_SAVE;
+
+    public String displayName() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
@@ -0,0 +1,25 @@
+package org.practice.metrics;
+
+/**
+ * JMX view of one {@link Operation}, registered as
+ * {@code org.practice:type=BookingMetrics,operation=<name>}. Latencies are in microseconds.
+ */
+public interface OperationMetricsMXBean {
+    long getCount();
+
+    long getFailures();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
@@ -2,6 +2,11 @@ package org.practice.services;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.practice.entities.Train;
+import org.practice.index.StationIndex;
+import org.practice.metrics.MetricsRegistry;
+import org.practice.metrics.Operation;
+import org.practice.storage.BlockCompressedStore;
+import org.practice.storage.StorageConfig;
 
 import java.io.File;
 import java.io.IOException;
@@ -12,16 +17,54 @@ public class TrainService {
     private static final String TRAINS_DIRECTORY = "trains.json";
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private final List<Train> trainList;
+    private StationIndex stationIndex;
 
     public TrainService() throws IOException {
-        File trains = new File(TRAINS_DIRECTORY);
-        trainList = objectMapper.readValue(trains, new TypeReference<List<Train>>() {
-        });
+        this(TRAINS_DIRECTORY);
+    }
+
+    public TrainService(String trainsFile) throws IOException {
+        File trains = new File(trainsFile);
+        long start = MetricsRegistry.startTimer();
+        boolean loaded = false;
+        try {
+            if (StorageConfig.isCompressed()) {
+                BlockCompressedStore<Train> trainStore = BlockCompressedStore.fromConfig(
+                        new File(StorageConfig.resolveFileName(trainsFile)), Train.class, Train::getTrainId);
+                if (!trainStore.exists()) {
+                    trainStore.writeAll(objectMapper.readValue(trains, new TypeReference<List<Train>>() {
+                    }));
+                }
+                trainList = trainStore.readAll();
+            } else {
+                trainList = objectMapper.readValue(trains, new TypeReference<List<Train>>() {
+                });
+            }
+            loaded = true;
+        } finally {
+            MetricsRegistry.record(Operation.FILE_LOAD, start, loaded);
+        }
+    }
+
+    public List<Train> getTrainList() {
+        return trainList;
+    }
+
+    public StationIndex getStationIndex() {
+        if (stationIndex == null) {
+            stationIndex = new StationIndex(trainList);
+        }
+        return stationIndex;
     }
 
     public List<Train> searchTrains(String source, String destination) {
-        return trainList.stream()
-                .filter(train -> train.getStation().contains(source) && train.getStation().contains(destination))
-                .toList();
+        long start = MetricsRegistry.startTimer();
+        try {
+            return trainList.stream()
+                    .filter(train -> train.getStation().contains(source) && train.getStation().contains(destination))
+                    .toList();
+        } finally {
+            MetricsRegistry.record(Operation.SEARCH, start);
+        }
     }
 }
\ No newline at end of file
@@ -4,6 +4,10 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.practice.entities.Train;
 import org.practice.entities.User;
+import org.practice.metrics.MetricsRegistry;
+import org.practice.metrics.Operation;
+import org.practice.storage.BlockCompressedStore;
+import org.practice.storage.StorageConfig;
 import org.practice.util.UserServiceUtil;
 
 import java.io.File;
@@ -17,45 +21,108 @@ public class UserBookingService {
     private List<User> userList;
     private static final String USERS_DIRECTORY = "user.json";
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final String usersFile;
+    private final BlockCompressedStore<User> userStore;
 
     public UserBookingService() throws IOException {
-        getUserList();
+        this(null);
     }
 
     public UserBookingService(User user) throws IOException {
+        this(user, USERS_DIRECTORY);
+    }
+
+    public UserBookingService(User user, String usersFile) throws IOException {
         this.user = user;
-        getUserList();
+        this.usersFile = usersFile;
+        if (StorageConfig.isCompressed()) {
+            // The full list is only read on the first write; logins inflate just the user's block
+            userStore = BlockCompressedStore.fromConfig(
+                    new File(StorageConfig.resolveFileName(usersFile)), User.class, User::getName);
+            if (!userStore.exists()) {
+                userStore.writeAll(readUserListFromJson());
+            }
+        } else {
+            userStore = null;
+            getUserList();
+        }
     }
 
     public List<User> getUserList() throws IOException {
-        File users = new File(USERS_DIRECTORY);
-        userList = objectMapper.readValue(users, new TypeReference<List<User>>() {
+        long start = MetricsRegistry.startTimer();
+        boolean loaded = false;
+        try {
+            userList = userStore != null ? userStore.readAll() : readUserListFromJson();
+            loaded = true;
+            return userList;
+        } finally {
+            MetricsRegistry.record(Operation.FILE_LOAD, start, loaded);
+        }
+    }
+
+    private List<User> readUserListFromJson() throws IOException {
+        File users = new File(usersFile);
+        return objectMapper.readValue(users, new TypeReference<List<User>>() {
         });
-        return userList;
     }
 
-    public Boolean loginUser(User user) {
-        Optional<User> foundUser = userList.stream().filter(u -> {
-            return u.getName().equals(user.getName())
-                    && UserServiceUtil.checkPassword(user.getPassword(), u.getHashPassword());
-        }).findFirst();
-        if (foundUser.isPresent()) {
-            this.user = foundUser.get();
-            return Boolean.TRUE;
-        } else {
-            return Boolean.FALSE;
+    private List<User> loadedUserList() throws IOException {
+        return userList != null ? userList : getUserList();
+    }
+
+    public Boolean loginUser(User user) throws IOException {
+        long start = MetricsRegistry.startTimer();
+        boolean loggedIn = false;
+        try {
+            Optional<User> foundUser;
+            if (userList == null) {
+                foundUser = userStore.read(user.getName())
+                        .filter(u -> UserServiceUtil.checkPassword(user.getPassword(), u.getHashPassword()));
+            } else {
+                foundUser = userList.stream().filter(u -> {
+                    return u.getName().equals(user.getName())
+                            && UserServiceUtil.checkPassword(user.getPassword(), u.getHashPassword());
+                }).findFirst();
+            }
+            if (foundUser.isPresent()) {
+                this.user = foundUser.get();
+                loggedIn = true;
+            }
+            return loggedIn;
+        } finally {
+            MetricsRegistry.record(Operation.LOGIN, start, loggedIn);
         }
     }
 
+    public User getUser() {
+        return user;
+    }
+
     public Boolean signUp(User user) throws IOException {
-        userList.add(user);
+        loadedUserList().add(user);
         saveUserListToFile();
         return Boolean.TRUE;
     }
 
     private void saveUserListToFile() throws IOException {
-        File userFile = new File(USERS_DIRECTORY);
-        objectMapper.writeValue(userFile, userList);
+        List<User> users = loadedUserList();
+        if (user != null) {
+            // A user found through the block index is a separate copy from the one in the list
+            users.replaceAll(u -> u.getName().equals(user.getName()) ? user : u);
+        }
+        long start = MetricsRegistry.startTimer();
+        boolean saved = false;
+        try {
+            if (userStore != null) {
+                userStore.writeAll(users);
+            } else {
+                File userFile = new File(usersFile);
+                objectMapper.writeValue(userFile, users);
+            }
+            saved = true;
+        } finally {
+            MetricsRegistry.record(Operation.FILE_SAVE, start, saved);
+        }
     }
 
     public void fetchBooking() {
@@ -67,30 +134,38 @@ public class UserBookingService {
     }
 
     public Boolean cancelTicket(String ticketID) throws IOException {
-        if (user != null) {
-            if (user.cancelTicket(ticketID)) {
-                saveUserListToFile();
-                return Boolean.TRUE;
+        long start = MetricsRegistry.startTimer();
+        boolean cancelled = false;
+        try {
+            if (user != null) {
+                if (user.cancelTicket(ticketID)) {
+                    saveUserListToFile();
+                    cancelled = true;
+                }
             } else {
-                return Boolean.FALSE;
+                System.out.println("Please login first");
             }
-        } else {
-            System.out.println("Please login first");
-            return Boolean.FALSE;
+            return cancelled;
+        } finally {
+            MetricsRegistry.record(Operation.CANCEL, start, cancelled);
         }
     }
 
     public Boolean bookSeat(User user, String trainId, int seatNumber) throws IOException {
-        if (user != null) {
-            if (user.bookSeat(trainId, seatNumber)) {
-                saveUserListToFile();
-                return Boolean.TRUE;
+        long start = MetricsRegistry.startTimer();
+        boolean booked = false;
+        try {
+            if (user != null) {
+                if (user.bookSeat(trainId, seatNumber)) {
+                    saveUserListToFile();
+                    booked = true;
+                }
             } else {
-                return Boolean.FALSE;
+                System.out.println("Please login first");
             }
-        } else {
-            System.out.println("Please login first");
-            return Boolean.FALSE;
+            return booked;
+        } finally {
+            MetricsRegistry.record(Operation.BOOK, start, booked);
         }
     }
 
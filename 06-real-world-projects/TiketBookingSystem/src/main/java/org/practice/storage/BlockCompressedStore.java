@@ -0,0 +1,206 @@
+package org.practice.storage;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores a list of records as independently deflated blocks of JSON so a single record can be
+ * read back by key without inflating the whole file.
+ * <p>
+ * File layout:
+ * <pre>
+ *   block 0 .. block n-1      deflated JSON arrays of at most blockSize records
+ *   footer                    int blockCount, (long offset, int length) per block,
+ *                             int keyCount, (UTF key, int block) per key
+ *   trailer                   long footerOffset, long writeStamp, int MAGIC
+ * </pre>
+ * Every write draws a new random {@code writeStamp}. Readers check it before each read and reload
+ * the footer when another instance has replaced the file, whatever its length or modification time.
+ */
+public class BlockCompressedStore<T> {
+    private static final int MAGIC = 0x424B5332; // "BKS2"
+    private static final int TRAILER_LENGTH = 2 * Long.BYTES + Integer.BYTES;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final File file;
+    private final JavaType listType;
+    private final Function<T, String> keyFunction;
+    private final int compressionLevel;
+    private final int blockSize;
+
+    private long[] blockOffsets;
+    private int[] blockLengths;
+    private Map<String, Integer> keyIndex;
+    private long indexedStamp;
+
+    public BlockCompressedStore(File file, Class<T> type, Function<T, String> keyFunction,
+                                int compressionLevel, int blockSize) {
+        this.file = file;
+        this.listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+        this.keyFunction = keyFunction;
+        this.compressionLevel = compressionLevel;
+        this.blockSize = blockSize;
+    }
+
+    public static <T> BlockCompressedStore<T> fromConfig(File file, Class<T> type, Function<T, String> keyFunction) {
+        return new BlockCompressedStore<>(file, type, keyFunction,
+                StorageConfig.getCompressionLevel(), StorageConfig.getBlockSize());
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    public void writeAll(List<T> records) throws IOException {
+        int blockCount = (records.size() + blockSize - 1) / blockSize;
+        long[] offsets = new long[blockCount];
+        int[] lengths = new int[blockCount];
+        Map<String, Integer> index = new HashMap<>();
+        long stamp = ThreadLocalRandom.current().nextLong();
+
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        Deflater deflater = new Deflater(compressionLevel);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream();
+            long position = 0;
+            for (int block = 0; block < blockCount; block++) {
+                List<T> blockRecords = records.subList(block * blockSize, Math.min(records.size(), (block + 1) * blockSize));
+                for (T record : blockRecords) {
+                    index.put(keyFunction.apply(record), block);
+                }
+                blockBuffer.reset();
+                deflater.reset();
+                try (DeflaterOutputStream deflated = new DeflaterOutputStream(blockBuffer, deflater)) {
+                    objectMapper.writerFor(listType).writeValue(deflated, blockRecords);
+                }
+                offsets[block] = position;
+                lengths[block] = blockBuffer.size();
+                blockBuffer.writeTo(out);
+                position += blockBuffer.size();
+            }
+
+            out.writeInt(blockCount);
+            for (int block = 0; block < blockCount; block++) {
+                out.writeLong(offsets[block]);
+                out.writeInt(lengths[block]);
+            }
+            out.writeInt(index.size());
+            for (Map.Entry<String, Integer> entry : index.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            out.writeLong(position);
+            out.writeLong(stamp);
+            out.writeInt(MAGIC);
+        } finally {
+            deflater.end();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        this.blockOffsets = offsets;
+        this.blockLengths = lengths;
+        this.keyIndex = index;
+        this.indexedStamp = stamp;
+    }
+
+    public List<T> readAll() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            loadFooter(raf);
+            List<T> records = new ArrayList<>(keyIndex.size());
+            for (int block = 0; block < blockOffsets.length; block++) {
+                records.addAll(readBlock(raf, block));
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Inflates only the block that holds {@code key}.
+     */
+    public Optional<T> read(String key) throws IOException {
+        List<T> blockRecords;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            loadFooter(raf);
+            Integer block = keyIndex.get(key);
+            if (block == null) {
+                return Optional.empty();
+            }
+            blockRecords = readBlock(raf, block);
+        }
+        T found = null;
+        for (T record : blockRecords) {
+            if (key.equals(keyFunction.apply(record))) {
+                found = record;
+            }
+        }
+        return Optional.ofNullable(found);
+    }
+
+    private List<T> readBlock(RandomAccessFile raf, int block) throws IOException {
+        byte[] compressed = new byte[blockLengths[block]];
+        raf.seek(blockOffsets[block]);
+        raf.readFully(compressed);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return objectMapper.readValue(in, listType);
+        }
+    }
+
+    private void loadFooter(RandomAccessFile raf) throws IOException {
+        if (raf.length() < TRAILER_LENGTH) {
+            throw new IOException("Not a block compressed file: " + file);
+        }
+        raf.seek(raf.length() - TRAILER_LENGTH);
+        long footerOffset = raf.readLong();
+        long stamp = raf.readLong();
+        if (raf.readInt() != MAGIC) {
+            throw new IOException("Not a block compressed file: " + file);
+        }
+        // Another store instance may have replaced the file since the index was read
+        if (keyIndex != null && stamp == indexedStamp) {
+            return;
+        }
+        byte[] footerBytes = new byte[(int) (raf.length() - TRAILER_LENGTH - footerOffset)];
+        raf.seek(footerOffset);
+        raf.readFully(footerBytes);
+        DataInputStream footer = new DataInputStream(new ByteArrayInputStream(footerBytes));
+        int blockCount = footer.readInt();
+        long[] offsets = new long[blockCount];
+        int[] lengths = new int[blockCount];
+        for (int block = 0; block < blockCount; block++) {
+            offsets[block] = footer.readLong();
+            lengths[block] = footer.readInt();
+        }
+        int keyCount = footer.readInt();
+        Map<String, Integer> index = new HashMap<>(keyCount * 2);
+        for (int i = 0; i < keyCount; i++) {
+            index.put(footer.readUTF(), footer.readInt());
+        }
+        this.blockOffsets = offsets;
+        this.blockLengths = lengths;
+        this.keyIndex = index;
+        this.indexedStamp = stamp;
+    }
+}
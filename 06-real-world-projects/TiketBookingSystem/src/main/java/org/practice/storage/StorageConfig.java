@@ -0,0 +1,51 @@
+package org.practice.storage;
+
+import java.util.zip.Deflater;
+
+/**
+ * Storage settings for the booking data files, read from system properties:
+ * <pre>
+ *   -Dbooking.storage.mode=json|compressed   (default json)
+ *   -Dbooking.storage.level=1..9              (default 6)
+ *   -Dbooking.storage.blockSize=records       (default 256)
+ * </pre>
+ */
+public class StorageConfig {
+    public static final String MODE_PROPERTY = "booking.storage.mode";
+    public static final String LEVEL_PROPERTY = "booking.storage.level";
+    public static final String BLOCK_SIZE_PROPERTY = "booking.storage.blockSize";
+
+    public static final int DEFAULT_LEVEL = 6;
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    public static StorageMode getMode() {
+        return StorageMode.fromName(System.getProperty(MODE_PROPERTY, StorageMode.JSON.name()));
+    }
+
+    public static boolean isCompressed() {
+        return getMode() == StorageMode.COMPRESSED;
+    }
+
+    public static int getCompressionLevel() {
+        int level = Integer.getInteger(LEVEL_PROPERTY, DEFAULT_LEVEL);
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException(LEVEL_PROPERTY + " must be between 1 and 9 but was " + level);
+        }
+        return level;
+    }
+
+    public static int getBlockSize() {
+        int blockSize = Integer.getInteger(BLOCK_SIZE_PROPERTY, DEFAULT_BLOCK_SIZE);
+        if (blockSize < 1) {
+            throw new IllegalArgumentException(BLOCK_SIZE_PROPERTY + " must be positive but was " + blockSize);
+        }
+        return blockSize;
+    }
+
+    /**
+     * Compressed files sit next to their JSON counterpart, e.g. {@code user.json} becomes {@code user.json.blk}.
+     */
+    public static String resolveFileName(String jsonFileName) {
+        return isCompressed() ? jsonFileName + ".blk" : jsonFileName;
+    }
+}
@@ -0,0 +1,15 @@
+package org.practice.storage;
+
+public enum StorageMode {
+    JSON,
+    COMPRESSED;
+
+    public static StorageMode fromName(String name) {
+        for (StorageMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown storage mode: " + name);
+    }
+}
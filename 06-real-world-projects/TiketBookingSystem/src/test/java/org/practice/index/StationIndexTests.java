@@ -0,0 +1,73 @@
+package org.practice.index;
+
+import org.junit.jupiter.api.Test;
+import org.practice.entities.Train;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StationIndexTests {
+    // delhi 3 trains, mumbai and pune 2, agra, bhopal, goa and jaipur 1
+    private final StationIndex index = new StationIndex(List.of(
+            train("Delhi", "Mumbai", "Pune"),
+            train("Delhi", "Bhopal", "Pune", "delhi"),
+            train("Delhi", "Jaipur"),
+            train("Goa", "Agra", "Mumbai")));
+
+    @Test
+    void findsStationsIgnoringCaseAndSurroundingSpaces() {
+        assertEquals(7, index.size());
+        assertEquals("Delhi", index.find("  DELHI "));
+        assertNull(index.find("Kolkata"));
+    }
+
+    @Test
+    void countsEachTrainOncePerStation() {
+        assertEquals(3, index.getTrainCount("delhi"));
+        assertEquals(2, index.getTrainCount("Pune"));
+        assertEquals(0, index.getTrainCount("Kolkata"));
+    }
+
+    @Test
+    void autocompleteReturnsBusiestStationsWithThePrefix() {
+        assertEquals(List.of("Pune"), index.autocomplete("p", 5));
+        assertEquals(List.of("Bhopal"), index.autocomplete("BH", 5));
+        assertEquals(List.of(), index.autocomplete("x", 5));
+    }
+
+    @Test
+    void autocompleteRanksTiesAlphabeticallyForNarrowAndWideRanges() {
+        // a limit of 10 scans the range, a limit of 3 walks the popularity order
+        assertEquals(List.of("Delhi", "Mumbai", "Pune", "Agra", "Bhopal", "Goa", "Jaipur"), index.autocomplete("", 10));
+        assertEquals(List.of("Delhi", "Mumbai", "Pune"), index.autocomplete("", 3));
+    }
+
+    @Test
+    void suggestFindsNamesWithinTheEditBound() {
+        assertEquals(List.of("Delhi"), index.suggest("Dehli", 2, 5));
+        assertEquals(List.of(), index.suggest("Dehli", 1, 5));
+        assertEquals(List.of("Pune"), index.suggest("pne", 1, 5));
+        assertEquals(List.of("Goa"), index.suggest("goa", 1, 5));
+    }
+
+    @Test
+    void suggestRanksCloserNamesFirstThenBusierOnes() {
+        assertEquals(List.of("Goa", "Agra", "Pune"), index.suggest("gua", 3, 3));
+        assertEquals(List.of("Goa"), index.suggest("gua", 3, 1));
+    }
+
+    @Test
+    void emptyQueryMatchesNamesNoLongerThanTheEditBound() {
+        assertEquals(List.of(), index.suggest("", 2, 5));
+        assertEquals(List.of("Goa"), index.suggest("", 3, 5));
+        assertEquals(List.of("Goa", "Pune", "Agra"), index.suggest(" ", 4, 5));
+    }
+
+    private static Train train(String... stations) {
+        Train train = new Train();
+        train.setStation(List.of(stations));
+        return train;
+    }
+}
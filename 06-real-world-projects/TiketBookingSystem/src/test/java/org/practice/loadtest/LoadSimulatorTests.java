@@ -0,0 +1,47 @@
+package org.practice.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.practice.entities.User;
+import org.practice.services.TrainService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoadSimulatorTests {
+    private static final int THREADS = 4;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentBookingsKeepEveryWorkersUsersFileIntact() throws Exception {
+        WorkloadGenerator.generate(new LoadTestArgs(new String[]{
+                "dir=" + dir, "stations=100", "trains=40", "users=20", "maxStops=8"}));
+        File usersFile = dir.resolve("user.json").toFile();
+        byte[] original = Files.readAllBytes(usersFile.toPath());
+        List<String> userNames = read(usersFile).stream().map(User::getName).toList();
+        LoadSimulator simulator = new LoadSimulator(new TrainService(dir.resolve("trains.json").toString()),
+                userNames, usersFile.getPath(), "book:70,cancel:30", 1.1);
+
+        simulator.run(THREADS, 400, 1, 42L);
+
+        assertArrayEquals(original, Files.readAllBytes(usersFile.toPath()));
+        for (int i = 0; i < THREADS; i++) {
+            assertEquals(userNames, read(dir.resolve("worker-" + i + "-user.json").toFile()).stream().map(User::getName).toList());
+        }
+    }
+
+    private static List<User> read(File usersFile) throws IOException {
+        return new ObjectMapper().readValue(usersFile, new TypeReference<List<User>>() {
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package org.practice.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mindrot.jbcrypt.BCrypt;
+import org.practice.entities.Ticket;
+import org.practice.entities.Train;
+import org.practice.entities.User;
+import org.practice.services.TrainService;
+import org.practice.services.UserBookingService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkloadGeneratorTests {
+    private static final int STATIONS = 200;
+    private static final int MIN_STOPS = 4;
+    private static final int MAX_STOPS = 12;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameSeedGeneratesTheSameWorkload() {
+        WorkloadGenerator first = new WorkloadGenerator(7, 1.1, 4);
+        WorkloadGenerator second = new WorkloadGenerator(7, 1.1, 4);
+        List<String> stations = first.generateStationNames(STATIONS);
+
+        assertEquals(stations, second.generateStationNames(STATIONS));
+        assertEquals(routes(first.generateTrains(50, stations, MIN_STOPS, MAX_STOPS)),
+                routes(second.generateTrains(50, stations, MIN_STOPS, MAX_STOPS)));
+    }
+
+    @Test
+    void stationNamesAreDistinctAndCapitalized() {
+        List<String> stations = new WorkloadGenerator(42, 1.1, 4).generateStationNames(STATIONS);
+
+        assertEquals(STATIONS, stations.size());
+        assertEquals(STATIONS, new HashSet<>(stations).size());
+        stations.forEach(name -> assertTrue(Character.isUpperCase(name.charAt(0)), name));
+    }
+
+    @Test
+    void trainsStopAtDistinctStationsWithATimeForEachStop() {
+        WorkloadGenerator generator = new WorkloadGenerator(42, 1.1, 4);
+        List<String> stations = generator.generateStationNames(STATIONS);
+
+        for (Train train : generator.generateTrains(200, stations, MIN_STOPS, MAX_STOPS)) {
+            List<String> route = train.getStation();
+            assertTrue(route.size() >= 2 && route.size() <= MAX_STOPS, "stops: " + route.size());
+            assertEquals(route.size(), new HashSet<>(route).size(), "no station twice on a route");
+            assertEquals(route, new ArrayList<>(train.getStationTime().keySet()));
+            train.getSeats().forEach(row -> assertEquals(6, row.size()));
+        }
+    }
+
+    @Test
+    void popularStationsAreOnMoreRoutesThanTheTail() {
+        WorkloadGenerator generator = new WorkloadGenerator(42, 1.1, 4);
+        List<String> stations = generator.generateStationNames(STATIONS);
+        List<Train> trains = generator.generateTrains(500, stations, MIN_STOPS, MAX_STOPS);
+
+        assertTrue(routesThrough(trains, stations.get(0)) > 5 * routesThrough(trains, stations.get(STATIONS / 2)));
+    }
+
+    @Test
+    void usersLogInWithTheirDerivedPasswordAndHoldTicketsOnRealRoutes() {
+        WorkloadGenerator generator = new WorkloadGenerator(42, 1.1, 4);
+        List<Train> trains = generator.generateTrains(50, generator.generateStationNames(STATIONS), MIN_STOPS, MAX_STOPS);
+
+        List<User> users = generator.generateUsers(20, trains, 3);
+
+        assertEquals(20, users.size());
+        for (User user : users) {
+            assertTrue(BCrypt.checkpw(WorkloadGenerator.passwordFor(user.getName()), user.getHashPassword()), user.getName());
+            assertFalse(BCrypt.checkpw("wrong", user.getHashPassword()));
+            assertTrue(user.getBookedTickets().size() <= 3);
+            for (Ticket ticket : user.getBookedTickets()) {
+                List<String> route = ticket.getTrain().getStation();
+                assertEquals(user.getUserId(), ticket.getUserId());
+                assertTrue(route.indexOf(ticket.getSource()) < route.indexOf(ticket.getDestination()),
+                        ticket.getSource() + " before " + ticket.getDestination());
+            }
+        }
+    }
+
+    @Test
+    void writtenFilesLoadIntoTheServices() throws IOException {
+        WorkloadGenerator generator = new WorkloadGenerator(42, 1.1, 4);
+        List<Train> trains = generator.generateTrains(30, generator.generateStationNames(STATIONS), MIN_STOPS, MAX_STOPS);
+        List<User> users = generator.generateUsers(10, trains, 2);
+
+        WorkloadGenerator.writeTo(dir.toFile(), trains, users);
+
+        assertEquals(30, new TrainService(new File(dir.toFile(), "trains.json").getPath()).getTrainList().size());
+        UserBookingService bookingService = new UserBookingService(null, new File(dir.toFile(), "user.json").getPath());
+        assertTrue(bookingService.loginUser(new User("user3", WorkloadGenerator.passwordFor("user3"), null, new ArrayList<>(), null)));
+    }
+
+    private static List<List<String>> routes(List<Train> trains) {
+        return trains.stream().map(Train::getStation).toList();
+    }
+
+    private static long routesThrough(List<Train> trains, String station) {
+        return trains.stream().filter(train -> train.getStation().contains(station)).count();
+    }
+}
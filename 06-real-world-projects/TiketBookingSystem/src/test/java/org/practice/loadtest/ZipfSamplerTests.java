@@ -0,0 +1,74 @@
+package org.practice.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipfSamplerTests {
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void rejectsAnEmptyRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(0, 1.1));
+    }
+
+    @Test
+    void singleRankIsAlwaysDrawn() {
+        ZipfSampler sampler = new ZipfSampler(1, 1.1);
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, sampler.sample(random));
+        }
+    }
+
+    @Test
+    void exponentZeroIsUniform() {
+        int[] counts = counts(new ZipfSampler(4, 0), 4);
+        for (int count : counts) {
+            assertWithin(0.25, count / (double) SAMPLES, 0.01);
+        }
+    }
+
+    @Test
+    void rankFrequenciesFollowThePowerLaw() {
+        double exponent = 1.1;
+        int[] counts = counts(new ZipfSampler(100, exponent), 100);
+
+        assertWithin(Math.pow(2, exponent), counts[0] / (double) counts[1], 0.1);
+        assertWithin(Math.pow(5, exponent), counts[0] / (double) counts[4], 0.3);
+        for (int rank = 1; rank < 10; rank++) {
+            assertTrue(counts[rank - 1] > counts[rank], "rank " + rank + " drawn more often than rank " + (rank - 1));
+        }
+    }
+
+    @Test
+    void drawsAtTheTopOfTheUnitIntervalStayInRange() {
+        ZipfSampler sampler = new ZipfSampler(1_000, 1.1);
+        Random top = new Random() {
+            @Override
+            public double nextDouble() {
+                return Math.nextDown(1.0);
+            }
+        };
+
+        assertEquals(999, sampler.sample(top));
+        assertEquals(1_000, sampler.size());
+    }
+
+    private static int[] counts(ZipfSampler sampler, int n) {
+        Random random = new Random(42);
+        int[] counts = new int[n];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[sampler.sample(random)]++;
+        }
+        return counts;
+    }
+
+    private static void assertWithin(double expected, double actual, double tolerance) {
+        assertTrue(Math.abs(actual - expected) <= tolerance, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,118 @@
+package org.practice.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTests {
+
+    @Test
+    void valuesBelowThirtyTwoGetTheirOwnBucket() {
+        for (long nanos = 0; nanos < 32; nanos++) {
+            int index = LatencyHistogram.bucketIndex(nanos);
+            assertEquals(nanos, index);
+            assertEquals(nanos, LatencyHistogram.bucketUpperBound(index));
+        }
+    }
+
+    @Test
+    void everyValueInRangeIsReportedWithinThreePercentAbove() {
+        for (int exponent = 5; exponent <= 40; exponent++) {
+            long low = 1L << exponent;
+            for (long nanos : new long[]{low, low + 1, low + low / 3, 2 * low - 1}) {
+                long upper = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(nanos));
+                assertTrue(upper >= nanos, nanos + " reported as " + upper);
+                assertTrue(upper - nanos <= nanos / 32, nanos + " reported as " + upper);
+            }
+        }
+    }
+
+    @Test
+    void rangeEndsAtTwoToTheFortyOneNanos() {
+        long lastInRange = (1L << 41) - 1;
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(lastInRange));
+        assertEquals(lastInRange, LatencyHistogram.bucketUpperBound(LatencyHistogram.BUCKET_COUNT - 1));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(TimeUnit.HOURS.toNanos(2)));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    void snapshotReportsCountMeanMaxAndPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500_500.0, snapshot.getMeanNanos(), 0.001);
+        assertEquals(1_000_000, snapshot.getMaxNanos());
+        assertWithinThreePercent(500_000, snapshot.getPercentileNanos(50));
+        assertWithinThreePercent(990_000, snapshot.getPercentileNanos(99));
+        assertEquals(1_000_000, snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    void percentilesNeverExceedTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_001);
+
+        assertEquals(1_000_001, histogram.snapshot().getPercentileNanos(99.9));
+    }
+
+    @Test
+    void negativeValuesAreRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(0, snapshot.getMaxNanos());
+        assertEquals(0, snapshot.getPercentileNanos(50));
+    }
+
+    @Test
+    void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, snapshot.getMaxNanos());
+        assertEquals(0.0, snapshot.getMeanNanos());
+        assertEquals(0, snapshot.getPercentileNanos(99));
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long offset = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(100 + offset);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(103, histogram.snapshot().getMaxNanos());
+    }
+
+    private static void assertWithinThreePercent(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,123 @@
+package org.practice.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.practice.entities.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockCompressedStoreTests {
+    private static final int BLOCK_SIZE = 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsEveryRecordBackAfterReopening() throws IOException {
+        File file = dir.resolve("user.json.blk").toFile();
+        List<User> users = users("user", 25);
+        newStore(file).writeAll(users);
+
+        List<User> read = newStore(file).readAll();
+
+        assertEquals(names(users), names(read));
+    }
+
+    @Test
+    void readsSingleRecordsByKeyOnBothSidesOfBlockBoundary() throws IOException {
+        File file = dir.resolve("user.json.blk").toFile();
+        newStore(file).writeAll(users("user", 25));
+
+        BlockCompressedStore<User> reopened = newStore(file);
+
+        assertEquals("user-0", reopened.read("user-0").map(User::getName).orElseThrow());
+        assertEquals("user-9", reopened.read("user-9").map(User::getName).orElseThrow());
+        assertEquals("user-10", reopened.read("user-10").map(User::getName).orElseThrow());
+        assertEquals("user-24", reopened.read("user-24").map(User::getName).orElseThrow());
+        assertEquals("secret-10", reopened.read("user-10").map(User::getPassword).orElseThrow());
+        assertEquals(Optional.empty(), reopened.read("user-25"));
+    }
+
+    @Test
+    void readerSeesFileRewrittenByAnotherInstance() throws IOException {
+        File file = dir.resolve("user.json.blk").toFile();
+        BlockCompressedStore<User> writer = newStore(file);
+        writer.writeAll(users("user", 25));
+        BlockCompressedStore<User> reader = newStore(file);
+        assertTrue(reader.read("user-24").isPresent());
+
+        writer.writeAll(users("renamed", 12));
+
+        assertFalse(reader.read("user-24").isPresent());
+        assertEquals("renamed-11", reader.read("renamed-11").map(User::getName).orElseThrow());
+        assertEquals(12, reader.readAll().size());
+    }
+
+    @Test
+    void readerSeesRewriteOfTheSameLengthWithinTheSameModificationTime() throws IOException {
+        // stored blocks, so the renamed records give a file of exactly the same length
+        File file = dir.resolve("user.json.blk").toFile();
+        BlockCompressedStore<User> writer = new BlockCompressedStore<>(file, User.class, User::getName, Deflater.NO_COMPRESSION, BLOCK_SIZE);
+        writer.writeAll(users("user", 25));
+        long modified = file.lastModified();
+        long length = file.length();
+        BlockCompressedStore<User> reader = newStore(file);
+        assertTrue(reader.read("user-3").isPresent());
+
+        writer.writeAll(users("resu", 25));
+        assertTrue(file.setLastModified(modified));
+        assertEquals(length, file.length());
+
+        assertFalse(reader.read("user-3").isPresent());
+        assertEquals("resu-3", reader.read("resu-3").map(User::getName).orElseThrow());
+    }
+
+    @Test
+    void leavesNoTempFilesBehind() throws IOException {
+        File file = dir.resolve("user.json.blk").toFile();
+        BlockCompressedStore<User> store = newStore(file);
+        store.writeAll(users("user", 25));
+        store.writeAll(users("user", 30));
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(file.toPath()), files.toList());
+        }
+    }
+
+    @Test
+    void rejectsFileWithoutTrailer() throws IOException {
+        File file = dir.resolve("user.json").toFile();
+        Files.writeString(file.toPath(), "[{\"name\":\"user-0\"}]");
+
+        assertThrows(IOException.class, () -> newStore(file).readAll());
+    }
+
+    private static BlockCompressedStore<User> newStore(File file) {
+        return new BlockCompressedStore<>(file, User.class, User::getName, StorageConfig.DEFAULT_LEVEL, BLOCK_SIZE);
+    }
+
+    private static List<User> users(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User(prefix + "-" + i, "secret-" + i, "hash-" + i, new ArrayList<>(), "id-" + i));
+        }
+        return users;
+    }
+
+    private static List<String> names(List<User> users) {
+        return users.stream().map(User::getName).toList();
+    }
+}
@@ -0,0 +1,30 @@
+package org.practice.beanmapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a top-level interface whose methods copy one bean into another. At compile time an
+ * implementation named {@code <Interface>Impl} is generated next to it, calling the getters and
+ * setters directly, so no reflection runs when mapping.
+ * <p>
+ * Two method shapes are supported:
+ * <pre>
+ * PatientDTO toDTO(PatientVO vo);                 // creates a new target
+ * void copy(PatientDTO dto, PatientDetail target); // fills an existing target, allocating nothing
+ * </pre>
+ * Like {@code BeanUtils.copyProperties}, a property is copied when the source has a getter and
+ * the target has a setter with the same name and an assignable type; every other target
+ * property is left alone. A {@code null} source returns {@code null} or leaves the target
+ * unchanged. Getters and setters may be written by hand or generated by Lombok.
+ * <p>
+ * Declare {@code Mapper INSTANCE = new MapperImpl();} in the interface to share one instance.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface BeanMapper {
+}
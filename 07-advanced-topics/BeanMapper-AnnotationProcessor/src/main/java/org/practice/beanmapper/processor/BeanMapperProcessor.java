@@ -0,0 +1,252 @@
+package org.practice.beanmapper.processor;
+
+import org.practice.beanmapper.BeanMapper;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the implementation of every {@link BeanMapper} interface. Properties are found from
+ * public getters and setters, and from fields of classes or fields annotated with Lombok's
+ * {@code @Data}, {@code @Getter}, {@code @Setter} or {@code @Value}, because Lombok adds its
+ * methods to the same compilation and they may not be visible yet when this processor runs.
+ */
+@SupportedAnnotationTypes("org.practice.beanmapper.BeanMapper")
+public class BeanMapperProcessor extends AbstractProcessor {
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(BeanMapper.class)) {
+            if (element.getKind() != ElementKind.INTERFACE || element.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@BeanMapper must be placed on a top-level interface", element);
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Could not write mapper: " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement mapper) throws IOException {
+        String packageName = ((PackageElement) mapper.getEnclosingElement()).getQualifiedName().toString();
+        String implName = mapper.getSimpleName() + "Impl";
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        source.append("public final class ").append(implName).append(" implements ").append(mapper.getQualifiedName()).append(" {\n");
+
+        boolean valid = true;
+        for (ExecutableElement method : ElementFilter.methodsIn(mapper.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            valid &= appendMethod(source, method);
+        }
+        source.append("}\n");
+        if (!valid) {
+            return;
+        }
+
+        try (Writer writer = filer.createSourceFile(packageName.isEmpty() ? implName : packageName + "." + implName, mapper).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private boolean appendMethod(StringBuilder source, ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        boolean creates = parameters.size() == 1 && method.getReturnType().getKind() == TypeKind.DECLARED;
+        boolean fills = parameters.size() == 2 && method.getReturnType().getKind() == TypeKind.VOID
+                && parameters.get(1).asType().getKind() == TypeKind.DECLARED;
+        if (!creates && !fills || parameters.get(0).asType().getKind() != TypeKind.DECLARED) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Mapper methods must be 'Target name(Source source)' or 'void name(Source source, Target target)'", method);
+            return false;
+        }
+
+        TypeMirror sourceType = parameters.get(0).asType();
+        TypeMirror targetType = creates ? method.getReturnType() : parameters.get(1).asType();
+        TypeElement targetClass = (TypeElement) types.asElement(targetType);
+        if (creates && !hasPublicNoArgConstructor(targetClass)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, targetClass + " has no public no-argument constructor", method);
+            return false;
+        }
+
+        String sourceName = parameters.get(0).getSimpleName().toString();
+        String targetName = creates ? (sourceName.equals("result") ? "result_" : "result") : parameters.get(1).getSimpleName().toString();
+        source.append("\n    @Override\n    public ").append(creates ? targetType : "void").append(' ')
+                .append(method.getSimpleName()).append('(').append(sourceType).append(' ').append(sourceName);
+        if (fills) {
+            source.append(", ").append(targetType).append(' ').append(targetName);
+        }
+        source.append(") {\n");
+        source.append("        if (").append(sourceName).append(" == null) {\n");
+        source.append("            return").append(creates ? " null" : "").append(";\n        }\n");
+        if (creates) {
+            source.append("        ").append(targetType).append(' ').append(targetName).append(" = new ").append(targetType).append("();\n");
+        }
+
+        Map<String, Property> getters = properties((TypeElement) types.asElement(sourceType), true);
+        Map<String, Property> setters = properties(targetClass, false);
+        for (Map.Entry<String, Property> entry : setters.entrySet()) {
+            Property getter = getters.get(entry.getKey());
+            if (getter == null) {
+                continue;
+            }
+            Property setter = entry.getValue();
+            String read = sourceName + "." + getter.accessor + "()";
+            if (getter.type.getKind() == TypeKind.DECLARED && setter.type.getKind().isPrimitive()) {
+                if (!unboxesTo(getter.type, setter.type)) {
+                    continue;
+                }
+                // a null wrapper would throw when unboxed, so it leaves the primitive untouched
+                String value = "value" + entry.getKey();
+                source.append("        ").append(getter.type).append(' ').append(value).append(" = ").append(read).append(";\n");
+                source.append("        if (").append(value).append(" != null) {\n");
+                source.append("            ").append(targetName).append('.').append(setter.accessor).append('(').append(value).append(");\n");
+                source.append("        }\n");
+            } else if (types.isAssignable(getter.type, setter.type)) {
+                source.append("        ").append(targetName).append('.').append(setter.accessor).append('(').append(read).append(");\n");
+            }
+        }
+        if (creates) {
+            source.append("        return ").append(targetName).append(";\n");
+        }
+        source.append("    }\n");
+        return true;
+    }
+
+    /**
+     * Readable or writable properties of {@code type} and its superclasses, keyed by the accessor
+     * name without its get/is/set prefix, in declaration order.
+     */
+    private Map<String, Property> properties(TypeElement type, boolean readable) {
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for (TypeElement current = type; current != null && !current.getQualifiedName().contentEquals("java.lang.Object");
+             current = superclass(current)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                String name = method.getSimpleName().toString();
+                if (readable && method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID) {
+                    if (name.startsWith("get") && name.length() > 3) {
+                        properties.putIfAbsent(name.substring(3), new Property(name, method.getReturnType()));
+                    } else if (name.startsWith("is") && name.length() > 2 && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+                        properties.putIfAbsent(name.substring(2), new Property(name, method.getReturnType()));
+                    }
+                } else if (!readable && method.getParameters().size() == 1 && name.startsWith("set") && name.length() > 3) {
+                    properties.putIfAbsent(name.substring(3), new Property(name, method.getParameters().get(0).asType()));
+                }
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.STATIC) || !lombokGenerates(current, field, readable)) {
+                    continue;
+                }
+                String suffix = Character.toUpperCase(field.getSimpleName().charAt(0)) + field.getSimpleName().toString().substring(1);
+                String prefix = readable ? (field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get") : "set";
+                properties.putIfAbsent(suffix, new Property(prefix + suffix, field.asType()));
+            }
+        }
+        return properties;
+    }
+
+    private boolean lombokGenerates(TypeElement owner, VariableElement field, boolean getter) {
+        if (!getter && field.getModifiers().contains(Modifier.FINAL)) {
+            return false;
+        }
+        String accessor = getter ? "lombok.Getter" : "lombok.Setter";
+        return hasAnnotation(field, accessor) || hasAnnotation(owner, accessor) || hasAnnotation(owner, "lombok.Data")
+                || getter && hasAnnotation(owner, "lombok.Value");
+    }
+
+    private static boolean hasAnnotation(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean unboxesTo(TypeMirror boxed, TypeMirror primitive) {
+        try {
+            return types.isSameType(types.unboxedType(boxed), primitive);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean hasPublicNoArgConstructor(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        // Lombok adds the constructor later in the same compilation
+        return hasAnnotation(type, "lombok.Data") || hasAnnotation(type, "lombok.NoArgsConstructor");
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private static class Property {
+        private final String accessor;
+        private final TypeMirror type;
+
+        Property(String accessor, TypeMirror type) {
+            this.accessor = accessor;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.practice.beanmapper.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles small sources with the processor and calls the generated mappers.
+ */
+class BeanMapperProcessorTests {
+    @TempDir
+    Path directory;
+
+    private static final String SOURCE = """
+            package demo;
+            public class Source {
+                private String Patient_name;
+                private Integer count;
+                private int days;
+                private String code;
+                private java.util.ArrayList<String> tags;
+                public String getPatient_name() { return Patient_name; }
+                public void setPatient_name(String v) { Patient_name = v; }
+                public Integer getCount() { return count; }
+                public void setCount(Integer v) { count = v; }
+                public int getDays() { return days; }
+                public void setDays(int v) { days = v; }
+                public String getCode() { return code; }
+                public void setCode(String v) { code = v; }
+                public java.util.ArrayList<String> getTags() { return tags; }
+                public void setTags(java.util.ArrayList<String> v) { tags = v; }
+            }
+            """;
+
+    private static final String TARGET = """
+            package demo;
+            public class Target {
+                private String Patient_name;
+                private int count = -1;
+                private Integer days;
+                private Integer code;
+                private java.util.List<String> tags;
+                private String onlyHere = "kept";
+                public String getPatient_name() { return Patient_name; }
+                public void setPatient_name(String v) { Patient_name = v; }
+                public int getCount() { return count; }
+                public void setCount(int v) { count = v; }
+                public Integer getDays() { return days; }
+                public void setDays(Integer v) { days = v; }
+                public Integer getCode() { return code; }
+                public void setCode(Integer v) { code = v; }
+                public java.util.List<String> getTags() { return tags; }
+                public void setTags(java.util.List<String> v) { tags = v; }
+                public String getOnlyHere() { return onlyHere; }
+                public void setOnlyHere(String v) { onlyHere = v; }
+            }
+            """;
+
+    private static final String MAPPER = """
+            package demo;
+            @org.practice.beanmapper.BeanMapper
+            public interface DemoMapper {
+                DemoMapper INSTANCE = new DemoMapperImpl();
+                Target toTarget(Source source);
+                void copy(Source source, Target target);
+            }
+            """;
+
+    @Test
+    void generatedMapperCopiesMatchingProperties() throws Exception {
+        ClassLoader loader = compile(Map.of("Source", SOURCE, "Target", TARGET, "DemoMapper", MAPPER));
+        Class<?> sourceClass = loader.loadClass("demo.Source");
+        Object source = sourceClass.getConstructor().newInstance();
+        sourceClass.getMethod("setPatient_name", String.class).invoke(source, "Rao");
+        sourceClass.getMethod("setDays", int.class).invoke(source, 4);
+        sourceClass.getMethod("setCode", String.class).invoke(source, "A1");
+        ArrayList<String> tags = new ArrayList<>(List.of("icu"));
+        sourceClass.getMethod("setTags", ArrayList.class).invoke(source, tags);
+
+        Class<?> mapperClass = loader.loadClass("demo.DemoMapper");
+        Object mapper = mapperClass.getField("INSTANCE").get(null);
+        Object target = mapperClass.getMethod("toTarget", sourceClass).invoke(mapper, source);
+        Class<?> targetClass = target.getClass();
+
+        assertEquals("Rao", targetClass.getMethod("getPatient_name").invoke(target));
+        // null Integer is not unboxed into the int
+        assertEquals(-1, targetClass.getMethod("getCount").invoke(target));
+        // int is boxed into Integer
+        assertEquals(4, targetClass.getMethod("getDays").invoke(target));
+        // String does not fit Integer, so it is skipped
+        assertNull(targetClass.getMethod("getCode").invoke(target));
+        // references are shared, not copied
+        assertSame(tags, targetClass.getMethod("getTags").invoke(target));
+        assertEquals("kept", targetClass.getMethod("getOnlyHere").invoke(target));
+
+        sourceClass.getMethod("setCount", Integer.class).invoke(source, 9);
+        mapperClass.getMethod("copy", sourceClass, targetClass).invoke(mapper, source, target);
+        assertEquals(9, targetClass.getMethod("getCount").invoke(target));
+        assertNull(mapperClass.getMethod("toTarget", sourceClass).invoke(mapper, (Object) null));
+    }
+
+    @Test
+    void generatedMapperUsesNoReflection() throws Exception {
+        compile(Map.of("Source", SOURCE, "Target", TARGET, "DemoMapper", MAPPER));
+        String generated = Files.readString(directory.resolve("generated/demo/DemoMapperImpl.java"));
+        assertTrue(generated.contains("result.setPatient_name(source.getPatient_name());"), generated);
+        assertFalse(generated.contains("reflect"), generated);
+    }
+
+    @Test
+    void unsupportedMethodShapeIsACompileError() throws Exception {
+        String mapper = """
+                package demo;
+                @org.practice.beanmapper.BeanMapper
+                public interface BadMapper {
+                    Target merge(Source first, Source second);
+                }
+                """;
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(run(Map.of("Source", SOURCE, "Target", TARGET, "BadMapper", mapper), diagnostics));
+        assertTrue(diagnostics.getDiagnostics().stream()
+                .anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR && d.getMessage(null).startsWith("Mapper methods must be")));
+    }
+
+    private ClassLoader compile(Map<String, String> sources) throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(run(sources, diagnostics), diagnostics.getDiagnostics().toString());
+        return new URLClassLoader(new URL[]{directory.resolve("classes").toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    private boolean run(Map<String, String> sources, DiagnosticCollector<JavaFileObject> diagnostics) throws IOException {
+        Path sourceDirectory = Files.createDirectories(directory.resolve("src/demo"));
+        List<Path> files = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            files.add(Files.writeString(sourceDirectory.resolve(entry.getKey() + ".java"), entry.getValue()));
+        }
+        Files.createDirectories(directory.resolve("classes"));
+        Files.createDirectories(directory.resolve("generated"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-d", directory.resolve("classes").toString(), "-s", directory.resolve("generated").toString(),
+                            "-classpath", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjectsFromPaths(files));
+            task.setProcessors(List.of(new BeanMapperProcessor()));
+            return task.call();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.practice.bootpro8multiprofiles.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts each stack as its own JVM and drives the same keyset-page read load against it at increasing
+ * concurrency, reporting throughput, p50/p99 latency, errors and the server's peak RSS.
+ *
+ * <ul>
+ *     <li>blocking: the servlet application on Tomcat's platform thread pool</li>
+ *     <li>virtual: the servlet application with spring.threads.virtual.enabled=true</li>
+ *     <li>reactive: the WebFlux + R2DBC application</li>
+ * </ul>
+ *
+ * Every stack gets the same heap and the same number of database connections, and is seeded with the
+ * same users through POST /. Clients are virtual threads in this JVM, one per concurrent request.
+ *
+ * Arguments: servlet boot jar, reactive boot jar, report file. Settings come from load.* system
+ * properties (see load-harness/build.gradle).
+ */
+public class LoadHarness {
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final int PAGE_SIZE = 20;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(REQUEST_TIMEOUT)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final List<Integer> concurrencyLevels = intList(System.getProperty("load.concurrency", "16,64,256,1024"));
+    private final Duration warmup = duration(System.getProperty("load.warmup", "5s"));
+    private final Duration measure = duration(System.getProperty("load.measure", "15s"));
+    private final int poolSize = Integer.parseInt(System.getProperty("load.pool", "10"));
+    private final int users = Integer.parseInt(System.getProperty("load.users", "2000"));
+    private final List<String> stacks = List.of(System.getProperty("load.stacks", "blocking,virtual,reactive").split(","));
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("usage: LoadHarness <servlet jar> <reactive jar> <report file>");
+            System.exit(2);
+        }
+        new LoadHarness().run(new File(args[0]), new File(args[1]), new File(args[2]));
+    }
+
+    private void run(File servletJar, File reactiveJar, File reportFile) throws Exception {
+        File logs = new File(reportFile.getParentFile(), "load-logs");
+        logs.mkdirs();
+        List<Result> results = new ArrayList<>();
+        for (String stack : stacks) {
+            List<String> command = switch (stack.trim()) {
+                case "blocking" -> servletCommand(servletJar, false);
+                case "virtual" -> servletCommand(servletJar, true);
+                case "reactive" -> List.of("-jar", reactiveJar.getAbsolutePath(),
+                        "--spring.r2dbc.pool.max-size=" + poolSize);
+                default -> throw new IllegalArgumentException("Unknown stack " + stack);
+            };
+            results.addAll(runStack(stack.trim(), command, new File(logs, stack.trim() + ".log")));
+        }
+
+        StringBuilder report = new StringBuilder(String.format(
+                "GET /profile/page?limit=%d, %d users, %d connections, warm-up %ss, measured %ss%n",
+                PAGE_SIZE, users, poolSize, warmup.toSeconds(), measure.toSeconds()));
+        report.append(String.format("%-9s %11s %10s %9s %9s %8s %9s%n",
+                "stack", "concurrency", "req/s", "p50 ms", "p99 ms", "errors", "peak RSS"));
+        for (Result result : results) {
+            report.append(result).append(System.lineSeparator());
+        }
+        System.out.print(report);
+        Files.writeString(reportFile.toPath(), report);
+    }
+
+    private List<String> servletCommand(File jar, boolean virtualThreads) {
+        // the test profile logs every SQL statement; the reactive application logs none
+        return List.of("-jar", jar.getAbsolutePath(),
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--app.datasource.pool.maximum-pool-size=" + poolSize,
+                "--logging.level.org.hibernate.SQL=INFO");
+    }
+
+    private List<Result> runStack(String stack, List<String> appCommand, File log) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-Xmx512m");
+        command.addAll(appCommand);
+        command.add("--server.port=" + port);
+
+        System.out.println("Starting " + stack + " on port " + port + " (log: " + log + ")");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            URI base = URI.create("http://localhost:" + port);
+            awaitStarted(process, base);
+            long maxId = seed(base);
+            List<Result> results = new ArrayList<>();
+            for (int concurrency : concurrencyLevels) {
+                Result result = drive(stack, concurrency, base, maxId, process.pid());
+                System.out.println(result);
+                results.add(result);
+            }
+            return results;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void awaitStarted(Process process, URI base) throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/active-profile")).timeout(REQUEST_TIMEOUT).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Application did not start within " + STARTUP_TIMEOUT);
+    }
+
+    /**
+     * Creates the users through the API and returns the highest id, the range afterId is drawn from.
+     */
+    private long seed(URI base) throws InterruptedException {
+        AtomicLong maxId = new AtomicLong();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16, Thread.ofVirtual().factory())) {
+            for (int i = 0; i < users; i++) {
+                String name = "load-" + i;
+                executor.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(base.resolve("/"))
+                            .header("Content-Type", "application/json")
+                            .timeout(REQUEST_TIMEOUT)
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"userName\":\"" + name + "\",\"email\":\"" + name + "@example.com\"}"))
+                            .build();
+                    String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+                    Matcher id = ID.matcher(body);
+                    if (!id.find()) {
+                        throw new IllegalStateException("No id in " + body);
+                    }
+                    maxId.accumulateAndGet(Long.parseLong(id.group(1)), Math::max);
+                    return null;
+                });
+            }
+        }
+        if (maxId.get() == 0) {
+            throw new IllegalStateException("Seeding failed, see the application log");
+        }
+        return maxId.get();
+    }
+
+    private Result drive(String stack, int concurrency, URI base, long maxId, long pid) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + measure.toNanos();
+        LatencyRecorder[] recorders = new LatencyRecorder[concurrency];
+        List<Thread> clients = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            LatencyRecorder recorder = recorders[i] = new LatencyRecorder();
+            clients.add(Thread.ofVirtual().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    URI uri = base.resolve("/profile/page?limit=" + PAGE_SIZE + "&afterId=" + random.nextLong(maxId));
+                    HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).build();
+                    boolean ok;
+                    try {
+                        ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                    } catch (IOException e) {
+                        ok = false;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    // requests started in the window count however late they finish, so the tail is not cut off
+                    if (now >= measureFrom) {
+                        recorder.record(System.nanoTime() - now, ok);
+                    }
+                }
+            }));
+        }
+
+        long peakRss = 0;
+        while (System.nanoTime() < end) {
+            Thread.sleep(250);
+            if (System.nanoTime() >= measureFrom) {
+                peakRss = Math.max(peakRss, rssKb(pid));
+            }
+        }
+        for (Thread thread : clients) {
+            thread.join(REQUEST_TIMEOUT.toMillis() * 2);
+        }
+
+        LatencyRecorder all = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            all.addAll(recorder);
+        }
+        return all.result(stack, concurrency, measure, peakRss);
+    }
+
+    /**
+     * Resident set size of the process in kB, or 0 where /proc is not available.
+     */
+    private static long rssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // not Linux, or the process is gone
+        }
+        return 0;
+    }
+
+    private static List<Integer> intList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).map(Integer::valueOf).toList();
+    }
+
+    private static Duration duration(String value) {
+        return Duration.parse("PT" + value.trim().toUpperCase());
+    }
+
+    /**
+     * Latencies of one client thread; merged once the run is over.
+     */
+    private static final class LatencyRecorder {
+        private long[] nanos = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long latencyNanos, boolean ok) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latencyNanos;
+        }
+
+        void addAll(LatencyRecorder other) {
+            if (count + other.count > nanos.length) {
+                nanos = Arrays.copyOf(nanos, count + other.count);
+            }
+            System.arraycopy(other.nanos, 0, nanos, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        Result result(String stack, int concurrency, Duration measured, long peakRssKb) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return new Result(stack, concurrency, count / (measured.toMillis() / 1000.0),
+                    percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99), errors, peakRssKb);
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1_000_000.0;
+        }
+    }
+
+    private record Result(String stack, int concurrency, double throughput, double p50Millis, double p99Millis,
+                          long errors, long peakRssKb) {
+        @Override
+        public String toString() {
+            return String.format("%-9s %11d %10.0f %9.1f %9.1f %8d %9s", stack, concurrency, throughput, p50Millis,
+                    p99Millis, errors, peakRssKb == 0 ? "n/a" : peakRssKb / 1024 + " MB");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.practice.bootpro8multiprofiles.reactive;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * The users row, read and written with the same JSON fields as the servlet application's UserDetails.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("users")
+public class ReactiveUser {
+    @Id
+    private Long id;
+    private String userName;
+    private String email;
+    private String profile;
+}
@@ -0,0 +1,17 @@
+package org.practice.bootpro8multiprofiles.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * The user API of the servlet application on WebFlux and R2DBC, for comparing the two stacks under
+ * load (see the load-harness project). It keeps the endpoints and their JSON, and leaves out the
+ * caching, security and profile-specific data sources.
+ */
+@SpringBootApplication
+public class ReactiveUserApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveUserApplication.class, args);
+    }
+}
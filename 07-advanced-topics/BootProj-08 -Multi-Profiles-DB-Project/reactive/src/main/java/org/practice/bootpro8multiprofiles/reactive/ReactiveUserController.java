@@ -0,0 +1,80 @@
+package org.practice.bootpro8multiprofiles.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mirrors the servlet application's UserController.
+ */
+@RequiredArgsConstructor
+@RestController
+public class ReactiveUserController {
+    private static final int MAX_PAGE_SIZE = 1_000;
+    /**
+     * Rows requested from the database at a time by /users/stream.
+     */
+    private static final int STREAM_PREFETCH = 256;
+
+    private final ReactiveUserRepository userRepository;
+
+    @Value("${spring.profiles.active}")
+    private String activeProfile;
+
+    @PostMapping
+    public Mono<ReactiveUser> createUser(@RequestBody ReactiveUser user) {
+        user.setId(null);
+        user.setProfile(activeProfile);
+        return userRepository.save(user);
+    }
+
+    @GetMapping("/profile")
+    public Flux<ReactiveUser> getUserByProfile(){
+        return userRepository.findByProfile(activeProfile);
+    }
+
+    /**
+     * Keyset page of the active profile's users; pass the last id returned as afterId.
+     */
+    @GetMapping("/profile/page")
+    public Flux<ReactiveUser> getUsersByProfilePage(@RequestParam(defaultValue = "0") long afterId,
+                                                    @RequestParam(defaultValue = "100") int limit){
+        return userRepository.findByProfileAndIdGreaterThanOrderByIdAsc(activeProfile, afterId, pageSize(limit));
+    }
+
+    /**
+     * Keyset page of all users; pass the last id returned as afterId.
+     */
+    @GetMapping("/users")
+    public Flux<ReactiveUser> getUsers(@RequestParam(defaultValue = "0") long afterId,
+                                       @RequestParam(defaultValue = "100") int limit){
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageSize(limit));
+    }
+
+    /**
+     * All users as newline-delimited JSON. Rows are read only as fast as the client takes them,
+     * {@value #STREAM_PREFETCH} at a time.
+     */
+    @GetMapping(value = "/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReactiveUser> streamUsers(){
+        return userRepository.findAllByOrderByIdAsc().limitRate(STREAM_PREFETCH);
+    }
+
+    @GetMapping("/active-profile")
+    public Mono<String> getActiveProfile(){
+        return Mono.just("Active Profile : " + activeProfile);
+    }
+
+    @GetMapping("/{username}")
+    public Mono<ReactiveUser> getUserByUsername(@PathVariable String username){
+        return userRepository.findByUserName(username);
+    }
+
+    private static Limit pageSize(int limit){
+        return Limit.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+}
@@ -0,0 +1,23 @@
+package org.practice.bootpro8multiprofiles.reactive;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepository extends ReactiveCrudRepository<ReactiveUser, Long> {
+    Flux<ReactiveUser> findByProfile(String profile);
+    Mono<ReactiveUser> findByUserName(String userName);
+    Mono<ReactiveUser> findByEmail(String email);
+
+    /**
+     * Keyset page: the next {@code limit} users after {@code lastId}, in id order.
+     */
+    Flux<ReactiveUser> findByIdGreaterThanOrderByIdAsc(Long lastId, Limit limit);
+    Flux<ReactiveUser> findByProfileAndIdGreaterThanOrderByIdAsc(String profile, Long lastId, Limit limit);
+
+    /**
+     * Every user in id order; rows are read as the subscriber requests them.
+     */
+    Flux<ReactiveUser> findAllByOrderByIdAsc();
+}
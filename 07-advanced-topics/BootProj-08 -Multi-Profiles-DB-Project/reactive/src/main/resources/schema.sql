@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_name VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    profile VARCHAR(255) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_users_profile_id ON users (profile, id);
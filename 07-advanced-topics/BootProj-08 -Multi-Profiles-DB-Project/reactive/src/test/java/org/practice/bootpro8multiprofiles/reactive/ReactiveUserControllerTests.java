@@ -0,0 +1,99 @@
+package org.practice.bootpro8multiprofiles.reactive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReactiveUserControllerTests {
+	@Autowired
+	private WebTestClient client;
+	@Autowired
+	private ReactiveUserRepository userRepository;
+	@Autowired
+	private ReactiveUserController controller;
+
+	@BeforeEach
+	void setUp() {
+		userRepository.deleteAll().block();
+	}
+
+	@Test
+	void createdUsersAreServedByNameAndProfile() {
+		for (String name : List.of("alice", "bob")) {
+			client.post().uri("/").contentType(MediaType.APPLICATION_JSON)
+					.bodyValue("{\"userName\":\"" + name + "\",\"email\":\"" + name + "@example.com\"}")
+					.exchange()
+					.expectStatus().isOk()
+					.expectBody().jsonPath("$.profile").isEqualTo("test");
+		}
+
+		client.get().uri("/bob").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.email").isEqualTo("bob@example.com");
+		client.get().uri("/profile").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.length()").isEqualTo(2);
+	}
+
+	@Test
+	void keysetPagesReturnEveryUserOnceInIdOrder() {
+		insertUsers(250);
+		long afterId = 0;
+		int seen = 0;
+		while (true) {
+			List<ReactiveUser> page = client.get().uri("/profile/page?afterId={afterId}&limit=100", afterId).exchange()
+					.expectStatus().isOk()
+					.expectBodyList(ReactiveUser.class).returnResult().getResponseBody();
+			if (page.isEmpty()) {
+				break;
+			}
+			for (ReactiveUser user : page) {
+				assertEquals(true, user.getId() > afterId);
+				afterId = user.getId();
+			}
+			seen += page.size();
+		}
+		assertEquals(250, seen);
+	}
+
+	@Test
+	void streamDeliversEveryUserAsNdjson() {
+		insertUsers(1_000);
+
+		List<ReactiveUser> users = client.get().uri("/users/stream").accept(MediaType.APPLICATION_NDJSON).exchange()
+				.expectStatus().isOk()
+				.returnResult(ReactiveUser.class).getResponseBody()
+				.collectList().block();
+		assertEquals(1_000, users.size());
+	}
+
+	@Test
+	void streamOnlyEmitsWhatIsRequested() {
+		insertUsers(1_000);
+
+		StepVerifier.create(controller.streamUsers(), 0)
+				.expectSubscription()
+				.expectNoEvent(java.time.Duration.ofMillis(100))
+				.thenRequest(10)
+				.expectNextCount(10)
+				.expectNoEvent(java.time.Duration.ofMillis(100))
+				.thenCancel()
+				.verify();
+	}
+
+	private void insertUsers(int count) {
+		userRepository.saveAll(Flux.range(0, count)
+						.map(i -> new ReactiveUser(null, "user-" + i, "user-" + i + "@example.com", "test")))
+				.then().block();
+	}
+}
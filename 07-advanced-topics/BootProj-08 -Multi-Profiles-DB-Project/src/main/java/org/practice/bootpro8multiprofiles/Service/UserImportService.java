@@ -0,0 +1,78 @@
+package org.practice.bootpro8multiprofiles.Service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.practice.bootpro8multiprofiles.config.cache.CacheConfig;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${spring.profiles.active}")
+    private String activeProfile;
+
+    /**
+     * Saves every user from {@code users} in chunks of app.import.chunk-size, each chunk in its own
+     * transaction. Inserts go out as JDBC batches and the persistence context is cleared after
+     * every chunk, so memory use depends on the chunk size, not on how many users are imported.
+     * Users without a profile get the active one; ids in the input are ignored.
+     * <p>
+     * If a chunk fails, for example on a duplicate user name, the chunks before it stay saved and
+     * the exception is thrown.
+     * <p>
+     * The profile list and user caches are cleared afterwards, whether or not every chunk was
+     * saved, which also moves on the ETags of both.
+     */
+    public ImportResult importUsers(Iterator<UserDetails> users){
+        long start = System.nanoTime();
+        long imported = 0;
+        List<UserDetails> chunk = new ArrayList<>(chunkSize);
+        try {
+            while (users.hasNext()) {
+                chunk.add(users.next());
+                if (chunk.size() == chunkSize || !users.hasNext()) {
+                    saveChunk(chunk);
+                    imported += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } finally {
+            cacheManager.getCache(CacheConfig.PROFILES).clear();
+            cacheManager.getCache(CacheConfig.USERS).clear();
+        }
+        return new ImportResult(imported, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void saveChunk(List<UserDetails> chunk){
+        transactionTemplate.executeWithoutResult(status -> {
+            for (UserDetails user : chunk) {
+                user.setId(null);
+                if (user.getProfile() == null) {
+                    user.setProfile(activeProfile);
+                }
+                entityManager.persist(user);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    public record ImportResult(long imported, long millis) {
+        public long getUsersPerSecond(){
+            return millis == 0 ? imported : imported * 1000 / millis;
+        }
+    }
+}
@@ -1,23 +1,44 @@
 package org.practice.bootpro8multiprofiles.Service;
 
+import jakarta.persistence.EntityManager;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.practice.bootpro8multiprofiles.config.cache.CacheConfig;
+import org.practice.bootpro8multiprofiles.config.cache.CacheVersions;
 import org.practice.bootpro8multiprofiles.model.UserDetails;
 import org.practice.bootpro8multiprofiles.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 1_000;
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final CacheVersions cacheVersions;
     @Value("${spring.profiles.active}")
     private String activeProfile;
 
+    /**
+     * The saved user replaces any cached lookup of its name and the cached profile list is
+     * dropped; both happen only once the transaction commits.
+     */
     @Transactional
+    @Caching(put = @CachePut(cacheNames = CacheConfig.USERS, key = "#result.userName"),
+            evict = @CacheEvict(cacheNames = CacheConfig.PROFILES, allEntries = true))
     public UserDetails createUser(UserDetails user){
         user.setProfile(activeProfile);
         return userRepository.save(user);
@@ -26,11 +47,67 @@ public class UserService {
     public List<UserDetails> getAllUsers(){
         return userRepository.findAll();
     }
+    @Cacheable(cacheNames = CacheConfig.PROFILES)
     public List<UserDetails> getUserByProfile(){
         return userRepository.findByProfile(activeProfile);
     }
 
+    /**
+     * Changes whenever the list {@link #getUserByProfile()} returns may have changed. Read it before
+     * the list, so the list is never older than its tag. Caching the list is counted as a change
+     * too, as is a node dropping its cached copy, so the tag never outlives the copy it was read
+     * with. {@code null} when no tag can be given.
+     */
+    public String getUserByProfileETag(){
+        return cacheVersions.eTag(CacheConfig.PROFILES, SimpleKey.EMPTY);
+    }
+
+    /**
+     * Changes whenever the user {@link #getUserByUsername} returns for {@code username} may have
+     * changed, including from none to one. Read it before the user. Caching a user is counted as
+     * a change too, so the tag handed out with the response that caches the user changes once.
+     */
+    public String getUserByUsernameETag(String username){
+        return cacheVersions.eTag(CacheConfig.USERS, username);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.USERS, unless = "#result == null")
     public UserDetails getUserByUsername(String username){
         return userRepository.findByUserName(username);
     }
+
+    /**
+     * Up to {@code limit} users (at most 1000) with an id above {@code lastId}. Pass the last id of
+     * one page to get the next; every page costs the same however deep it is.
+     */
+    public List<UserDetails> getUsersAfter(long lastId, int limit){
+        return userRepository.findByIdGreaterThanOrderByIdAsc(lastId, pageSize(limit));
+    }
+
+    public List<UserDetails> getUsersByProfileAfter(long lastId, int limit){
+        return userRepository.findByProfileAndIdGreaterThanOrderByIdAsc(activeProfile, lastId, pageSize(limit));
+    }
+
+    /**
+     * Passes every user to {@code consumer} from one database cursor. Each entity is detached once
+     * consumed, so the persistence context does not grow with the table. Returns the user count.
+     */
+    @Transactional(readOnly = true)
+    public long streamAllUsers(Consumer<UserDetails> consumer){
+        long count = 0;
+        try (Stream<UserDetails> users = userRepository.streamAllByOrderByIdAsc()) {
+            Iterator<UserDetails> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                UserDetails user = iterator.next();
+                consumer.accept(user);
+                entityManager.detach(user);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Limit pageSize(int limit){
+        return Limit.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
 }
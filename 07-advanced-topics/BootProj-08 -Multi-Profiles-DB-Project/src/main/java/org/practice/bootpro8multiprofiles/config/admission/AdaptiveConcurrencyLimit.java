@@ -0,0 +1,74 @@
+package org.practice.bootpro8multiprofiles.config.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An AIMD concurrency limit. A request is admitted only while fewer than the limit are in flight.
+ * <p>
+ * Each completed request reports whether it saw congestion. A congested request cuts the limit by
+ * the backoff ratio, but only if it started after the previous cut: the requests already in flight
+ * when the limit was cut report the same congestion, and counting them all would collapse the limit
+ * to the minimum in one burst. An uncongested request raises the limit by 1/limit, about one per
+ * limit's worth of requests, while at least half the limit is in use; an idle limit does not grow.
+ */
+public class AdaptiveConcurrencyLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double limit;
+    private volatile int currentLimit;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Needs 1 <= min-limit <= max-limit and 0 < backoff-ratio < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.currentLimit = (int) limit;
+    }
+
+    /**
+     * Admits a request if the limit allows; every admitted request must be {@linkplain #release released}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends an admitted request that started at {@code startNanos} ({@link System#nanoTime()}).
+     */
+    public void release(long startNanos, boolean congested) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (congested) {
+                if (startNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = System.nanoTime();
+                }
+            } else if (inFlightBefore * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            currentLimit = (int) limit;
+        }
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,36 @@
+package org.practice.bootpro8multiprofiles.config.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.practice.bootpro8multiprofiles.config.properties.ApplicationPropertiesConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Admission control (app.admission.*), switched on per profile in application.properties. See
+ * {@link AdmissionControlFilter}.
+ */
+@Configuration
+public class AdmissionConfig {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionConfig.class);
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.admission", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(ApplicationPropertiesConfig properties,
+                                                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        ApplicationPropertiesConfig.AdmissionProperties admission = properties.getAdmission();
+        logger.info("Limiting requests in flight per endpoint class, {} to start, adapting to connection waits over {} ms",
+                admission.getInitialLimit(), admission.getTargetConnectionWait().toMillis());
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(admission, meterRegistry.getIfAvailable()));
+        // inside the RequestInstrumentationFilter, whose per-request stats carry the connection waits,
+        // and outside Spring Security, so rejected requests cost as little as possible
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
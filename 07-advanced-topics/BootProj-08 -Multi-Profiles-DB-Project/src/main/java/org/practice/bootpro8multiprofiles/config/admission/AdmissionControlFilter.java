@@ -0,0 +1,122 @@
+package org.practice.bootpro8multiprofiles.config.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.practice.bootpro8multiprofiles.config.observability.RequestSqlStats;
+import org.practice.bootpro8multiprofiles.config.properties.ApplicationPropertiesConfig;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sheds load before the connection pool saturates. Each {@link EndpointClass} has an
+ * {@link AdaptiveConcurrencyLimit}; a request over its class's limit is answered at once with 503 and
+ * Retry-After instead of queueing for a connection until it times out.
+ * <p>
+ * Congestion is read from the request's {@link RequestSqlStats}: waiting longer than the target for
+ * connections, or timing out waiting, cuts the limit. The stats are opened by the
+ * {@code RequestInstrumentationFilter}, which must therefore run first. A streamed response holds
+ * its permit until the async request completes, but only the connection waits on the request thread
+ * count towards congestion.
+ * <p>
+ * Metrics, tagged with the endpoint class: http.server.admission.limit, http.server.admission.inflight
+ * and http.server.admission.rejected.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+    private final long targetConnectionWaitNanos;
+    private final String retryAfterSeconds;
+
+    /**
+     * @param registry receives the admission metrics; may be {@code null}
+     */
+    public AdmissionControlFilter(ApplicationPropertiesConfig.AdmissionProperties settings, MeterRegistry registry) {
+        this.targetConnectionWaitNanos = settings.getTargetConnectionWait().toNanos();
+        this.retryAfterSeconds = Long.toString(Math.max(1, settings.getRetryAfter().toSeconds()));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            int maxLimit = endpointClass == EndpointClass.BULK
+                    ? Math.min(settings.getMaxLimit(), settings.getBulkMaxLimit()) : settings.getMaxLimit();
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(settings.getInitialLimit(),
+                    Math.min(settings.getMinLimit(), maxLimit), maxLimit, settings.getBackoffRatio());
+            limits.put(endpointClass, limit);
+            if (registry != null) {
+                String tag = endpointClass.name().toLowerCase(Locale.ROOT);
+                Gauge.builder("http.server.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                        .description("Requests admitted at once").tag("class", tag).register(registry);
+                Gauge.builder("http.server.admission.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                        .description("Admitted requests in flight").tag("class", tag).register(registry);
+                rejected.put(endpointClass, Counter.builder("http.server.admission.rejected")
+                        .description("Requests rejected with 503 over the limit").tag("class", tag).register(registry));
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request);
+        if (endpointClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            Counter counter = rejected.get(endpointClass);
+            if (counter != null) {
+                counter.increment();
+            }
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return;
+        }
+
+        long start = System.nanoTime();
+        RequestSqlStats stats = RequestSqlStats.current();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        limit.release(start, congested(stats));
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                limit.release(start, congested(stats));
+            }
+        }
+    }
+
+    private boolean congested(RequestSqlStats stats) {
+        return stats != null
+                && (stats.getConnectionTimeouts() > 0 || stats.getConnectionWaitNanos() > targetConnectionWaitNanos);
+    }
+}
@@ -0,0 +1,40 @@
+package org.practice.bootpro8multiprofiles.config.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Groups of endpoints that share a concurrency limit. Requests are classified before they reach a
+ * handler, so by method and path.
+ */
+public enum EndpointClass {
+    /**
+     * GET /users/stream and POST /users/import, which hold a connection for their whole run.
+     */
+    BULK,
+    /**
+     * Other requests that change data.
+     */
+    WRITE,
+    /**
+     * Everything else.
+     */
+    READ;
+
+    /**
+     * The class of {@code request}, or {@code null} for actuator requests, which are always admitted
+     * so health checks keep answering under overload.
+     */
+    public static EndpointClass of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/actuator/") || path.equals("/actuator")) {
+            return null;
+        }
+        if (path.equals("/users/stream") || path.equals("/users/import")) {
+            return BULK;
+        }
+        return switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> READ;
+            default -> WRITE;
+        };
+    }
+}
@@ -1,32 +1,92 @@
-package org.practice.bootpro8multiprofiles.config.cache;
-
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
-
-@Configuration
-@EnableCaching
-public class CacheConfig {
-
-    @Bean
-    @Profile("dev")
-    public CacheManager devCacheManager() {
-        return new ConcurrentMapCacheManager("users", "profiles");
-    }
-
-    @Bean
-    @Profile("prod")
-    public CacheManager prodCacheManager() {
-        // In a real-world scenario, you might use Redis or another distributed cache
-        return new ConcurrentMapCacheManager("users");
-    }
-
-    @Bean
-    @Profile("test")
-    public CacheManager testCacheManager() {
-        return new ConcurrentMapCacheManager("testCache");
-    }
-}
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String USERS = "users";
+    public static final String PROFILES = "profiles";
+
+    /**
+     * Raised by every cache change; GET /profile and /{username} derive their ETags from it.
+     */
+    @Bean
+    @Profile("!prod")
+    public CacheVersions cacheVersions() {
+        return new LocalCacheVersions();
+    }
+
+    /**
+     * Kept in Redis, so all nodes agree on the tags and none relies on receiving invalidations.
+     */
+    @Bean
+    @Profile("prod")
+    public CacheVersions sharedCacheVersions(SharedCacheStore sharedCacheStore) {
+        return new SharedCacheVersions(sharedCacheStore, Duration.ofDays(1));
+    }
+
+    @Bean
+    @Profile("dev")
+    public CacheManager devCacheManager(CacheVersions cacheVersions) {
+        return boundedCacheManager(1_000, Duration.ofMinutes(1), cacheVersions);
+    }
+
+    /**
+     * Every node keeps a small near-cache in front of Redis. Invalidations from other nodes
+     * arrive over pub/sub; the short near TTL bounds staleness if a message is lost, and a near
+     * entry that expires raises its version, so a response tagged from a stale copy stops matching.
+     */
+    @Bean
+    @Profile("prod")
+    public CacheManager prodCacheManager(SharedCacheStore sharedCacheStore, CacheVersions cacheVersions) {
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(
+                () -> Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(Duration.ofSeconds(30)).recordStats(),
+                sharedCacheStore, Duration.ofMinutes(10), USERS, PROFILES);
+        cacheManager.setNearEvictionListener(cacheVersions::changed);
+        cacheManager.afterPropertiesSet();
+        return new VersionedCacheManager(cacheManager, cacheVersions);
+    }
+
+    @Bean(destroyMethod = "close")
+    @Profile("prod")
+    public SharedCacheStore redisSharedCacheStore(@Value("${app.cache.redis-uri:redis://localhost:6379}") String redisUri,
+                                                  @Value("${app.cache.redis-timeout:250ms}") Duration commandTimeout) {
+        return new RedisSharedCacheStore(redisUri, commandTimeout);
+    }
+
+    @Bean
+    public TwoLevelCacheMeterBinderProvider twoLevelCacheMeterBinderProvider() {
+        return new TwoLevelCacheMeterBinderProvider();
+    }
+
+    @Bean
+    @Profile("test")
+    public CacheManager testCacheManager(CacheVersions cacheVersions) {
+        return boundedCacheManager(10_000, Duration.ofMinutes(5), cacheVersions);
+    }
+
+    /**
+     * Caffeine caches evict by size (W-TinyLFU) and by age, and record hit, miss and eviction
+     * counts that Actuator publishes as cache.gets and cache.evictions. Puts and evictions made
+     * inside a transaction are held back until it commits.
+     */
+    private static CacheManager boundedCacheManager(long maximumSize, Duration timeToLive, CacheVersions cacheVersions) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(USERS, PROFILES);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        return new VersionedCacheManager(cacheManager, cacheVersions);
+    }
+}
@@ -0,0 +1,27 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+/**
+ * Version counters per cache region and per cached entry, raised whenever a put, evict or clear
+ * reaches the cache (see {@link VersionedCache}) and when a node drops a near entry by expiry or
+ * eviction. Responses built from a region or entry are tagged with {@link #eTag}; the tag only
+ * stays the same while nothing the response was built from has changed.
+ */
+public interface CacheVersions {
+
+    /**
+     * Records a change to {@code key} in {@code cacheName}, or to the whole region when
+     * {@code key} is {@code null}.
+     */
+    void changed(String cacheName, Object key);
+
+    /**
+     * Tag for a response built from the whole region, or {@code null} when no tag can be given.
+     */
+    String eTag(String cacheName);
+
+    /**
+     * Tag for a response built from one entry, or {@code null} when no tag can be given; changes
+     * with the entry and with the region.
+     */
+    String eTag(String cacheName, Object key);
+}
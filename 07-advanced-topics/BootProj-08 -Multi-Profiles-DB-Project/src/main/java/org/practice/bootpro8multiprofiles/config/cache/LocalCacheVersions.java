@@ -0,0 +1,59 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link CacheVersions} held in this JVM, for a node whose caches no other node writes to.
+ * <p>
+ * Tags start with an epoch drawn at startup, so a restarted node never reuses a tag. Entry
+ * versions are stamps from one sequence. At most {@value #MAX_ENTRIES} are kept; an entry without
+ * a stamp reports the highest stamp dropped so far, which is never lower than the stamp it had.
+ */
+public class LocalCacheVersions implements CacheVersions {
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final String epoch = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+    private final Map<String, AtomicLong> regions = new ConcurrentHashMap<>();
+    private final AtomicLong stamps = new AtomicLong();
+    private final AtomicLong droppedStamp = new AtomicLong();
+    private final Cache<String, Long> entries = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .evictionListener((String key, Long stamp, RemovalCause cause) ->
+                    droppedStamp.accumulateAndGet(stamp, Math::max))
+            .build();
+
+    @Override
+    public void changed(String cacheName, Object key) {
+        if (key == null) {
+            region(cacheName).incrementAndGet();
+        } else {
+            entries.put(entryKey(cacheName, key), stamps.incrementAndGet());
+        }
+    }
+
+    @Override
+    public String eTag(String cacheName) {
+        return epoch + "-" + region(cacheName).get();
+    }
+
+    @Override
+    public String eTag(String cacheName, Object key) {
+        Long stamp = entries.getIfPresent(entryKey(cacheName, key));
+        return eTag(cacheName) + "-" + (stamp != null ? stamp : droppedStamp.get());
+    }
+
+    private AtomicLong region(String cacheName) {
+        return regions.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    private static String entryKey(String cacheName, Object key) {
+        return cacheName + "::" + key;
+    }
+}
@@ -0,0 +1,121 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Shared tier on Redis. Entries are stored as {@code <cache>::<key>} with a TTL and invalidations
+ * go out on one pub/sub channel. Commands give up after {@code commandTimeout} and are rejected
+ * at once while the connection is down, so a slow or missing Redis costs a request a few
+ * milliseconds rather than Lettuce's default minute.
+ */
+public class RedisSharedCacheStore implements SharedCacheStore {
+    private static final String CHANNEL = "bootproj08:cache-invalidation";
+
+    private final RedisClient client;
+    private final StatefulRedisConnection<String, byte[]> connection;
+    private final RedisCommands<String, byte[]> commands;
+    private final StatefulRedisPubSubConnection<String, String> subscription;
+
+    public RedisSharedCacheStore(String redisUri, Duration commandTimeout) {
+        RedisURI uri = RedisURI.create(redisUri);
+        uri.setTimeout(commandTimeout);
+        client = RedisClient.create(uri);
+        client.setOptions(ClientOptions.builder()
+                .socketOptions(SocketOptions.builder().connectTimeout(commandTimeout).build())
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build());
+        connection = client.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        commands = connection.sync();
+        subscription = client.connectPubSub();
+    }
+
+    @Override
+    public byte[] get(String cacheName, String key) {
+        return commands.get(redisKey(cacheName, key));
+    }
+
+    @Override
+    public void put(String cacheName, String key, byte[] value, Duration timeToLive) {
+        commands.set(redisKey(cacheName, key), value, SetArgs.Builder.px(timeToLive.toMillis()));
+    }
+
+    @Override
+    public boolean putIfAbsent(String cacheName, String key, byte[] value) {
+        return commands.setnx(redisKey(cacheName, key), value);
+    }
+
+    @Override
+    public List<byte[]> getAll(String cacheName, List<String> keys) {
+        String[] redisKeys = keys.stream().map(key -> redisKey(cacheName, key)).toArray(String[]::new);
+        return commands.mget(redisKeys).stream().map(value -> value.hasValue() ? value.getValue() : null).toList();
+    }
+
+    @Override
+    public long increment(String cacheName, String key) {
+        return commands.incr(redisKey(cacheName, key));
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        commands.unlink(redisKey(cacheName, key));
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        ScanArgs match = ScanArgs.Builder.matches(cacheName + "::*").limit(500);
+        ScanCursor cursor = ScanCursor.INITIAL;
+        do {
+            KeyScanCursor<String> keys = commands.scan(cursor, match);
+            if (!keys.getKeys().isEmpty()) {
+                commands.unlink(keys.getKeys().toArray(new String[0]));
+            }
+            cursor = keys;
+        } while (!cursor.isFinished());
+    }
+
+    @Override
+    public void publish(String message) {
+        commands.publish(CHANNEL, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        subscription.addListener(new RedisPubSubAdapter<>() {
+            @Override
+            public void message(String channel, String message) {
+                listener.accept(message);
+            }
+        });
+        subscription.sync().subscribe(CHANNEL);
+    }
+
+    @Override
+    public void close() {
+        subscription.close();
+        connection.close();
+        client.shutdown();
+    }
+
+    private static String redisKey(String cacheName, String key) {
+        return cacheName + "::" + key;
+    }
+}
@@ -0,0 +1,43 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The shared tier behind {@link TwoLevelCache}: a key-value store every node reads and writes,
+ * plus a broadcast channel the nodes use to tell each other which near-cache entries are stale.
+ * Messages are fire-and-forget, so near entries also expire on their own.
+ */
+public interface SharedCacheStore extends AutoCloseable {
+    byte[] get(String cacheName, String key);
+
+    void put(String cacheName, String key, byte[] value, Duration timeToLive);
+
+    /**
+     * Stores {@code value} without an expiry unless {@code key} is present; returns whether it was stored.
+     */
+    boolean putIfAbsent(String cacheName, String key, byte[] value);
+
+    /**
+     * Values of several keys in one round trip, {@code null} for the absent ones.
+     */
+    List<byte[]> getAll(String cacheName, List<String> keys);
+
+    /**
+     * Adds one to the decimal counter stored under {@code key}, which starts at zero, and returns
+     * the new value.
+     */
+    long increment(String cacheName, String key);
+
+    void evict(String cacheName, String key);
+
+    void clear(String cacheName);
+
+    void publish(String message);
+
+    void subscribe(Consumer<String> listener);
+
+    @Override
+    void close();
+}
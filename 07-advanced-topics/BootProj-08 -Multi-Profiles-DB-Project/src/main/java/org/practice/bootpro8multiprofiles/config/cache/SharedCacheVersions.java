@@ -0,0 +1,108 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link CacheVersions} kept in the {@link SharedCacheStore} next to the cached entries, so every
+ * node hands out the same tag for the same data and a change made on one node moves the tag on all
+ * of them, whether or not its invalidation message arrives.
+ * <p>
+ * Region versions and the stamp sequence are counters in the {@value #VERSIONS} namespace; each
+ * entry's stamp is stored beside them and expires after {@code entryTimeToLive}. An entry without
+ * a stamp reports the current sequence, which is never lower than the stamp it had and only equals
+ * it while nothing has changed since.
+ * <p>
+ * Tags start with a shared epoch. It is drawn again when the counters were lost with it, and when
+ * this node failed to record a change, so tags handed out before can no longer match. While the
+ * store can't be read no tag is given and every request gets a full response.
+ */
+public class SharedCacheVersions implements CacheVersions {
+    static final String VERSIONS = "versions";
+    private static final String EPOCH = "epoch";
+    private static final String STAMPS = "stamps";
+    private static final Logger logger = LoggerFactory.getLogger(SharedCacheVersions.class);
+
+    private final SharedCacheStore shared;
+    private final Duration entryTimeToLive;
+    private final SecureRandom random = new SecureRandom();
+    private volatile boolean changeLost;
+
+    public SharedCacheVersions(SharedCacheStore shared, Duration entryTimeToLive) {
+        this.shared = shared;
+        this.entryTimeToLive = entryTimeToLive;
+    }
+
+    @Override
+    public void changed(String cacheName, Object key) {
+        try {
+            if (key == null) {
+                shared.increment(VERSIONS, regionKey(cacheName));
+            } else {
+                long stamp = shared.increment(VERSIONS, STAMPS);
+                shared.put(VERSIONS, entryKey(cacheName, key), encode(stamp), entryTimeToLive);
+            }
+        } catch (RuntimeException e) {
+            changeLost = true;
+            logger.warn("Cache version of {} {} not recorded: {}", cacheName, key, e.toString());
+        }
+    }
+
+    @Override
+    public String eTag(String cacheName) {
+        return tag(cacheName, null);
+    }
+
+    @Override
+    public String eTag(String cacheName, Object key) {
+        return tag(cacheName, key);
+    }
+
+    private String tag(String cacheName, Object key) {
+        try {
+            if (changeLost) {
+                shared.evict(VERSIONS, EPOCH);
+                changeLost = false;
+            }
+            List<String> keys = new ArrayList<>(List.of(EPOCH, regionKey(cacheName), STAMPS));
+            if (key != null) {
+                keys.add(entryKey(cacheName, key));
+            }
+            List<byte[]> values = shared.getAll(VERSIONS, keys);
+            if (values.get(0) == null) {
+                shared.putIfAbsent(VERSIONS, EPOCH, encode(random.nextLong() & Long.MAX_VALUE));
+                values = shared.getAll(VERSIONS, keys);
+            }
+            String tag = new String(values.get(0), StandardCharsets.US_ASCII) + "-" + decode(values.get(1));
+            if (key == null) {
+                return tag;
+            }
+            return tag + "-" + (values.get(3) != null ? decode(values.get(3)) : decode(values.get(2)));
+        } catch (RuntimeException e) {
+            logger.debug("Cache version of {} {} not read: {}", cacheName, key, e.toString());
+            return null;
+        }
+    }
+
+    private static String regionKey(String cacheName) {
+        return "region:" + cacheName;
+    }
+
+    private static String entryKey(String cacheName, Object key) {
+        return "entry:" + cacheName + "::" + key;
+    }
+
+    private static byte[] encode(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static long decode(byte[] value) {
+        return value == null ? 0 : Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,232 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A Caffeine near-cache in front of a {@link SharedCacheStore}. Reads try the near tier, then the
+ * shared one. Writes go to both, and every put, evict or clear is broadcast so that the other
+ * nodes drop their near copy and read the new value from the shared tier. Keys are stored in
+ * both tiers by their string form and values go to the shared tier with Java serialization.
+ * <p>
+ * The shared tier is an optimization, not a dependency: when it fails or times out, reads fall
+ * back to a miss and writes keep only the near copy, so requests go to the database instead of
+ * failing. Concurrent {@link #get(Object, Callable)} calls for one key wait for a single load;
+ * other keys are not held up.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final String nodeId;
+    private final Cache<String, Object> near;
+    private final SharedCacheStore shared;
+    private final Duration sharedTimeToLive;
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder sharedErrors = new LongAdder();
+    private final ConcurrentMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    public TwoLevelCache(String name, String nodeId, Cache<String, Object> near, SharedCacheStore shared, Duration sharedTimeToLive) {
+        super(false);
+        this.name = name;
+        this.nodeId = nodeId;
+        this.near = near;
+        this.shared = shared;
+        this.sharedTimeToLive = sharedTimeToLive;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return near;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String sharedKey = key.toString();
+        Object value = near.getIfPresent(sharedKey);
+        if (value != null) {
+            nearHits.increment();
+            return value;
+        }
+        byte[] bytes = shared("get " + sharedKey, () -> shared.get(name, sharedKey));
+        if (bytes == null) {
+            misses.increment();
+            return null;
+        }
+        sharedHits.increment();
+        value = deserializer.convert(bytes);
+        near.put(sharedKey, value);
+        return value;
+    }
+
+    /**
+     * The first caller to miss on {@code key} loads it; callers that miss while that load runs
+     * wait for its result instead of loading again.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) fromStoreValue(value);
+        }
+        String sharedKey = key.toString();
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(sharedKey, load);
+        if (running != null) {
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            // a load that finished between the lookup and putIfAbsent left its value in the near tier
+            value = near.getIfPresent(sharedKey);
+            if (value == null) {
+                value = valueLoader.call();
+                put(key, value);
+            }
+            load.complete(value);
+            return (T) value;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loads.remove(sharedKey, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        String sharedKey = key.toString();
+        near.put(sharedKey, value);
+        puts.increment();
+        byte[] bytes = serializer.convert(value);
+        shared("put " + sharedKey, () -> {
+            shared.put(name, sharedKey, bytes, sharedTimeToLive);
+            shared.publish(TwoLevelCacheManager.evictMessage(nodeId, name, sharedKey));
+            return null;
+        });
+    }
+
+    @Override
+    public void evict(Object key) {
+        String sharedKey = key.toString();
+        near.invalidate(sharedKey);
+        shared("evict " + sharedKey, () -> {
+            shared.evict(name, sharedKey);
+            shared.publish(TwoLevelCacheManager.evictMessage(nodeId, name, sharedKey));
+            return null;
+        });
+    }
+
+    @Override
+    public void clear() {
+        near.invalidateAll();
+        shared("clear", () -> {
+            shared.clear(name);
+            shared.publish(TwoLevelCacheManager.clearMessage(nodeId, name));
+            return null;
+        });
+    }
+
+    /**
+     * Runs a shared-tier call, turning a failure into a {@code null} result. A failed write or
+     * evict leaves other nodes on their old copy until it expires, the same as a lost message.
+     */
+    private <T> T shared(String operation, Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            sharedErrors.increment();
+            logger.warn("Shared cache {} failed for {} {}: {}", name, operation, e.getClass().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Drops a near entry another node has replaced.
+     */
+    void invalidateNear(String key) {
+        near.invalidate(key);
+    }
+
+    void clearNear() {
+        near.invalidateAll();
+    }
+
+    public long getNearHits() {
+        return nearHits.sum();
+    }
+
+    public long getSharedHits() {
+        return sharedHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    /**
+     * Shared-tier calls that failed or timed out and were treated as misses or skipped writes.
+     */
+    public long getSharedErrors() {
+        return sharedErrors.sum();
+    }
+
+    public long getNearEvictions() {
+        return near.stats().evictionCount();
+    }
+
+    public long getNearSize() {
+        return near.estimatedSize();
+    }
+
+    /**
+     * Share of all lookups answered by the near tier.
+     */
+    public double getNearHitRatio() {
+        long lookups = getNearHits() + getSharedHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getNearHits() / lookups;
+    }
+
+    /**
+     * Share of near-tier misses answered by the shared tier.
+     */
+    public double getSharedHitRatio() {
+        long lookups = getSharedHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getSharedHits() / lookups;
+    }
+}
@@ -0,0 +1,91 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Creates one {@link TwoLevelCache} per name over a common {@link SharedCacheStore} and applies
+ * the invalidations other nodes broadcast. Messages are {@code node|evict|cache|key} or
+ * {@code node|clear|cache}; a node ignores its own. Each cache's near tier is built from a fresh
+ * {@code nearSpec} builder, as a builder takes only one removal listener.
+ */
+public class TwoLevelCacheManager extends AbstractCacheManager {
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Supplier<Caffeine<Object, Object>> nearSpec;
+    private final SharedCacheStore shared;
+    private final Duration sharedTimeToLive;
+    private final List<String> cacheNames;
+    private volatile BiConsumer<String, String> nearEvictionListener = (cacheName, key) -> {
+    };
+
+    public TwoLevelCacheManager(Supplier<Caffeine<Object, Object>> nearSpec, SharedCacheStore shared, Duration sharedTimeToLive,
+                                String... cacheNames) {
+        this.nearSpec = nearSpec;
+        this.shared = shared;
+        this.sharedTimeToLive = sharedTimeToLive;
+        this.cacheNames = List.of(cacheNames);
+        shared.subscribe(this::onMessage);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<TwoLevelCache> caches = new ArrayList<>();
+        for (String name : cacheNames) {
+            caches.add(new TwoLevelCache(name, nodeId, nearSpec.get()
+                    .removalListener((String key, Object value, RemovalCause cause) -> {
+                        if (cause.wasEvicted()) {
+                            nearEvictionListener.accept(name, key);
+                        }
+                    })
+                    .build(), shared, sharedTimeToLive));
+        }
+        return caches;
+    }
+
+    /**
+     * Called with the cache name and key of every near entry dropped by expiry or by size, after
+     * which the node reads the entry again from the shared tier or the database. Entries removed
+     * by a put, an evict or another node's invalidation are not reported.
+     */
+    public void setNearEvictionListener(BiConsumer<String, String> nearEvictionListener) {
+        this.nearEvictionListener = nearEvictionListener;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    static String evictMessage(String nodeId, String cacheName, String key) {
+        return nodeId + "|evict|" + cacheName + "|" + key;
+    }
+
+    static String clearMessage(String nodeId, String cacheName) {
+        return nodeId + "|clear|" + cacheName;
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 4);
+        if (parts.length < 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        Cache cache = getCache(parts[2]);
+        if (!(cache instanceof TwoLevelCache twoLevelCache)) {
+            return;
+        }
+        if (parts[1].equals("clear")) {
+            twoLevelCache.clearNear();
+        } else if (parts[1].equals("evict") && parts.length == 4) {
+            twoLevelCache.invalidateNear(parts[3]);
+        }
+    }
+}
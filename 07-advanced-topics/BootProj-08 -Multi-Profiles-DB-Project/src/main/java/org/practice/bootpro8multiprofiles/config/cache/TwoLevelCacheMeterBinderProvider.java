@@ -0,0 +1,64 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+/**
+ * Publishes the usual cache.gets, cache.puts and cache.evictions for a {@link TwoLevelCache}, plus
+ * cache.tier.gets (tier=near|shared), the cache.tier.hit.ratio gauge for each tier and
+ * cache.tier.errors for failed shared-tier calls.
+ */
+public class TwoLevelCacheMeterBinderProvider implements CacheMeterBinderProvider<TwoLevelCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+        return new CacheMeterBinder<>(cache, cache.getName(), tags) {
+            @Override
+            protected Long size() {
+                return cache.getNearSize();
+            }
+
+            @Override
+            protected long hitCount() {
+                return cache.getNearHits() + cache.getSharedHits();
+            }
+
+            @Override
+            protected Long missCount() {
+                return cache.getMisses();
+            }
+
+            @Override
+            protected Long evictionCount() {
+                return cache.getNearEvictions();
+            }
+
+            @Override
+            protected long putCount() {
+                return cache.getPuts();
+            }
+
+            @Override
+            protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+                FunctionCounter.builder("cache.tier.gets", cache, TwoLevelCache::getNearHits)
+                        .tags(getTagsWithCacheName()).tag("tier", "near").tag("result", "hit")
+                        .description("Lookups answered by the in-process tier").register(registry);
+                FunctionCounter.builder("cache.tier.gets", cache, TwoLevelCache::getSharedHits)
+                        .tags(getTagsWithCacheName()).tag("tier", "shared").tag("result", "hit")
+                        .description("Lookups answered by the shared tier").register(registry);
+                FunctionCounter.builder("cache.tier.errors", cache, TwoLevelCache::getSharedErrors)
+                        .tags(getTagsWithCacheName()).tag("tier", "shared")
+                        .description("Shared tier calls that failed and were treated as misses").register(registry);
+                Gauge.builder("cache.tier.hit.ratio", cache, TwoLevelCache::getNearHitRatio)
+                        .tags(getTagsWithCacheName()).tag("tier", "near").register(registry);
+                Gauge.builder("cache.tier.hit.ratio", cache, TwoLevelCache::getSharedHitRatio)
+                        .tags(getTagsWithCacheName()).tag("tier", "shared").register(registry);
+            }
+        };
+    }
+}
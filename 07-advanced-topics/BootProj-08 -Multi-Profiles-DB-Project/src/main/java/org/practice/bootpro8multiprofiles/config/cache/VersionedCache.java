@@ -0,0 +1,77 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transaction-aware like its superclass, and raises the {@link CacheVersions} of every entry or
+ * region it changes. Inside a transaction the change reaches the cache after commit and the version
+ * is raised after that, so a response tagged with the new version is never built from the old value.
+ */
+public class VersionedCache extends TransactionAwareCacheDecorator {
+    private final CacheVersions versions;
+
+    public VersionedCache(Cache targetCache, CacheVersions versions) {
+        super(targetCache);
+        this.versions = versions;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        changedAfterCommit(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, value);
+        if (existing == null) {
+            versions.changed(getName(), key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        changedAfterCommit(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = super.evictIfPresent(key);
+        changedAfterCommit(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        changedAfterCommit(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = super.invalidate();
+        versions.changed(getName(), null);
+        return invalidated;
+    }
+
+    /**
+     * Registered after the superclass's own synchronization, so it runs after the cache change.
+     */
+    private void changedAfterCommit(Object key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.changed(getName(), key);
+                }
+            });
+        } else {
+            versions.changed(getName(), key);
+        }
+    }
+}
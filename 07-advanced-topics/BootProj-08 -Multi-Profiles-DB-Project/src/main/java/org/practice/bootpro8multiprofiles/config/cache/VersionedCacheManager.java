@@ -0,0 +1,42 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the target manager's caches as {@link VersionedCache}s. Takes the place of
+ * TransactionAwareCacheManagerProxy: puts and evictions made inside a transaction are still held
+ * back until it commits.
+ */
+public class VersionedCacheManager implements CacheManager {
+    private final CacheManager target;
+    private final CacheVersions versions;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public VersionedCacheManager(CacheManager target, CacheVersions versions) {
+        this.target = target;
+        this.versions = versions;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache == null) {
+            Cache targetCache = target.getCache(name);
+            if (targetCache == null) {
+                return null;
+            }
+            cache = caches.computeIfAbsent(name, key -> new VersionedCache(targetCache, versions));
+        }
+        return cache;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+}
@@ -0,0 +1,204 @@
+package org.practice.bootpro8multiprofiles.config.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.practice.bootpro8multiprofiles.config.properties.ApplicationPropertiesConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resizes a Hikari pool between min-size and max-size to keep the mean time spent waiting for a
+ * connection near a target. Acquire times are taken from Hikari's metrics tracker, which this
+ * class installs on the pool, passing everything on to the usual hikaricp.* meters.
+ * <p>
+ * Each sample compares the mean acquire time since the previous sample with the target. Over the
+ * target, or after an acquire timed out, the pool grows by the number of waiting threads or a
+ * quarter of its size, whichever is larger. After three samples in a row under half the target it
+ * shrinks by an eighth, never below the connections in use or asked for. Growing fast and
+ * shrinking slowly keeps the size from oscillating. A smaller maximum does not close connections straight away;
+ * Hikari retires the idle ones above min-size once they reach the pool's idle timeout.
+ * <p>
+ * Metrics: datasource.pool.acquire.mean{pool} (ms, last sample) and
+ * datasource.pool.resizes{pool,direction}.
+ */
+public class AdaptivePoolSizer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+    private static final int CALM_SAMPLES_BEFORE_SHRINKING = 3;
+
+    private final HikariDataSource pool;
+    private final MeterRegistry registry;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetAcquireNanos;
+    private final long sampleIntervalMillis;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile long meanAcquireNanos;
+    private int calmSamples;
+    private Counter grown;
+    private Counter shrunk;
+    private ScheduledExecutorService sampler;
+
+    /**
+     * Must be created before the pool hands out its first connection.
+     *
+     * @param registry receives the pool and sizing metrics; may be {@code null}
+     */
+    public AdaptivePoolSizer(HikariDataSource pool, ApplicationPropertiesConfig.AdaptivePoolProperties settings,
+                             MeterRegistry registry) {
+        if (settings.getMinSize() < 1 || settings.getMaxSize() < settings.getMinSize()) {
+            throw new IllegalArgumentException("app.datasource.pool.adaptive needs 1 <= min-size <= max-size");
+        }
+        this.pool = pool;
+        this.registry = registry;
+        this.minSize = settings.getMinSize();
+        this.maxSize = settings.getMaxSize();
+        this.targetAcquireNanos = settings.getTargetAcquireTime().toNanos();
+        this.sampleIntervalMillis = settings.getSampleInterval().toMillis();
+        pool.setMaximumPoolSize(Math.max(minSize, Math.min(maxSize, pool.getMaximumPoolSize())));
+        // idle connections above the minimum are what Hikari retires after the pool shrinks
+        pool.setMinimumIdle(minSize);
+        pool.setMetricsTrackerFactory(this::createTracker);
+    }
+
+    /**
+     * Samples every sample-interval on a daemon thread; a zero interval leaves it to {@link #resize()}.
+     */
+    public void start() {
+        if (sampleIntervalMillis > 0) {
+            sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hikari-pool-sizer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sampler.scheduleWithFixedDelay(this::resize, sampleIntervalMillis, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Takes one sample and adjusts the pool's maximum size. Returns the new maximum.
+     */
+    public synchronized int resize() {
+        if (pool.isClosed()) {
+            close();
+            return pool.getMaximumPoolSize();
+        }
+        HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+        if (poolBean == null) {
+            // not started yet
+            return pool.getMaximumPoolSize();
+        }
+        return resize(poolBean.getThreadsAwaitingConnection(), poolBean.getActiveConnections());
+    }
+
+    /**
+     * One sample with the pool's waiting and active counts given; {@link #resize()} reads them from
+     * the pool. Acquire times and timeouts are those recorded since the previous sample.
+     */
+    synchronized int resize(int waiting, int active) {
+        long count = acquisitions.sumThenReset();
+        long nanos = acquireNanos.sumThenReset();
+        long timedOut = timeouts.sumThenReset();
+        meanAcquireNanos = count == 0 ? 0 : nanos / count;
+        int size = pool.getMaximumPoolSize();
+
+        int next = size;
+        if (timedOut > 0 || meanAcquireNanos > targetAcquireNanos) {
+            calmSamples = 0;
+            next = Math.min(maxSize, size + Math.max(Math.max(1, waiting), size / 4));
+        } else if (meanAcquireNanos <= targetAcquireNanos / 2 && ++calmSamples >= CALM_SAMPLES_BEFORE_SHRINKING) {
+            next = Math.max(minSize, Math.max(Math.min(size, active + waiting), size - Math.max(1, size / 8)));
+        }
+        if (next != size) {
+            pool.getHikariConfigMXBean().setMaximumPoolSize(next);
+            increment(next > size ? grown : shrunk);
+            logger.info("Pool {} resized from {} to {} (mean acquire {} us, {} waiting, {} active, {} timeouts)",
+                    pool.getPoolName(), size, next, TimeUnit.NANOSECONDS.toMicros(meanAcquireNanos), waiting, active, timedOut);
+        }
+        return next;
+    }
+
+    void recordAcquire(long nanos) {
+        acquisitions.increment();
+        acquireNanos.add(nanos);
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    /**
+     * Mean acquire time measured by the last {@link #resize()}, in nanoseconds.
+     */
+    public long getMeanAcquireNanos() {
+        return meanAcquireNanos;
+    }
+
+    @Override
+    public void close() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    private IMetricsTracker createTracker(String poolName, PoolStats poolStats) {
+        IMetricsTracker delegate;
+        if (registry != null) {
+            delegate = new MicrometerMetricsTrackerFactory(registry).create(poolName, poolStats);
+            Gauge.builder("datasource.pool.acquire.mean", this, sizer -> sizer.meanAcquireNanos / 1_000_000.0)
+                    .tag("pool", poolName).baseUnit("milliseconds").register(registry);
+            grown = Counter.builder("datasource.pool.resizes").tag("pool", poolName).tag("direction", "grow").register(registry);
+            shrunk = Counter.builder("datasource.pool.resizes").tag("pool", poolName).tag("direction", "shrink").register(registry);
+        } else {
+            delegate = new IMetricsTracker() {
+            };
+        }
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                recordAcquire(elapsedAcquiredNanos);
+                delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                recordTimeout();
+                delegate.recordConnectionTimeout();
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -1,81 +1,139 @@
-package org.practice.bootpro8multiprofiles.config.database;
-
-import com.zaxxer.hikari.HikariDataSource;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Primary;
-import org.springframework.context.annotation.Profile;
-
-import javax.sql.DataSource;
-import java.util.Objects;
-
-@Configuration
-public class DataSourceConfig {
-
-    private static final String ACTIVE_PROFILE = Objects.toString(System.getProperty("spring.profiles.active"), "default");
-
-    @Bean
-    @Primary  // Ensures Spring picks a default DataSource if no profile is active
-    @Profile("dev")
-    public DataSource devDataSource() {
-        System.out.println("[✔] Active Profile: " + ACTIVE_PROFILE);
-        System.out.println("[DEV] Using Development DataSource (H2)");
-
-        HikariDataSource dataSource = new HikariDataSource();
-        dataSource.setJdbcUrl("jdbc:h2:mem:devdb");
-        dataSource.setDriverClassName("org.h2.Driver");
-        dataSource.setUsername("devuser");
-        dataSource.setPassword("");
-        dataSource.setMaximumPoolSize(10);
-        return dataSource;
-    }
-
-    @Bean
-    @Primary  // Ensures it's picked if "prod" is active
-    @Profile("prod")
-    public DataSource prodDataSource() {
-        System.out.println("[✔] Active Profile: " + ACTIVE_PROFILE);
-        System.out.println("[PROD] Using Production DataSource (MySQL)");
-
-        HikariDataSource dataSource = new HikariDataSource();
-        dataSource.setJdbcUrl("jdbc:mysql://localhost:3306/proddb");
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUsername("root");
-        dataSource.setPassword("8252");
-        dataSource.setMaximumPoolSize(10);
-        return dataSource;
-    }
-
-    @Bean
-    @Primary
-    @Profile("test")
-    public DataSource testDataSource() {
-        System.out.println("[✔] Active Profile: " + ACTIVE_PROFILE);
-        System.out.println("[TEST] Using Test DataSource (H2)");
-
-        HikariDataSource dataSource = new HikariDataSource();
-        dataSource.setJdbcUrl("jdbc:h2:mem:testdb");
-        dataSource.setDriverClassName("org.h2.Driver");
-        dataSource.setUsername("testuser");
-        dataSource.setPassword("");
-        dataSource.setMaximumPoolSize(5);
-        return dataSource;
-    }
-
-
-
-    @Bean
-    @Primary
-    @Profile("default")  // In case no profile is set
-    public DataSource defaultDataSource( ) {
-        System.out.println("[❌] No Active Profile Found! Using Default H2 Database.");
-
-        HikariDataSource dataSource = new HikariDataSource();
-        dataSource.setJdbcUrl("jdbc:h2:mem:defaultdb");
-        dataSource.setDriverClassName("org.h2.Driver");
-        dataSource.setUsername("defaultuser");
-        dataSource.setPassword("");
-        dataSource.setMaximumPoolSize(5);
-        return dataSource;
-    }
-}
+package org.practice.bootpro8multiprofiles.config.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.practice.bootpro8multiprofiles.config.observability.ConnectionWaitTracker;
+import org.practice.bootpro8multiprofiles.config.properties.ApplicationPropertiesConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+    private static final String ACTIVE_PROFILE = Objects.toString(System.getProperty("spring.profiles.active"), "default");
+
+    @Bean
+    @Primary  // Ensures Spring picks a default DataSource if no profile is active
+    @Profile("dev")
+    public DataSource devDataSource(ApplicationPropertiesConfig properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        System.out.println("[✔] Active Profile: " + ACTIVE_PROFILE);
+        System.out.println("[DEV] Using Development DataSource (H2)");
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:devdb");
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUsername("devuser");
+        dataSource.setPassword("");
+        configurePool(dataSource, properties.getDatasource().getPool(), meterRegistry.getIfAvailable());
+        return dataSource;
+    }
+
+    /**
+     * With app.datasource.replicas configured, read-only transactions are routed to the replicas
+     * and everything else to this primary.
+     */
+    @Bean
+    @Primary  // Ensures it's picked if "prod" is active
+    @Profile("prod")
+    public DataSource prodDataSource(ApplicationPropertiesConfig properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        System.out.println("[✔] Active Profile: " + ACTIVE_PROFILE);
+        System.out.println("[PROD] Using Production DataSource (MySQL)");
+
+        HikariDataSource dataSource = new HikariDataSource();
+        // useCursorFetch lets the fetch-size hint on streamed queries take effect;
+        // rewriteBatchedStatements sends each JDBC batch of inserts as one multi-row INSERT
+        dataSource.setJdbcUrl("jdbc:mysql://localhost:3306/proddb?useCursorFetch=true&rewriteBatchedStatements=true");
+        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        dataSource.setUsername("root");
+        dataSource.setPassword("8252");
+        configurePool(dataSource, properties.getDatasource().getPool(), meterRegistry.getIfAvailable());
+        return withReplicas(dataSource, properties.getDatasource(), meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    @Primary
+    @Profile("test")
+    public DataSource testDataSource(ApplicationPropertiesConfig properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        System.out.println("[✔] Active Profile: " + ACTIVE_PROFILE);
+        System.out.println("[TEST] Using Test DataSource (H2)");
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:testdb");
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUsername("testuser");
+        dataSource.setPassword("");
+        configurePool(dataSource, properties.getDatasource().getPool(), meterRegistry.getIfAvailable());
+        return dataSource;
+    }
+
+
+
+    @Bean
+    @Primary
+    @Profile("default")  // In case no profile is set
+    public DataSource defaultDataSource(ApplicationPropertiesConfig properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        System.out.println("[❌] No Active Profile Found! Using Default H2 Database.");
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:defaultdb");
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUsername("defaultuser");
+        dataSource.setPassword("");
+        configurePool(dataSource, properties.getDatasource().getPool(), meterRegistry.getIfAvailable());
+        return dataSource;
+    }
+
+    /**
+     * Applies app.datasource.pool.*. With adaptive sizing enabled the pool is handed to an
+     * {@link AdaptivePoolSizer}, which stops by itself once the pool is closed. Connection waits are
+     * charged to the request that waited (see {@link ConnectionWaitTracker}), which admission control
+     * reads.
+     */
+    private static void configurePool(HikariDataSource dataSource, ApplicationPropertiesConfig.PoolProperties pool,
+                                      MeterRegistry meterRegistry) {
+        dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        dataSource.setMinimumIdle(pool.getMinimumIdle() == null ? pool.getMaximumPoolSize() : pool.getMinimumIdle());
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        if (pool.getAdaptive().isEnabled()) {
+            new AdaptivePoolSizer(dataSource, pool.getAdaptive(), meterRegistry).start();
+        }
+        ConnectionWaitTracker.install(dataSource, meterRegistry);
+    }
+
+    private static DataSource withReplicas(HikariDataSource primary, ApplicationPropertiesConfig.DatabaseProperties database,
+                                           MeterRegistry meterRegistry) {
+        List<ApplicationPropertiesConfig.DatabaseProperties> replicas = database.getReplicas();
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+        logger.info("Routing read-only transactions to {} replica(s)", replicas.size());
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(replicas.get(i).getUrl());
+            replica.setDriverClassName(primary.getDriverClassName());
+            replica.setUsername(replicas.get(i).getUsername());
+            replica.setPassword(replicas.get(i).getPassword());
+            replica.setReadOnly(true);
+            configurePool(replica, database.getPool(), meterRegistry);
+            pools.add(replica);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, pools, database.getMaxReplicaLag(),
+                database.getReplicaHeartbeatInterval(), meterRegistry);
+        routing.afterPropertiesSet();
+        return new ReadReplicaDataSource(routing);
+    }
+}
@@ -14,7 +14,8 @@ public class HibernateConfig {
     public JpaVendorAdapter devhibernateJpaVendorAdapter() {
         HibernateJpaVendorAdapter hibernateJpaVendorAdapter = new HibernateJpaVendorAdapter();
         System.out.println("In Development HibernateJpaVendorAdapter");
-        hibernateJpaVendorAdapter.setShowSql(true);
+        // statements are logged through org.hibernate.SQL and the async log appender instead of stdout
+        hibernateJpaVendorAdapter.setShowSql(false);
         hibernateJpaVendorAdapter.setGenerateDdl(true);
         return hibernateJpaVendorAdapter;
     }
@@ -32,7 +33,8 @@ public class HibernateConfig {
     public JpaVendorAdapter testhibernateJpaVendorAdapter() {
         HibernateJpaVendorAdapter hibernateJpaVendorAdapter = new HibernateJpaVendorAdapter();
         System.out.println("In Testing HibernateJpaVendorAdapter");
-        hibernateJpaVendorAdapter.setShowSql(true);
+        // statements are logged through org.hibernate.SQL and the async log appender instead of stdout
+        hibernateJpaVendorAdapter.setShowSql(false);
         hibernateJpaVendorAdapter.setGenerateDdl(true);
         return hibernateJpaVendorAdapter;
     }
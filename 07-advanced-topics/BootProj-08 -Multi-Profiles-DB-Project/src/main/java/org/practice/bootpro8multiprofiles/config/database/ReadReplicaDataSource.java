@@ -0,0 +1,52 @@
+package org.practice.bootpro8multiprofiles.config.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hands out connections that only reach the database on their first statement. By then the
+ * transaction manager has called {@code setReadOnly(true)} on connections for read-only
+ * transactions, and those are taken from {@link ReplicaRoutingDataSource#getReadOnlyDataSource()};
+ * all others come from the primary.
+ */
+public class ReadReplicaDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaDataSource.class);
+    private final ReplicaRoutingDataSource routing;
+
+    public ReadReplicaDataSource(ReplicaRoutingDataSource routing) {
+        this.routing = routing;
+        setTargetDataSource(routing);
+        setReadOnlyDataSource(routing.getReadOnlyDataSource());
+        afterPropertiesSet();
+    }
+
+    public ReplicaRoutingDataSource getRouting() {
+        return routing;
+    }
+
+    /**
+     * Reads the default auto-commit and isolation from the primary pool itself, so the lookup is
+     * not counted as a routed connection.
+     */
+    @Override
+    public void checkDefaultConnectionProperties() {
+        if (defaultAutoCommit() != null && defaultTransactionIsolation() != null) {
+            return;
+        }
+        try (Connection con = routing.getPrimary().getConnection()) {
+            checkDefaultConnectionProperties(con);
+        } catch (SQLException e) {
+            logger.debug("Could not read the default connection settings of the primary", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        routing.close();
+    }
+}
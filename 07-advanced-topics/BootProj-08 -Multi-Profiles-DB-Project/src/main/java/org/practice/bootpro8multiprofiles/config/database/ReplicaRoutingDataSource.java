@@ -0,0 +1,269 @@
+package org.practice.bootpro8multiprofiles.config.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out primary connections, and through {@link #getReadOnlyDataSource()} connections to the
+ * replicas in turn. Use it behind {@link ReadReplicaDataSource}, which takes the read-only one for
+ * connections the transaction manager marked read-only.
+ * <p>
+ * Replica lag is measured with a heartbeat: the primary's replication_heartbeat row (see
+ * {@value #HEARTBEAT_SCHEMA}, applied with the rest of the schema) is stamped every interval, and
+ * before each new stamp every replica's copy is read back. A replica is as far behind as the oldest
+ * stamp it has not received yet. One that is further behind than the allowed lag, or cannot be
+ * reached, is skipped until it catches up; with none left, read-only work goes to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+    public static final String PRIMARY = "primary";
+    public static final String HEARTBEAT_SCHEMA = "db/replication-heartbeat.sql";
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String UPDATE_HEARTBEAT = "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1";
+    private static final String INSERT_HEARTBEAT = "INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, ?)";
+    private static final String SELECT_HEARTBEAT = "SELECT beat_at FROM replication_heartbeat WHERE id = 1";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final Duration heartbeatInterval;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final Counter fallbacks;
+    private final DataSource readOnlyDataSource = new ReplicaDataSource();
+    /**
+     * Heartbeats written within the allowed lag, oldest first.
+     */
+    private final Deque<Long> stamps = new ArrayDeque<>();
+    private boolean stampsDropped;
+    private ScheduledExecutorService monitor;
+
+    /**
+     * @param heartbeatInterval how often lag is measured, shorter than {@code maxLag}; zero leaves it
+     *                          to {@link #refreshReplicaLag()}
+     * @param registry          receives pool and routing metrics; may be {@code null}
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools, Duration maxLag,
+                                    Duration heartbeatInterval, MeterRegistry registry) {
+        if (!heartbeatInterval.isZero() && heartbeatInterval.compareTo(maxLag) >= 0) {
+            throw new IllegalArgumentException("app.datasource.max-replica-lag must be longer than replica-heartbeat-interval");
+        }
+        this.primary = primary;
+        this.maxLag = maxLag;
+        this.heartbeatInterval = heartbeatInterval;
+        bindPoolMetrics(primary, registry);
+        for (HikariDataSource pool : replicaPools) {
+            replicas.add(new Replica(pool, registry));
+        }
+        primaryConnections = registry == null ? null : Counter.builder("datasource.routing.connections")
+                .tag("target", PRIMARY).register(registry);
+        fallbacks = registry == null ? null : Counter.builder("datasource.routing.fallbacks")
+                .description("Read-only connections sent to the primary because no replica was healthy").register(registry);
+    }
+
+    /**
+     * Starts the heartbeat; the first lag is measured one interval after the first stamp.
+     */
+    public void afterPropertiesSet() {
+        if (!heartbeatInterval.isZero()) {
+            writeHeartbeat();
+            monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-lag-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = heartbeatInterval.toMillis();
+            monitor.scheduleWithFixedDelay(this::refreshReplicaLag, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        increment(primaryConnections);
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        increment(primaryConnections);
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Connections to the next healthy replica, or to the primary when none is.
+     */
+    public DataSource getReadOnlyDataSource() {
+        return readOnlyDataSource;
+    }
+
+    HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Reads the heartbeat back from every replica, then stamps a new one on the primary.
+     */
+    public synchronized void refreshReplicaLag() {
+        long now = System.currentTimeMillis();
+        for (Replica replica : replicas) {
+            replica.measure(now);
+        }
+        writeHeartbeat();
+    }
+
+    private synchronized void writeHeartbeat() {
+        long now = System.currentTimeMillis();
+        try (Connection con = primary.getConnection(); PreparedStatement update = con.prepareStatement(UPDATE_HEARTBEAT)) {
+            update.setLong(1, now);
+            if (update.executeUpdate() == 0) {
+                try (PreparedStatement insert = con.prepareStatement(INSERT_HEARTBEAT)) {
+                    insert.setLong(1, now);
+                    insert.executeUpdate();
+                }
+            }
+            if (!con.getAutoCommit()) {
+                con.commit();
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not write the replication heartbeat: {}", e.getMessage());
+            return;
+        }
+        stamps.addLast(now);
+        while (stamps.size() > 1 && stamps.peekFirst() < now - maxLag.toMillis()) {
+            stamps.removeFirst();
+            stampsDropped = true;
+        }
+    }
+
+    /**
+     * How long ago the oldest stamp newer than {@code beatAt} was written: the replica has not
+     * seen anything since. Older than every stamp still kept, the stamp's own age is used.
+     */
+    private long lagSince(long beatAt, long now) {
+        for (long stamp : stamps) {
+            if (stamp > beatAt) {
+                return stampsDropped && stamp == stamps.peekFirst() ? now - beatAt : now - stamp;
+            }
+        }
+        return stamps.isEmpty() ? Math.max(0, now - beatAt) : 0;
+    }
+
+    public boolean isReplicaHealthy(String poolName) {
+        return replicas.stream().anyMatch(replica -> replica.pool.getPoolName().equals(poolName) && replica.healthy);
+    }
+
+    @Override
+    public void close() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+        primary.close();
+    }
+
+    /**
+     * Pools behind the router are not seen by Spring Boot's pool metrics; pools that already
+     * report through a metrics tracker, such as those managed by {@link AdaptivePoolSizer}, are
+     * left as they are.
+     */
+    private static void bindPoolMetrics(HikariDataSource pool, MeterRegistry registry) {
+        if (registry != null && pool.getMetricRegistry() == null && pool.getMetricsTrackerFactory() == null) {
+            pool.setMetricRegistry(registry);
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private class ReplicaDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return choose().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return choose().getConnection(username, password);
+        }
+
+        private DataSource choose() {
+            int size = replicas.size();
+            if (size > 0) {
+                int start = Math.floorMod(next.getAndIncrement(), size);
+                for (int i = 0; i < size; i++) {
+                    Replica replica = replicas.get((start + i) % size);
+                    if (replica.healthy) {
+                        increment(replica.connections);
+                        return replica.pool;
+                    }
+                }
+                increment(fallbacks);
+            }
+            increment(primaryConnections);
+            return primary;
+        }
+    }
+
+    private class Replica {
+        private final HikariDataSource pool;
+        private final Counter connections;
+        private volatile boolean healthy = true;
+        private volatile long lagMillis;
+
+        Replica(HikariDataSource pool, MeterRegistry registry) {
+            this.pool = pool;
+            bindPoolMetrics(pool, registry);
+            if (registry != null) {
+                connections = Counter.builder("datasource.routing.connections").tag("target", pool.getPoolName()).register(registry);
+                Gauge.builder("datasource.replica.lag", this, replica -> replica.lagMillis)
+                        .tag("pool", pool.getPoolName()).baseUnit("milliseconds").register(registry);
+                Gauge.builder("datasource.replica.healthy", this, replica -> replica.healthy ? 1 : 0)
+                        .tag("pool", pool.getPoolName()).register(registry);
+            } else {
+                connections = null;
+            }
+        }
+
+        void measure(long now) {
+            boolean wasHealthy = healthy;
+            try (Connection con = pool.getConnection(); PreparedStatement select = con.prepareStatement(SELECT_HEARTBEAT);
+                 ResultSet rs = select.executeQuery()) {
+                lagMillis = rs.next() ? lagSince(rs.getLong(1), now) : Long.MAX_VALUE;
+                healthy = lagMillis <= maxLag.toMillis();
+            } catch (SQLException e) {
+                lagMillis = Long.MAX_VALUE;
+                healthy = false;
+            }
+            if (wasHealthy != healthy) {
+                logger.warn("Replica {} is {} (lag {} ms)", pool.getPoolName(), healthy ? "back in rotation" : "out of rotation",
+                        lagMillis == Long.MAX_VALUE ? "unknown" : lagMillis);
+            }
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package org.practice.bootpro8multiprofiles.config.logging;
 
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
@@ -9,6 +14,29 @@ import org.springframework.context.annotation.Profile;
 public class LoggingConfig {
     private static final Logger logger = LoggerFactory.getLogger(LoggingConfig.class);
 
+    /**
+     * logging.async.queue.remaining and logging.async.dropped for each {@link RingBufferAppender} on the
+     * root logger (see logback-spring.xml).
+     */
+    @Bean
+    public MeterBinder asyncLoggingMetrics() {
+        return registry -> {
+            if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+                return;
+            }
+            context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders().forEachRemaining(appender -> {
+                if (appender instanceof RingBufferAppender ringBuffer) {
+                    Gauge.builder("logging.async.queue.remaining", ringBuffer, RingBufferAppender::getRemainingCapacity)
+                            .description("Free slots in the log event queue")
+                            .tag("appender", ringBuffer.getName()).register(registry);
+                    FunctionCounter.builder("logging.async.dropped", ringBuffer, RingBufferAppender::getDroppedCount)
+                            .description("Log events discarded because the queue was full")
+                            .tag("appender", ringBuffer.getName()).register(registry);
+                }
+            });
+        };
+    }
+
     @Configuration
     @Profile("dev")
     public static class DevLoggingConfig {
@@ -33,7 +61,7 @@ public class LoggingConfig {
     public static class TestLoggingConfig {
         public TestLoggingConfig() {
             logger.info("Initializing Testing Logging Configuration");
-            System.setProperty("spring.profiles.active", "prod");
+            System.setProperty("spring.profiles.active", "test");
             System.setProperty("logging.level.org.springframework", "INFO");
         }
     }
@@ -0,0 +1,89 @@
+package org.practice.bootpro8multiprofiles.config.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback's {@link AsyncAppender}, a bounded array queue drained into the attached appenders by a
+ * background thread, with the overflow policy as a single setting:
+ * <ul>
+ *     <li>drop - the logging thread never waits. DEBUG and INFO events are discarded once the queue
+ *     is 80% full, and everything once it is full; discarded events are counted.</li>
+ *     <li>block - nothing is discarded; the logging thread waits for room in a full queue.</li>
+ * </ul>
+ * The background thread takes everything queued as one batch, so up to twice queue-size events can
+ * be held in memory.
+ * <p>
+ * With async off, events go straight to the attached appenders on the logging thread, as they
+ * would without this appender; that is there to compare the two. It can be switched while running;
+ * events already queued are still written by the background thread.
+ * <p>
+ * Configured from app.logging.async.* in logback-spring.xml.
+ */
+public class RingBufferAppender extends AsyncAppender {
+    public enum Overflow {
+        DROP, BLOCK
+    }
+
+    private volatile boolean async = true;
+    private Overflow overflow = Overflow.DROP;
+    private final LongAdder dropped = new LongAdder();
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * drop or block, in any case.
+     */
+    public void setOverflow(String overflow) {
+        this.overflow = Overflow.valueOf(overflow.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Events discarded because the queue was (nearly) full.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void start() {
+        if (overflow == Overflow.BLOCK) {
+            setNeverBlock(false);
+            setDiscardingThreshold(0);
+        } else {
+            setNeverBlock(true);
+        }
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (!async) {
+            for (Iterator<Appender<ILoggingEvent>> appenders = iteratorForAppenders(); appenders.hasNext(); ) {
+                appenders.next().doAppend(event);
+            }
+            return;
+        }
+        // the queue can change between this check and super.append, so the count is close, not exact
+        if (overflow == Overflow.DROP
+                && (getRemainingCapacity() == 0 || (isQueueBelowDiscardingThreshold() && isDiscardable(event)))) {
+            dropped.increment();
+        }
+        super.append(event);
+    }
+}
@@ -0,0 +1,78 @@
+package org.practice.bootpro8multiprofiles.config.observability;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Adds the time each request waits for a pooled connection, and any connection timeouts, to its
+ * {@link RequestSqlStats}. Hikari reports an acquisition on the thread that asked for the connection,
+ * so it is charged to the request on that thread.
+ * <p>
+ * Everything is passed on to the pool's existing metrics tracker, or to the usual hikaricp.* meters
+ * when the pool has none: setting a tracker factory stops Spring Boot from installing its own.
+ */
+public final class ConnectionWaitTracker implements MetricsTrackerFactory {
+    private final MetricsTrackerFactory delegate;
+
+    private ConnectionWaitTracker(MetricsTrackerFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Must be called before the pool hands out its first connection, after anything else that sets
+     * a tracker factory on it.
+     *
+     * @param registry receives the hikaricp.* meters if the pool has no tracker yet; may be {@code null}
+     */
+    public static void install(HikariDataSource pool, MeterRegistry registry) {
+        MetricsTrackerFactory delegate = pool.getMetricsTrackerFactory();
+        if (delegate == null) {
+            delegate = registry != null ? new MicrometerMetricsTrackerFactory(registry) : (poolName, poolStats) -> new IMetricsTracker() {
+            };
+        }
+        pool.setMetricsTrackerFactory(new ConnectionWaitTracker(delegate));
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        IMetricsTracker tracker = delegate.create(poolName, poolStats);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                tracker.recordConnectionCreatedMillis(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                RequestSqlStats stats = RequestSqlStats.current();
+                if (stats != null) {
+                    stats.connectionAcquired(elapsedAcquiredNanos);
+                }
+                tracker.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                tracker.recordConnectionUsageMillis(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                RequestSqlStats stats = RequestSqlStats.current();
+                if (stats != null) {
+                    stats.connectionTimedOut();
+                }
+                tracker.recordConnectionTimeout();
+            }
+
+            @Override
+            public void close() {
+                tracker.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package org.practice.bootpro8multiprofiles.config.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Per-endpoint latency and SQL metrics, served under /actuator/metrics:
+ * <ul>
+ *     <li>http.server.requests - latency histogram per endpoint (percentile buckets switched on in
+ *     application.properties)</li>
+ *     <li>http.server.requests.sql.statements and http.server.requests.sql.time - see
+ *     {@link RequestInstrumentationFilter}</li>
+ * </ul>
+ * The slow-request threshold and log sample rate are set per profile in application.properties.
+ */
+@Configuration
+public class ObservabilityConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ObservabilityConfig.class);
+
+    @Bean
+    public FilterRegistrationBean<RequestInstrumentationFilter> requestInstrumentationFilter(MeterRegistry meterRegistry,
+                                                                                           @Value("${app.observability.slow-request-threshold:500ms}") Duration slowThreshold,
+                                                                                           @Value("${app.observability.slow-request-sample-rate:1.0}") double slowSampleRate) {
+        logger.info("Logging requests slower than {} ms, sample rate {}", slowThreshold.toMillis(), slowSampleRate);
+        FilterRegistrationBean<RequestInstrumentationFilter> registration =
+                new FilterRegistrationBean<>(new RequestInstrumentationFilter(meterRegistry, slowThreshold, slowSampleRate));
+        // outside Spring Security, so rejected requests and the security chain are included
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
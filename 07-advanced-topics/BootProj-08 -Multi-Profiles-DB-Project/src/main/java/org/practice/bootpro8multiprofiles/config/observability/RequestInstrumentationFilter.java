@@ -0,0 +1,94 @@
+package org.practice.bootpro8multiprofiles.config.observability;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL each request runs, per endpoint, next to the http.server.requests latency
+ * histogram the actuator keeps:
+ * <ul>
+ *     <li>http.server.requests.sql.statements - statements executed per request</li>
+ *     <li>http.server.requests.sql.time - time spent executing them per request</li>
+ * </ul>
+ * Both are tagged with the method and the mapped URI pattern, like http.server.requests; requests
+ * that match no handler are not recorded. Requests slower than the threshold are logged with their
+ * SQL figures, a sampled fraction of them when the sample rate is below 1.
+ * <p>
+ * Only work on the request thread is counted, so a streamed response such as /users/stream is
+ * measured until the stream is handed to the async executor.
+ */
+public class RequestInstrumentationFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RequestInstrumentationFilter.class);
+
+    private final MeterRegistry registry;
+    private final Duration slowThreshold;
+    private final double slowSampleRate;
+    private final Map<String, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+    public RequestInstrumentationFilter(MeterRegistry registry, Duration slowThreshold, double slowSampleRate) {
+        this.registry = registry;
+        this.slowThreshold = slowThreshold;
+        this.slowSampleRate = slowSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        RequestSqlStats stats = RequestSqlStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestSqlStats.end();
+            long nanos = System.nanoTime() - start;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                EndpointMeters endpoint = meters.computeIfAbsent(request.getMethod() + " " + pattern,
+                        key -> new EndpointMeters(registry, request.getMethod(), pattern.toString()));
+                endpoint.statements.record(stats.getStatements());
+                endpoint.sqlTime.record(stats.getNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (nanos >= slowThreshold.toNanos() && sampled()) {
+                logger.warn("Slow request {} {} took {} ms (status {}, {} SQL statements in {} ms)",
+                        request.getMethod(), pattern != null ? pattern : request.getRequestURI(),
+                        nanos / 1_000_000, response.getStatus(), stats.getStatements(), stats.getNanos() / 1_000_000);
+            }
+        }
+    }
+
+    private boolean sampled() {
+        return slowSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < slowSampleRate;
+    }
+
+    private static final class EndpointMeters {
+        private final DistributionSummary statements;
+        private final Timer sqlTime;
+
+        private EndpointMeters(MeterRegistry registry, String method, String uri) {
+            this.statements = DistributionSummary.builder("http.server.requests.sql.statements")
+                    .description("SQL statements executed per request")
+                    .tags("method", method, "uri", uri)
+                    .register(registry);
+            this.sqlTime = Timer.builder("http.server.requests.sql.time")
+                    .description("Time per request spent executing SQL")
+                    .tags("method", method, "uri", uri)
+                    .register(registry);
+        }
+    }
+}
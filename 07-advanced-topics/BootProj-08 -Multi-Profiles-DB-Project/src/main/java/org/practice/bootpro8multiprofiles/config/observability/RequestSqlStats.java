@@ -0,0 +1,82 @@
+package org.practice.bootpro8multiprofiles.config.observability;
+
+/**
+ * SQL statements executed and time spent executing them for the request on the current thread, and
+ * time spent waiting for pooled connections. {@link RequestInstrumentationFilter} opens the stats for a
+ * request, {@link SqlTimingSessionListener} and {@link ConnectionWaitTracker} add to them; work done
+ * outside a request, or on another thread, is not counted.
+ */
+public final class RequestSqlStats {
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+    private long executeStart;
+    private long connectionWaitNanos;
+    private int connectionTimeouts;
+
+    private RequestSqlStats() {
+    }
+
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * The stats of the request on this thread, or {@code null} outside a request.
+     */
+    public static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    void executeStarted() {
+        executeStart = System.nanoTime();
+    }
+
+    void executeEnded() {
+        if (executeStart != 0) {
+            nanos += System.nanoTime() - executeStart;
+            executeStart = 0;
+            statements++;
+        }
+    }
+
+    void connectionAcquired(long waitNanos) {
+        connectionWaitNanos += waitNanos;
+    }
+
+    void connectionTimedOut() {
+        connectionTimeouts++;
+    }
+
+    /**
+     * Statement and batch executions; a JDBC batch of inserts counts once.
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Time spent waiting for the connections the pool handed out.
+     */
+    public long getConnectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+
+    /**
+     * Connection requests that gave up after the pool's connection-timeout.
+     */
+    public int getConnectionTimeouts() {
+        return connectionTimeouts;
+    }
+}
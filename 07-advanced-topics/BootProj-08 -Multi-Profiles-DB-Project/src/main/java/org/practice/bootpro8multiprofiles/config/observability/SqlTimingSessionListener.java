@@ -0,0 +1,37 @@
+package org.practice.bootpro8multiprofiles.config.observability;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Times every JDBC statement and batch Hibernate executes into the current {@link RequestSqlStats}.
+ * Hibernate creates one listener per session from hibernate.session.events.auto, set in
+ * application.properties.
+ */
+public class SqlTimingSessionListener implements SessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.executeStarted();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.executeEnded();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        jdbcExecuteStatementStart();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        jdbcExecuteStatementEnd();
+    }
+}
@@ -6,13 +6,18 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Getter
 @Setter
 @Configuration
 @ConfigurationProperties(prefix = "app")
 public class ApplicationPropertiesConfig {
-    private DatabaseProperties datasource;
+    private DatabaseProperties datasource = new DatabaseProperties();
     private ServerProperties server;
+    private AdmissionProperties admission = new AdmissionProperties();
 
     @Getter
     @Setter
@@ -20,6 +25,66 @@ public class ApplicationPropertiesConfig {
         private String url;
         private String username;
         private String password;
+        /**
+         * Read replicas of the prod database; read-only transactions are spread across them.
+         */
+        private List<DatabaseProperties> replicas = new ArrayList<>();
+        /**
+         * Replicas further behind the primary than this are taken out of rotation.
+         */
+        private Duration maxReplicaLag = Duration.ofSeconds(5);
+        private Duration replicaHeartbeatInterval = Duration.ofSeconds(1);
+        private PoolProperties pool = new PoolProperties();
+    }
+
+    @Getter
+    @Setter
+    public static class PoolProperties {
+        private int maximumPoolSize = 10;
+        /**
+         * Defaults to maximum-pool-size, i.e. a fixed-size pool.
+         */
+        private Integer minimumIdle;
+        private Duration connectionTimeout = Duration.ofSeconds(30);
+        private AdaptivePoolProperties adaptive = new AdaptivePoolProperties();
+    }
+
+    @Getter
+    @Setter
+    public static class AdaptivePoolProperties {
+        /**
+         * Resize the pool between min-size and max-size to keep the mean connection acquire time near
+         * target-acquire-time; maximum-pool-size is then only the starting size.
+         */
+        private boolean enabled;
+        private int minSize = 2;
+        private int maxSize = 30;
+        private Duration targetAcquireTime = Duration.ofMillis(10);
+        private Duration sampleInterval = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class AdmissionProperties {
+        /**
+         * Limit the requests in flight per endpoint class, rejecting the excess with 503, and adapt
+         * each limit to the time requests wait for a database connection.
+         */
+        private boolean enabled;
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        /**
+         * Streams and imports hold a connection for their whole run; their limit never goes above this.
+         */
+        private int bulkMaxLimit = 4;
+        /**
+         * A request that waited longer than this for connections, or timed out waiting, cuts its
+         * class's limit by backoff-ratio.
+         */
+        private Duration targetConnectionWait = Duration.ofMillis(5);
+        private double backoffRatio = 0.9;
+        private Duration retryAfter = Duration.ofSeconds(1);
     }
 
     @Getter
@@ -0,0 +1,26 @@
+package org.practice.bootpro8multiprofiles.config.startup;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.practice.bootpro8multiprofiles.config.threading.VirtualThreadPinningMonitor;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.web.SecurityFilterChain;
+
+import javax.sql.DataSource;
+
+/**
+ * With spring.main.lazy-initialization=true (the fast-start mode, see gradle/startup.gradle) beans
+ * are created on first use. The ones a first request would otherwise wait for, and the pinning
+ * monitor that nothing else depends on, are still created at startup.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, EntityManagerFactory.class,
+                CacheManager.class, SecurityFilterChain.class, VirtualThreadPinningMonitor.class);
+    }
+}
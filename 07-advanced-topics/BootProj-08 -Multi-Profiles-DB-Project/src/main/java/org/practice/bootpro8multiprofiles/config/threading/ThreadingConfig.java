@@ -0,0 +1,34 @@
+package org.practice.bootpro8multiprofiles.config.threading;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Request threads follow spring.threads.virtual.enabled, which each profile sets in
+ * application.properties. With it on, Tomcat serves requests on virtual threads and the
+ * applicationTaskExecutor behind async MVC responses such as /users/stream starts a virtual
+ * thread per task.
+ */
+@Configuration
+public class ThreadingConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(@Value("${app.threads.pinned-threshold:20ms}") Duration threshold,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        logger.info("Serving requests on virtual threads; reporting pinning over {} ms", threshold.toMillis());
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(threshold, meterRegistry.getIfAvailable());
+        monitor.start();
+        return monitor;
+    }
+}
@@ -0,0 +1,114 @@
+package org.practice.bootpro8multiprofiles.config.threading;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, typically by blocking inside a
+ * {@code synchronized} block or a native call, for longer than the threshold. The JFR
+ * jdk.VirtualThreadPinned event is consumed in-process from a {@link RecordingStream}.
+ * <p>
+ * Every pinned interval is recorded in the jvm.threads.virtual.pinned timer. The first time a
+ * code location pins, its stack is logged as a warning; after that it is only counted in
+ * {@link #getPinnedSites()}.
+ */
+public class VirtualThreadPinningMonitor implements Closeable {
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final int MAX_SITES = 100;
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    /**
+     * @param registry receives the pinned timer; may be {@code null}
+     */
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry registry) {
+        this.threshold = threshold;
+        this.pinned = registry == null ? null : Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent pinned to their carrier thread").register(registry);
+    }
+
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    /**
+     * Pinned events seen so far, keyed by the first application frame (or the top frame when the
+     * whole stack is in the JDK).
+     */
+    public Map<String, Long> getPinnedSites() {
+        return sites.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, site -> site.getValue().sum()));
+    }
+
+    @Override
+    public void close() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        if (pinned != null) {
+            pinned.record(event.getDuration());
+        }
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String site = site(frames);
+        LongAdder count = sites.get(site);
+        if (count == null && sites.size() < MAX_SITES) {
+            LongAdder added = new LongAdder();
+            count = sites.putIfAbsent(site, added);
+            if (count == null) {
+                count = added;
+                logger.warn("Virtual thread #{} pinned its carrier for {} ms at {}{}", event.getThread() == null ? "?" : event.getThread().getJavaThreadId(),
+                        event.getDuration().toMillis(), site, describe(event.getStackTrace()));
+            }
+        }
+        if (count != null) {
+            count.increment();
+        }
+    }
+
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return location(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : location(frames.get(0));
+    }
+
+    private static String location(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        stackTrace.getFrames().stream().limit(LOGGED_FRAMES).forEach(frame -> text.append("\n\tat ").append(location(frame)));
+        return text.toString();
+    }
+}
@@ -1,18 +1,32 @@
 package org.practice.bootpro8multiprofiles.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
+import org.practice.bootpro8multiprofiles.Service.UserImportService;
 import org.practice.bootpro8multiprofiles.Service.UserService;
 import org.practice.bootpro8multiprofiles.model.UserDetails;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RequiredArgsConstructor
 @RestController
 public class UserController {
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
     @Value("${spring.profiles.active}")
     private  String activeProfile;
@@ -22,18 +36,78 @@ public class UserController {
         return userService.createUser(user);
     }
 
+    /**
+     * Answers If-None-Match with 304 from the cache version alone, without loading or serializing
+     * the list.
+     */
     @GetMapping("/profile")
-    public List<UserDetails> getUserByProfile(){
+    public List<UserDetails> getUserByProfile(WebRequest request){
+        if (request.checkNotModified(userService.getUserByProfileETag())) {
+            return null;
+        }
         return userService.getUserByProfile();
     }
 
+    /**
+     * Keyset page of the active profile's users; pass the last id returned as afterId.
+     */
+    @GetMapping("/profile/page")
+    public List<UserDetails> getUsersByProfilePage(@RequestParam(defaultValue = "0") long afterId,
+                                                   @RequestParam(defaultValue = "100") int limit){
+        return userService.getUsersByProfileAfter(afterId, limit);
+    }
+
+    /**
+     * Keyset page of all users; pass the last id returned as afterId.
+     */
+    @GetMapping("/users")
+    public List<UserDetails> getUsers(@RequestParam(defaultValue = "0") long afterId,
+                                      @RequestParam(defaultValue = "100") int limit){
+        return userService.getUsersAfter(afterId, limit);
+    }
+
+    /**
+     * All users as newline-delimited JSON, written while the database cursor advances.
+     */
+    @GetMapping(value = "/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(){
+        ObjectWriter writer = objectMapper.writerFor(UserDetails.class);
+        StreamingResponseBody body = out -> {
+            BufferedOutputStream buffered = new BufferedOutputStream(out, 16 * 1024);
+            userService.streamAllUsers(user -> {
+                try {
+                    buffered.write(writer.writeValueAsBytes(user));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            buffered.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Imports users sent as newline-delimited JSON, the format of /users/stream. The body is read
+     * as it arrives, so files of any size can be posted.
+     */
+    @PostMapping(value = "/users/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public UserImportService.ImportResult importUsers(HttpServletRequest request) throws IOException {
+        try (MappingIterator<UserDetails> users = objectMapper.readerFor(UserDetails.class).readValues(request.getInputStream())) {
+            return userImportService.importUsers(users);
+        }
+    }
+
     @GetMapping("/active-profile")
     public String getActiveProfile(){
         return "Active Profile : "+activeProfile;
     }
 
     @GetMapping("/{username}")
-    public UserDetails getUserByUsername(@PathVariable String username){
+    public UserDetails getUserByUsername(@PathVariable String username, WebRequest request){
+        if (request.checkNotModified(userService.getUserByUsernameETag(username))) {
+            return null;
+        }
         return userService.getUserByUsername(username);
     }
 
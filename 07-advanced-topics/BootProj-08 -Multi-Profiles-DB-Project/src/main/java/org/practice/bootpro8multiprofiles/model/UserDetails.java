@@ -5,21 +5,31 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
+
 @Data
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "users")
-public class UserDetails {
+// user_name and email are looked up through their unique indexes; findByProfile and the
+// profile keyset pages through (profile, id)
+@Table(name = "users", indexes = @Index(name = "idx_users_profile_id", columnList = "profile, id"))
+public class UserDetails implements Serializable {
+    /**
+     * Ids are handed out in blocks of 50 from users_seq (a table on MySQL), one round trip per
+     * block; with hibernate.id.optimizer.pooled.preferred=pooled-lo the value read is the block's
+     * first id. The block matches hibernate.jdbc.batch_size.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique=true,nullable=false)
     private String userName;
     @Column(unique=true,nullable=false)
     private String email;
-    @Column(unique=true,nullable=false)
+    @Column(nullable=false)
     private String profile;
 
 
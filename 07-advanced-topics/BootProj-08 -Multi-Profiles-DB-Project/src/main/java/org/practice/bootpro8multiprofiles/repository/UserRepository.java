@@ -1,14 +1,41 @@
-package org.practice.bootpro8multiprofiles.repository;
-
-import org.practice.bootpro8multiprofiles.model.UserDetails;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.List;
-
-@Repository
-public interface UserRepository extends JpaRepository<UserDetails, Long> {
-    List<UserDetails> findByProfile(String profile);
-    UserDetails findByUserName(String userName);
-    UserDetails findByEmail(String email);
+package org.practice.bootpro8multiprofiles.repository;
+
+import jakarta.persistence.QueryHint;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Query methods run in read-only transactions, so with read replicas configured they are served by
+ * a replica; the inherited write methods keep their read-write transactions.
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<UserDetails, Long> {
+    List<UserDetails> findByProfile(String profile);
+    UserDetails findByUserName(String userName);
+    UserDetails findByEmail(String email);
+
+    /**
+     * Keyset page: the next {@code limit} users after {@code lastId}, in id order.
+     */
+    List<UserDetails> findByIdGreaterThanOrderByIdAsc(Long lastId, Limit limit);
+    List<UserDetails> findByProfileAndIdGreaterThanOrderByIdAsc(String profile, Long lastId, Limit limit);
+
+    /**
+     * Every user in id order through one cursor. Must be consumed and closed inside a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select u from UserDetails u order by u.id")
+    Stream<UserDetails> streamAllByOrderByIdAsc();
 }
\ No newline at end of file
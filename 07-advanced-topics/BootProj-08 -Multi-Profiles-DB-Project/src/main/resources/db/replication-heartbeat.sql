@@ -0,0 +1,3 @@
+-- Replica lag heartbeat (ReplicaRoutingDataSource). Apply to the primary; it reaches the replicas through replication.
+CREATE TABLE replication_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL);
+INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, 0);
@@ -0,0 +1,123 @@
+package org.practice.bootpro8multiprofiles.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.practice.bootpro8multiprofiles.config.cache.CacheConfig;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.practice.bootpro8multiprofiles.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UserServiceCachingTests {
+	private static final int REQUESTS = 20;
+
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CacheManager cacheManager;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@LocalServerPort
+	private int port;
+
+	@BeforeEach
+	void setUp() {
+		userRepository.deleteAll();
+		cacheManager.getCache(CacheConfig.USERS).clear();
+		cacheManager.getCache(CacheConfig.PROFILES).clear();
+	}
+
+	@Test
+	void createdUserIsServedFromTheCache() {
+		userService.createUser(user("alice"));
+		double hits = cacheGets(CacheConfig.USERS, "hit");
+
+		assertEquals("alice@example.com", userService.getUserByUsername("alice").getEmail());
+		assertEquals(hits + 1, cacheGets(CacheConfig.USERS, "hit"));
+	}
+
+	@Test
+	void createUserInvalidatesTheProfileList() {
+		assertTrue(userService.getUserByProfile().isEmpty());
+		assertTrue(userService.getUserByProfile().isEmpty());
+
+		userService.createUser(user("alice"));
+
+		assertEquals(1, userService.getUserByProfile().size());
+	}
+
+	@Test
+	void unknownUsersAreNotCached() {
+		assertNull(userService.getUserByUsername("nobody"));
+		assertNull(cacheManager.getCache(CacheConfig.USERS).get("nobody"));
+	}
+
+	@Test
+	void failedCreateLeavesTheCacheUntouched() {
+		userService.createUser(user("alice"));
+		UserDetails duplicate = user("bob");
+		duplicate.setEmail("alice@example.com");
+
+		assertThrows(Exception.class, () -> userService.createUser(duplicate));
+		assertNull(cacheManager.getCache(CacheConfig.USERS).get("bob"));
+	}
+
+	/**
+	 * GET /{username} misses once per request while the users cache is cleared before each one,
+	 * then hits on every request once it is warm.
+	 */
+	@Test
+	void lookupsOverHttpMissWhenClearedAndHitWhenWarm() throws Exception {
+		userService.createUser(user("alice"));
+		HttpClient client = HttpClient.newHttpClient();
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/alice")).build();
+
+		double misses = cacheGets(CacheConfig.USERS, "miss");
+		for (int i = 0; i < REQUESTS; i++) {
+			cacheManager.getCache(CacheConfig.USERS).clear();
+			assertOk(client, request);
+		}
+		assertEquals(misses + REQUESTS, cacheGets(CacheConfig.USERS, "miss"));
+
+		double hits = cacheGets(CacheConfig.USERS, "hit");
+		misses = cacheGets(CacheConfig.USERS, "miss");
+		for (int i = 0; i < REQUESTS; i++) {
+			assertOk(client, request);
+		}
+		assertEquals(hits + REQUESTS, cacheGets(CacheConfig.USERS, "hit"));
+		assertEquals(misses, cacheGets(CacheConfig.USERS, "miss"));
+		assertNotNull(meterRegistry.find("cache.evictions").tag("cache", CacheConfig.USERS).functionCounter());
+	}
+
+	private double cacheGets(String cache, String result) {
+		return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+	}
+
+	private static void assertOk(HttpClient client, HttpRequest request) throws Exception {
+		assertEquals(200, client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+	}
+
+	private static UserDetails user(String name) {
+		UserDetails user = new UserDetails();
+		user.setUserName(name);
+		user.setEmail(name + "@example.com");
+		return user;
+	}
+}
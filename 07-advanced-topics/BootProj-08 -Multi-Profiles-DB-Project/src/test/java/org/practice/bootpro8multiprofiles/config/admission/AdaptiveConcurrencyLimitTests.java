@@ -0,0 +1,77 @@
+package org.practice.bootpro8multiprofiles.config.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTests {
+
+	@Test
+	void admitsUpToTheLimit() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(3, 1, 10, 0.5);
+		assertTrue(limit.tryAcquire());
+		assertTrue(limit.tryAcquire());
+		assertTrue(limit.tryAcquire());
+		assertFalse(limit.tryAcquire());
+		assertEquals(3, limit.getInFlight());
+
+		limit.release(System.nanoTime(), false);
+		assertTrue(limit.tryAcquire());
+	}
+
+	@Test
+	void congestionCutsTheLimitOncePerRound() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(16, 2, 100, 0.5);
+		long started = System.nanoTime();
+		for (int i = 0; i < 8; i++) {
+			assertTrue(limit.tryAcquire());
+		}
+		for (int i = 0; i < 8; i++) {
+			limit.release(started, true);
+		}
+		assertEquals(8, limit.getLimit(), "requests in flight during the cut do not cut again");
+
+		assertTrue(limit.tryAcquire());
+		limit.release(System.nanoTime(), true);
+		assertEquals(4, limit.getLimit());
+	}
+
+	@Test
+	void limitStaysWithinBounds() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 2, 5, 0.5);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limit.tryAcquire());
+			limit.release(System.nanoTime(), true);
+		}
+		assertEquals(2, limit.getLimit());
+
+		for (int i = 0; i < 1_000; i++) {
+			while (limit.tryAcquire()) {
+			}
+			limit.release(System.nanoTime(), false);
+			limit.release(System.nanoTime(), false);
+		}
+		assertEquals(5, limit.getLimit());
+	}
+
+	@Test
+	void growsOnlyWhileTheLimitIsUsed() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, 0.5);
+		for (int i = 0; i < 1_000; i++) {
+			assertTrue(limit.tryAcquire());
+			limit.release(System.nanoTime(), false);
+		}
+		assertEquals(10, limit.getLimit(), "one request at a time does not need a larger limit");
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limit.tryAcquire());
+		}
+		for (int i = 0; i < 200; i++) {
+			limit.release(System.nanoTime(), false);
+			assertTrue(limit.tryAcquire());
+		}
+		assertTrue(limit.getLimit() > 10, "limit " + limit.getLimit());
+	}
+}
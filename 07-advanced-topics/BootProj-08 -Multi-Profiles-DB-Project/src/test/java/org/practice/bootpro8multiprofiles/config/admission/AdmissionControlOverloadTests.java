@@ -0,0 +1,173 @@
+package org.practice.bootpro8multiprofiles.config.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Overloads a 2-connection pool: 128 clients call an endpoint that holds a connection for 20 ms, so
+ * the pool can serve about 100 requests a second. Rejected clients wait as long as Retry-After asks
+ * before trying again.
+ * <p>
+ * Goodput counts the requests answered with 200 within {@link #DEADLINE_MILLIS}, the latency a
+ * caller would still wait for. With admission control the excess is turned away at once and the
+ * admitted requests barely queue; without it every request queues behind the other 127. The
+ * latency bounds depend on the machine, so the test is tagged load and runs with gradle loadTest
+ * rather than with the unit tests.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"app.admission.enabled=true",
+		"app.datasource.pool.maximum-pool-size=2",
+		"app.datasource.pool.connection-timeout=10s"})
+@Import(AdmissionControlOverloadTests.SlowEndpoint.class)
+@Tag("load")
+class AdmissionControlOverloadTests {
+	private static final int CLIENTS = 128;
+	private static final long HOLD_MILLIS = 20;
+	private static final long DEADLINE_MILLIS = 400;
+	private static final long WARMUP_MILLIS = 1_000;
+	private static final long MEASURE_MILLIS = 4_000;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void excessRequestsAreShedAndTheRestAnsweredQuickly() throws Exception {
+		Result result = overload(port);
+
+		assertEquals(0, result.errors, "no request fails other than with 503");
+		assertTrue(result.rejected > 0, "the excess is rejected");
+		assertTrue(result.retryAfterOnEveryRejection, "every 503 carries Retry-After");
+		assertTrue(result.p99Millis < DEADLINE_MILLIS, "admitted requests barely queue: " + result);
+		assertTrue(result.goodput >= 50, "at least half the pool's capacity is useful work: " + result);
+		assertTrue(meterRegistry.get("http.server.admission.limit").tag("class", "read").gauge().value() < 20,
+				"the read limit came down from its initial 20");
+		assertTrue(meterRegistry.get("http.server.admission.rejected").tag("class", "read").counter().count() > 0);
+	}
+
+	@Nested
+	@TestPropertySource(properties = "app.admission.enabled=false")
+	class WithoutAdmissionControl {
+		@LocalServerPort
+		private int port;
+
+		@Test
+		void everyRequestQueuesForAConnection() throws Exception {
+			Result result = overload(port);
+
+			assertEquals(0, result.rejected);
+			assertTrue(result.p99Millis > DEADLINE_MILLIS, "requests queue behind each other: " + result);
+			assertTrue(result.goodput < 50, "little of the work arrives within the deadline: " + result);
+		}
+	}
+
+	private static Result overload(int port) throws Exception {
+		URI uri = URI.create("http://localhost:" + port + "/overload/slow");
+		long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+		long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+		AtomicInteger rejected = new AtomicInteger();
+		AtomicInteger errors = new AtomicInteger();
+		AtomicInteger missingRetryAfter = new AtomicInteger();
+		List<List<Long>> latencies = new ArrayList<>();
+		try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+			 ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> running = new ArrayList<>();
+			for (int c = 0; c < CLIENTS; c++) {
+				List<Long> mine = new ArrayList<>();
+				latencies.add(mine);
+				running.add(clients.submit(() -> {
+					long sent;
+					while ((sent = System.nanoTime()) < end) {
+						HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+						long nanos = System.nanoTime() - sent;
+						boolean measured = sent >= measureFrom;
+						if (response.statusCode() == 200) {
+							if (measured) {
+								mine.add(nanos);
+							}
+						} else if (response.statusCode() == 503) {
+							if (measured) {
+								rejected.incrementAndGet();
+							}
+							Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+							if (retryAfter.isEmpty()) {
+								missingRetryAfter.incrementAndGet();
+							}
+							Thread.sleep(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.orElse("1"))));
+						} else {
+							errors.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> task : running) {
+				task.get(1, TimeUnit.MINUTES);
+			}
+		}
+		long[] ok = latencies.stream().flatMap(List::stream).mapToLong(Long::longValue).sorted().toArray();
+		long deadlineNanos = TimeUnit.MILLISECONDS.toNanos(DEADLINE_MILLIS);
+		long onTime = Arrays.stream(ok).filter(nanos -> nanos <= deadlineNanos).count();
+		double p99 = ok.length == 0 ? Double.NaN : ok[Math.max(0, (int) Math.ceil(ok.length * 0.99) - 1)] / 1e6;
+		return new Result(ok.length * 1000.0 / MEASURE_MILLIS, onTime * 1000.0 / MEASURE_MILLIS, p99,
+				rejected.get(), errors.get(), missingRetryAfter.get() == 0);
+	}
+
+	private record Result(double throughput, double goodput, double p99Millis, int rejected, int errors,
+						  boolean retryAfterOnEveryRejection) {
+		@Override
+		public String toString() {
+			return String.format("%.0f ok/s, goodput %.0f/s within %d ms, p99 %.0f ms, %d rejected, %d errors",
+					throughput, goodput, DEADLINE_MILLIS, p99Millis, rejected, errors);
+		}
+	}
+
+	/**
+	 * Holds a pooled connection for {@link #HOLD_MILLIS}, like a slow query.
+	 */
+	@TestConfiguration
+	@RestController
+	static class SlowEndpoint {
+		@Autowired
+		private DataSource dataSource;
+
+		@GetMapping("/overload/slow")
+		public String slow() throws SQLException, InterruptedException {
+			try (Connection connection = dataSource.getConnection()) {
+				Thread.sleep(HOLD_MILLIS);
+			}
+			return "done";
+		}
+	}
+}
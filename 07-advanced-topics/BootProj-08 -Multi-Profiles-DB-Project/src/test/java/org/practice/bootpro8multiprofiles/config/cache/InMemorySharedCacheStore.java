@@ -0,0 +1,110 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Stands in for the Redis server in tests: one instance shared by several cache managers acts as
+ * the common store and delivers every published message to every subscriber, including the sender.
+ * {@link #setAvailable(boolean) setAvailable(false)} makes every call fail as a Redis outage would,
+ * and {@link #flush()} loses every key as a restarted Redis without persistence would.
+ */
+class InMemorySharedCacheStore implements SharedCacheStore {
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+	private volatile boolean available = true;
+
+	void setAvailable(boolean available) {
+		this.available = available;
+	}
+
+	void flush() {
+		entries.clear();
+	}
+
+	@Override
+	public byte[] get(String cacheName, String key) {
+		checkAvailable();
+		Entry entry = live(entries.get(cacheName + "::" + key));
+		return entry == null ? null : entry.value;
+	}
+
+	@Override
+	public boolean putIfAbsent(String cacheName, String key, byte[] value) {
+		checkAvailable();
+		Entry stored = new Entry(value, Long.MAX_VALUE);
+		return entries.compute(cacheName + "::" + key, (k, entry) -> live(entry) == null ? stored : entry) == stored;
+	}
+
+	@Override
+	public List<byte[]> getAll(String cacheName, List<String> keys) {
+		checkAvailable();
+		return keys.stream().map(key -> {
+			Entry entry = live(entries.get(cacheName + "::" + key));
+			return entry == null ? null : entry.value;
+		}).toList();
+	}
+
+	@Override
+	public long increment(String cacheName, String key) {
+		checkAvailable();
+		Entry counter = entries.compute(cacheName + "::" + key, (k, entry) -> {
+			long value = live(entry) == null ? 0 : Long.parseLong(new String(entry.value, StandardCharsets.US_ASCII));
+			return new Entry(Long.toString(value + 1).getBytes(StandardCharsets.US_ASCII), Long.MAX_VALUE);
+		});
+		return Long.parseLong(new String(counter.value, StandardCharsets.US_ASCII));
+	}
+
+	@Override
+	public void put(String cacheName, String key, byte[] value, Duration timeToLive) {
+		checkAvailable();
+		entries.put(cacheName + "::" + key, new Entry(value, System.nanoTime() + timeToLive.toNanos()));
+	}
+
+	@Override
+	public void evict(String cacheName, String key) {
+		checkAvailable();
+		entries.remove(cacheName + "::" + key);
+	}
+
+	@Override
+	public void clear(String cacheName) {
+		checkAvailable();
+		entries.keySet().removeIf(key -> key.startsWith(cacheName + "::"));
+	}
+
+	@Override
+	public void publish(String message) {
+		checkAvailable();
+		for (Consumer<String> listener : listeners) {
+			listener.accept(message);
+		}
+	}
+
+	@Override
+	public void subscribe(Consumer<String> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void close() {
+	}
+
+	private static Entry live(Entry entry) {
+		return entry == null || entry.expiresAt < System.nanoTime() ? null : entry;
+	}
+
+	private void checkAvailable() {
+		if (!available) {
+			throw new IllegalStateException("shared store unavailable");
+		}
+	}
+
+	private record Entry(byte[] value, long expiresAt) {
+	}
+}
@@ -0,0 +1,87 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Two {@link SharedCacheVersions} over one {@link InMemorySharedCacheStore} play two application
+ * nodes; no invalidation messages are involved.
+ */
+class SharedCacheVersionsTests {
+	private InMemorySharedCacheStore server;
+	private SharedCacheVersions nodeA;
+	private SharedCacheVersions nodeB;
+
+	@BeforeEach
+	void setUp() {
+		server = new InMemorySharedCacheStore();
+		nodeA = new SharedCacheVersions(server, Duration.ofMinutes(1));
+		nodeB = new SharedCacheVersions(server, Duration.ofMinutes(1));
+	}
+
+	@Test
+	void nodesHandOutTheSameTagsAndSeeEachOthersChanges() {
+		nodeA.changed(CacheConfig.USERS, "alice");
+		String alice = nodeA.eTag(CacheConfig.USERS, "alice");
+		String users = nodeA.eTag(CacheConfig.USERS);
+		assertEquals(alice, nodeB.eTag(CacheConfig.USERS, "alice"));
+		assertEquals(users, nodeB.eTag(CacheConfig.USERS));
+
+		nodeB.changed(CacheConfig.USERS, "alice");
+		assertNotEquals(alice, nodeA.eTag(CacheConfig.USERS, "alice"));
+		assertEquals(users, nodeA.eTag(CacheConfig.USERS));
+
+		alice = nodeA.eTag(CacheConfig.USERS, "alice");
+		nodeB.changed(CacheConfig.USERS, null);
+		assertNotEquals(alice, nodeA.eTag(CacheConfig.USERS, "alice"));
+		assertNotEquals(users, nodeA.eTag(CacheConfig.USERS));
+	}
+
+	@Test
+	void entryWithoutStampMovesWithEveryChangeButNeverBackToAnOldTag() {
+		nodeA.changed(CacheConfig.USERS, "alice");
+		String bob = nodeA.eTag(CacheConfig.USERS, "bob");
+		assertEquals(bob, nodeA.eTag(CacheConfig.USERS, "bob"));
+
+		nodeA.changed(CacheConfig.USERS, "carol");
+		String changed = nodeA.eTag(CacheConfig.USERS, "bob");
+		assertNotEquals(bob, changed);
+
+		nodeA.changed(CacheConfig.USERS, "bob");
+		assertNotEquals(changed, nodeA.eTag(CacheConfig.USERS, "bob"));
+		assertNotEquals(bob, nodeA.eTag(CacheConfig.USERS, "bob"));
+	}
+
+	@Test
+	void failedChangeReplacesTheEpochForEveryNode() {
+		nodeA.changed(CacheConfig.USERS, "alice");
+		String alice = nodeB.eTag(CacheConfig.USERS, "alice");
+
+		server.setAvailable(false);
+		nodeA.changed(CacheConfig.USERS, "alice");
+		assertNull(nodeA.eTag(CacheConfig.USERS, "alice"));
+		server.setAvailable(true);
+
+		String afterOutage = nodeA.eTag(CacheConfig.USERS, "alice");
+		assertNotEquals(alice, afterOutage);
+		assertEquals(afterOutage, nodeB.eTag(CacheConfig.USERS, "alice"));
+	}
+
+	@Test
+	void lostCountersNeverRepeatATag() {
+		nodeA.changed(CacheConfig.USERS, "alice");
+		String alice = nodeA.eTag(CacheConfig.USERS, "alice");
+
+		server.flush();
+		nodeB.changed(CacheConfig.USERS, "alice");
+
+		assertNotEquals(alice, nodeA.eTag(CacheConfig.USERS, "alice"));
+		assertEquals(nodeA.eTag(CacheConfig.USERS, "alice"), nodeB.eTag(CacheConfig.USERS, "alice"));
+	}
+}
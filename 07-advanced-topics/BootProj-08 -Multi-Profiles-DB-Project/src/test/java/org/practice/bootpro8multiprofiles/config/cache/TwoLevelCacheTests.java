@@ -0,0 +1,192 @@
+package org.practice.bootpro8multiprofiles.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Two cache managers over one {@link InMemorySharedCacheStore} play two application nodes.
+ */
+class TwoLevelCacheTests {
+	private InMemorySharedCacheStore server;
+	private TwoLevelCache nodeA;
+	private TwoLevelCache nodeB;
+
+	@BeforeEach
+	void setUp() {
+		server = new InMemorySharedCacheStore();
+		nodeA = (TwoLevelCache) node(server).getCache(CacheConfig.USERS);
+		nodeB = (TwoLevelCache) node(server).getCache(CacheConfig.USERS);
+	}
+
+	@Test
+	void otherNodesReadThroughTheSharedTier() {
+		nodeA.put("alice", user("alice", "alice@example.com"));
+
+		UserDetails first = nodeB.get("alice", UserDetails.class);
+		UserDetails second = nodeB.get("alice", UserDetails.class);
+
+		assertEquals("alice@example.com", first.getEmail());
+		assertNotSame(first, nodeA.get("alice", UserDetails.class));
+		assertEquals(first, second);
+		assertEquals(1, nodeB.getSharedHits());
+		assertEquals(1, nodeB.getNearHits());
+	}
+
+	@Test
+	void writeOnOneNodeReplacesTheNearCopyOnTheOthers() {
+		nodeA.put("alice", user("alice", "old@example.com"));
+		assertEquals("old@example.com", nodeB.get("alice", UserDetails.class).getEmail());
+
+		nodeA.put("alice", user("alice", "new@example.com"));
+
+		assertEquals("new@example.com", nodeB.get("alice", UserDetails.class).getEmail());
+		nodeA.evict("alice");
+		assertNull(nodeB.get("alice"));
+	}
+
+	@Test
+	void clearReachesEveryNode() {
+		TwoLevelCacheManager managerA = node(server);
+		TwoLevelCacheManager managerB = node(server);
+		managerA.getCache(CacheConfig.PROFILES).put("test", List.of(user("alice", "alice@example.com")));
+		managerB.getCache(CacheConfig.PROFILES).get("test");
+
+		managerA.getCache(CacheConfig.PROFILES).clear();
+
+		assertNull(managerB.getCache(CacheConfig.PROFILES).get("test"));
+		assertEquals(0, ((TwoLevelCache) managerB.getCache(CacheConfig.PROFILES)).getNearSize());
+	}
+
+	@Test
+	void hitRatiosArePublishedPerTier() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		new TwoLevelCacheMeterBinderProvider().getMeterBinder(nodeB, List.of()).bindTo(registry);
+		nodeA.put("alice", user("alice", "alice@example.com"));
+
+		nodeB.get("bob");
+		for (int i = 0; i < 3; i++) {
+			nodeB.get("alice");
+		}
+
+		// 4 lookups: 2 near hits; of the 2 near misses, 1 was found in the shared tier
+		assertEquals(0.5, registry.get("cache.tier.hit.ratio").tag("cache", CacheConfig.USERS).tag("tier", "near").gauge().value());
+		assertEquals(0.5, registry.get("cache.tier.hit.ratio").tag("cache", CacheConfig.USERS).tag("tier", "shared").gauge().value());
+		assertEquals(3.0, registry.get("cache.gets").tag("cache", CacheConfig.USERS).tag("result", "hit").functionCounter().count());
+		assertEquals(1.0, registry.get("cache.gets").tag("cache", CacheConfig.USERS).tag("result", "miss").functionCounter().count());
+	}
+
+	@Test
+	void sharedTierFailuresAreMissesAndWritesKeepTheNearCopy() {
+		server.setAvailable(false);
+
+		assertNull(nodeA.get("alice"));
+		nodeA.put("alice", user("alice", "alice@example.com"));
+		assertEquals("alice@example.com", nodeA.get("alice", UserDetails.class).getEmail());
+		nodeA.evict("alice");
+		assertNull(nodeA.get("alice"));
+
+		assertEquals(2, nodeA.getMisses());
+		assertEquals(4, nodeA.getSharedErrors());
+		server.setAvailable(true);
+		assertNull(nodeB.get("alice"));
+	}
+
+	@Test
+	void concurrentMissesOnOneKeyLoadItOnce() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			List<Future<UserDetails>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> nodeA.get("alice", () -> {
+					loads.incrementAndGet();
+					release.await();
+					return user("alice", "alice@example.com");
+				})));
+			}
+			while (loads.get() == 0) {
+				Thread.onSpinWait();
+			}
+
+			// a load of another key is not held up by the one in progress
+			assertEquals("bob@example.com", nodeA.get("bob", () -> user("bob", "bob@example.com")).getEmail());
+			release.countDown();
+			for (Future<UserDetails> result : results) {
+				assertEquals("alice@example.com", result.get(5, TimeUnit.SECONDS).getEmail());
+			}
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void failedLoadIsRethrownAndNotCached() {
+		assertThrows(Cache.ValueRetrievalException.class,
+				() -> nodeA.get("alice", () -> {
+					throw new IllegalStateException("database down");
+				}));
+
+		assertEquals("alice@example.com", nodeA.get("alice", () -> user("alice", "alice@example.com")).getEmail());
+	}
+
+	@Test
+	void nearEntriesDroppedByExpiryAreReportedAndRemovedOnesAreNot() {
+		AtomicLong nanos = new AtomicLong();
+		List<String> dropped = new ArrayList<>();
+		TwoLevelCacheManager manager = new TwoLevelCacheManager(() -> Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(30)).ticker(nanos::get).executor(Runnable::run),
+				server, Duration.ofMinutes(1), CacheConfig.USERS, CacheConfig.PROFILES);
+		manager.setNearEvictionListener((cacheName, key) -> dropped.add(cacheName + "/" + key));
+		manager.afterPropertiesSet();
+		TwoLevelCache node = (TwoLevelCache) manager.getCache(CacheConfig.USERS);
+
+		node.put("alice", user("alice", "old@example.com"));
+		node.put("alice", user("alice", "new@example.com"));
+		node.put("bob", user("bob", "bob@example.com"));
+		node.evict("bob");
+		node.put("carol", user("carol", "carol@example.com"));
+		nodeA.put("carol", user("carol", "carol@example.org"));
+		node.get("carol");
+		assertEquals(List.of(), dropped);
+
+		nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+		((com.github.benmanes.caffeine.cache.Cache<?, ?>) node.getNativeCache()).cleanUp();
+
+		assertEquals(List.of("users/alice", "users/carol"), dropped.stream().sorted().toList());
+	}
+
+	private static TwoLevelCacheManager node(InMemorySharedCacheStore server) {
+		TwoLevelCacheManager manager = new TwoLevelCacheManager(() -> Caffeine.newBuilder().maximumSize(100).recordStats(),
+				server, Duration.ofMinutes(1), CacheConfig.USERS, CacheConfig.PROFILES);
+		manager.afterPropertiesSet();
+		return manager;
+	}
+
+	private static UserDetails user(String name, String email) {
+		return new UserDetails(null, name, email, "prod");
+	}
+}
@@ -0,0 +1,166 @@
+package org.practice.bootpro8multiprofiles.config.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.practice.bootpro8multiprofiles.config.properties.ApplicationPropertiesConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each sample is fed synthetic acquire times and waiting/active counts, so the sizing decisions
+ * are checked without running traffic or waiting for sampling intervals. The target acquire time
+ * is 2 ms; slow samples average 5 ms and calm ones 0.1 ms.
+ */
+class AdaptivePoolSizerTests {
+	private static final long TARGET_ACQUIRE_MILLIS = 2;
+	private static final long SLOW_NANOS = 5_000_000;
+	private static final long FAST_NANOS = 100_000;
+
+	@Test
+	void slowAcquiresGrowThePoolByTheWaitingThreadsOrAQuarter() {
+		try (HikariDataSource pool = pool(4)) {
+			AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, settings(), null);
+
+			List<Integer> sizes = new ArrayList<>();
+			sizes.add(sample(sizer, SLOW_NANOS, 12, 4));
+			sizes.add(sample(sizer, SLOW_NANOS, 2, 16));
+			for (int i = 0; i < 4; i++) {
+				sizes.add(sample(sizer, SLOW_NANOS, 0, 20));
+			}
+
+			assertEquals(List.of(16, 20, 25, 31, 32, 32), sizes);
+			assertEquals(32, pool.getMaximumPoolSize());
+			assertEquals(5.0, sizer.getMeanAcquireNanos() / 1_000_000.0);
+		}
+	}
+
+	@Test
+	void timeoutGrowsThePoolEvenWhenAcquiresAreFast() {
+		try (HikariDataSource pool = pool(4)) {
+			AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, settings(), null);
+			sizer.recordTimeout();
+
+			assertEquals(5, sample(sizer, FAST_NANOS, 0, 4));
+		}
+	}
+
+	@Test
+	void calmPoolShrinksByAnEighthFromTheThirdSampleOn() {
+		try (HikariDataSource pool = pool(32)) {
+			AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, settings(), null);
+
+			List<Integer> sizes = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				sizes.add(sample(sizer, FAST_NANOS, 0, 2));
+			}
+
+			assertEquals(List.of(32, 32, 28, 25, 22), sizes);
+		}
+	}
+
+	@Test
+	void slowSampleRestartsTheCalmCount() {
+		try (HikariDataSource pool = pool(16)) {
+			AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, settings(), null);
+
+			List<Integer> sizes = new ArrayList<>();
+			sizes.add(sample(sizer, FAST_NANOS, 0, 4));
+			sizes.add(sample(sizer, FAST_NANOS, 0, 4));
+			sizes.add(sample(sizer, SLOW_NANOS, 0, 4));
+			for (int i = 0; i < 3; i++) {
+				sizes.add(sample(sizer, FAST_NANOS, 0, 4));
+			}
+
+			assertEquals(List.of(16, 16, 20, 20, 20, 18), sizes);
+		}
+	}
+
+	@Test
+	void neverShrinksBelowTheConnectionsInUseOrTheMinimum() {
+		try (HikariDataSource pool = pool(32)) {
+			AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, settings(), null);
+			for (int i = 0; i < 2; i++) {
+				sample(sizer, FAST_NANOS, 0, 30);
+			}
+			assertEquals(30, sample(sizer, FAST_NANOS, 0, 30));
+
+			int size = 30;
+			for (int i = 0; i < 40; i++) {
+				size = sample(sizer, FAST_NANOS, 0, 0);
+			}
+			assertEquals(2, size);
+		}
+	}
+
+	@Test
+	void sizeStaysWithinBounds() {
+		try (HikariDataSource pool = pool(100)) {
+			ApplicationPropertiesConfig.AdaptivePoolProperties settings = settings();
+			settings.setMaxSize(6);
+			AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, settings, null);
+
+			assertEquals(6, pool.getMaximumPoolSize());
+			assertEquals(settings.getMinSize(), pool.getMinimumIdle());
+			assertEquals(6, sizer.resize(), "not started yet");
+		}
+	}
+
+	@Test
+	void acquiresThroughThePoolAreMeasuredAndResizesCounted() throws Exception {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		try (HikariDataSource pool = pool(4)) {
+			AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, settings(), registry);
+			pool.getConnection().close();
+			for (int i = 0; i < 10; i++) {
+				sizer.recordAcquire(SLOW_NANOS);
+			}
+
+			assertEquals(5, sizer.resize());
+			for (int i = 0; i < 3; i++) {
+				sample(sizer, FAST_NANOS, 0, 0);
+			}
+
+			assertEquals(4, pool.getMaximumPoolSize());
+			assertEquals(1, registry.get("hikaricp.connections.acquire").tag("pool", "adaptive").timer().count());
+			assertTrue(registry.get("datasource.pool.acquire.mean").tag("pool", "adaptive").gauge().value() < TARGET_ACQUIRE_MILLIS);
+			assertEquals(1.0, registry.get("datasource.pool.resizes").tag("direction", "grow").counter().count());
+			assertEquals(1.0, registry.get("datasource.pool.resizes").tag("direction", "shrink").counter().count());
+		}
+	}
+
+	/**
+	 * Records ten acquires of {@code acquireNanos} each, then takes a sample.
+	 */
+	private static int sample(AdaptivePoolSizer sizer, long acquireNanos, int waiting, int active) {
+		for (int i = 0; i < 10; i++) {
+			sizer.recordAcquire(acquireNanos);
+		}
+		return sizer.resize(waiting, active);
+	}
+
+	private static ApplicationPropertiesConfig.AdaptivePoolProperties settings() {
+		ApplicationPropertiesConfig.AdaptivePoolProperties settings = new ApplicationPropertiesConfig.AdaptivePoolProperties();
+		settings.setEnabled(true);
+		settings.setMinSize(2);
+		settings.setMaxSize(32);
+		settings.setTargetAcquireTime(Duration.ofMillis(TARGET_ACQUIRE_MILLIS));
+		settings.setSampleInterval(Duration.ZERO);
+		return settings;
+	}
+
+	private static HikariDataSource pool(int maximumPoolSize) {
+		HikariDataSource pool = new HikariDataSource();
+		pool.setPoolName("adaptive");
+		pool.setJdbcUrl("jdbc:h2:mem:adaptive-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		pool.setMaximumPoolSize(maximumPoolSize);
+		return pool;
+	}
+}
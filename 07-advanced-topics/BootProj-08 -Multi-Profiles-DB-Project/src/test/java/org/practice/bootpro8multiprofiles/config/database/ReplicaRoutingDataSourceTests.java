@@ -0,0 +1,255 @@
+package org.practice.bootpro8multiprofiles.config.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.practice.bootpro8multiprofiles.repository.UserRepository;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Separate in-memory H2 databases stand in for the primary and two replicas. Each holds one row
+ * naming itself, so a query shows where it was routed. Replication is faked by writing the
+ * heartbeat row into a replica directly.
+ */
+class ReplicaRoutingDataSourceTests {
+	private HikariDataSource primary;
+	private HikariDataSource replica1;
+	private HikariDataSource replica2;
+	private MeterRegistry registry;
+	private ReadReplicaDataSource dataSource;
+	private JdbcTemplate jdbc;
+	private TransactionTemplate readOnly;
+	private TransactionTemplate readWrite;
+
+	@BeforeEach
+	void setUp() {
+		primary = database(ReplicaRoutingDataSource.PRIMARY);
+		replica1 = database("replica-1");
+		replica2 = database("replica-2");
+		registry = new SimpleMeterRegistry();
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2),
+				Duration.ofSeconds(5), Duration.ZERO, registry);
+		routing.afterPropertiesSet();
+		dataSource = new ReadReplicaDataSource(routing);
+		jdbc = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		readWrite = new TransactionTemplate(transactionManager);
+	}
+
+	@AfterEach
+	void tearDown() {
+		dataSource.close();
+	}
+
+	@Test
+	void readOnlyTransactionsAreSpreadOverTheReplicas() {
+		String first = readOnly.execute(status -> whereAmI());
+		String second = readOnly.execute(status -> whereAmI());
+
+		assertEquals(Set.of("replica-1", "replica-2"), Set.of(first, second));
+		assertEquals(first, readOnly.execute(status -> whereAmI()));
+		assertEquals(2.0, connections(first));
+		assertEquals(1.0, connections(second));
+		assertEquals(0.0, connections(ReplicaRoutingDataSource.PRIMARY));
+	}
+
+	/**
+	 * The production wiring: Spring Data repository methods, which are read-only transactions
+	 * unless they modify, run through a JpaTransactionManager and Hibernate in front of the
+	 * lazy proxy.
+	 */
+	@Test
+	void readOnlyRepositoryCallsThroughJpaUseTheReplicas() {
+		try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+			context.getBeanFactory().registerSingleton("dataSource", dataSource);
+			context.register(JpaConfig.class);
+			context.refresh();
+			UserRepository repository = context.getBean(UserRepository.class);
+			double primaryBefore = connections(ReplicaRoutingDataSource.PRIMARY);
+			double replica1Before = connections("replica-1");
+			double replica2Before = connections("replica-2");
+
+			Set<String> targets = new HashSet<>();
+			for (int i = 0; i < 2; i++) {
+				targets.add(repository.findByUserName("marker").getProfile());
+			}
+
+			assertEquals(Set.of("replica-1", "replica-2"), targets);
+			assertEquals(replica1Before + 1, connections("replica-1"));
+			assertEquals(replica2Before + 1, connections("replica-2"));
+			assertEquals(primaryBefore, connections(ReplicaRoutingDataSource.PRIMARY));
+
+			repository.deleteAll();
+
+			assertEquals(primaryBefore + 1, connections(ReplicaRoutingDataSource.PRIMARY));
+			assertEquals(0, new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+			assertEquals(1, new JdbcTemplate(replica1).queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+		}
+	}
+
+	@Test
+	void writesAndWorkOutsideTransactionsUseThePrimary() {
+		assertEquals(ReplicaRoutingDataSource.PRIMARY, readWrite.execute(status -> whereAmI()));
+		assertEquals(ReplicaRoutingDataSource.PRIMARY, whereAmI());
+		readWrite.executeWithoutResult(status -> jdbc.update("INSERT INTO marker VALUES ('written')"));
+		assertEquals(2, new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM marker", Integer.class));
+	}
+
+	@Test
+	void laggingReplicaIsTakenOutOfRotation() {
+		replicate(replica1, 100);
+		replicate(replica2, 60_000);
+		dataSource.getRouting().refreshReplicaLag();
+
+		Set<String> targets = new HashSet<>();
+		for (int i = 0; i < 4; i++) {
+			targets.add(readOnly.execute(status -> whereAmI()));
+		}
+
+		assertEquals(Set.of("replica-1"), targets);
+		assertFalse(dataSource.getRouting().isReplicaHealthy("replica-2"));
+		assertTrue(registry.get("datasource.replica.lag").tag("pool", "replica-2").gauge().value() >= 60_000);
+		assertEquals(0.0, registry.get("datasource.replica.healthy").tag("pool", "replica-2").gauge().value());
+
+		replicate(replica2, 0);
+		dataSource.getRouting().refreshReplicaLag();
+		assertTrue(dataSource.getRouting().isReplicaHealthy("replica-2"));
+	}
+
+	/**
+	 * A replica that has received the latest stamp is not behind, however long ago the stamp was
+	 * written; one that missed it is behind by the stamp's age.
+	 */
+	@Test
+	void lagIsTheAgeOfTheFirstStampAReplicaMissed() throws InterruptedException {
+		dataSource.getRouting().refreshReplicaLag();
+		long stamp = new JdbcTemplate(primary).queryForObject("SELECT beat_at FROM replication_heartbeat", Long.class);
+		new JdbcTemplate(replica1).update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1", stamp);
+		Thread.sleep(50);
+		dataSource.getRouting().refreshReplicaLag();
+
+		assertEquals(0.0, registry.get("datasource.replica.lag").tag("pool", "replica-1").gauge().value());
+		double missed = registry.get("datasource.replica.lag").tag("pool", "replica-2").gauge().value();
+		assertTrue(missed >= 50 && missed < 5_000, () -> "replica-2 lag " + missed);
+		assertTrue(dataSource.getRouting().isReplicaHealthy("replica-1"));
+		assertTrue(dataSource.getRouting().isReplicaHealthy("replica-2"));
+	}
+
+	@Test
+	void heartbeatMustBeMoreFrequentThanTheAllowedLag() {
+		assertThrows(IllegalArgumentException.class, () -> new ReplicaRoutingDataSource(primary, List.of(replica1),
+				Duration.ofSeconds(1), Duration.ofSeconds(1), registry));
+	}
+
+	@Test
+	void readsFallBackToThePrimaryWhenNoReplicaIsHealthy() {
+		replicate(replica1, 60_000);
+		replica2.close();
+		dataSource.getRouting().refreshReplicaLag();
+
+		assertEquals(ReplicaRoutingDataSource.PRIMARY, readOnly.execute(status -> whereAmI()));
+		assertEquals(1.0, registry.get("datasource.routing.fallbacks").counter().count());
+	}
+
+	@Test
+	void everyPoolPublishesItsOwnConnectionMetrics() {
+		readOnly.execute(status -> whereAmI());
+		readOnly.execute(status -> whereAmI());
+		whereAmI();
+
+		for (String pool : List.of(ReplicaRoutingDataSource.PRIMARY, "replica-1", "replica-2")) {
+			assertNotEquals(0, registry.get("hikaricp.connections.usage").tag("pool", pool).timer().count(), pool);
+		}
+	}
+
+	private double connections(String target) {
+		return registry.get("datasource.routing.connections").tag("target", target).counter().count();
+	}
+
+	private String whereAmI() {
+		return jdbc.queryForObject("SELECT name FROM marker", String.class);
+	}
+
+	/**
+	 * Writes the heartbeat a replica would have received {@code lagMillis} ago.
+	 */
+	private static void replicate(HikariDataSource replica, long lagMillis) {
+		new JdbcTemplate(replica).update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1",
+				System.currentTimeMillis() - lagMillis);
+	}
+
+	private static HikariDataSource database(String name) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName(name);
+		dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		dataSource.setMaximumPoolSize(2);
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE marker (name VARCHAR(20))");
+		jdbc.update("INSERT INTO marker VALUES (?)", name);
+		jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, user_name VARCHAR(255) NOT NULL UNIQUE,"
+				+ " email VARCHAR(255) NOT NULL UNIQUE, profile VARCHAR(255) NOT NULL)");
+		jdbc.update("INSERT INTO users VALUES (1, 'marker', 'marker@example.com', ?)", name);
+		new ResourceDatabasePopulator(new ClassPathResource(ReplicaRoutingDataSource.HEARTBEAT_SCHEMA)).execute(dataSource);
+		return dataSource;
+	}
+
+	/**
+	 * JPA over the {@code dataSource} singleton; the schema is created by {@link #database}.
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@EnableTransactionManagement
+	@EnableJpaRepositories(basePackageClasses = UserRepository.class)
+	static class JpaConfig {
+
+		@Bean
+		LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+			LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+			factory.setDataSource(dataSource);
+			factory.setPackagesToScan(UserDetails.class.getPackageName());
+			factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+			factory.setJpaPropertyMap(Map.of(
+					"hibernate.hbm2ddl.auto", "none",
+					"hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+			return factory;
+		}
+
+		@Bean
+		JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+			return new JpaTransactionManager(entityManagerFactory);
+		}
+	}
+}
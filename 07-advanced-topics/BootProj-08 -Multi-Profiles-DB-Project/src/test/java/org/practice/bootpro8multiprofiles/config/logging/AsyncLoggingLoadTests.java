@@ -0,0 +1,149 @@
+package org.practice.bootpro8multiprofiles.config.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.practice.bootpro8multiprofiles.BootProj08MultiProfilesDbProjectApplication;
+import org.practice.bootpro8multiprofiles.Service.UserService;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.practice.bootpro8multiprofiles.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends the same load with synchronous and with asynchronous console logging, with every SQL
+ * statement logged (the test profile's org.hibernate.SQL=DEBUG): 100 concurrent clients reading
+ * uncached pages of users, one logged statement per request.
+ * <p>
+ * The modes alternate over several rounds in one warmed-up application, switching the appender
+ * between rounds; separate application starts come out faster the later they run in the JVM, which
+ * hides the difference being measured. The median p99 of the async rounds may not be worse than
+ * that of the sync rounds by more than {@link #P99_TOLERANCE}. Tagged load, so it runs with gradle
+ * loadTest rather than with the unit tests.
+ */
+@Tag("load")
+class AsyncLoggingLoadTests {
+	private static final Logger logger = LoggerFactory.getLogger(AsyncLoggingLoadTests.class);
+	private static final int CLIENTS = 100;
+	private static final int REQUESTS = 3_000;
+	private static final int ROUNDS = 3;
+	private static final double P99_TOLERANCE = 1.2;
+
+	@Test
+	void asyncLoggingTakesConsoleWritesOffTheRequestThread() throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BootProj08MultiProfilesDbProjectApplication.class)
+				// update, not create-drop: the in-memory test database is shared with the other test contexts
+				.run("--server.port=0", "--spring.jpa.hibernate.ddl-auto=update")) {
+			RingBufferAppender appender = ringBufferAppender();
+			UserRepository users = context.getBean(UserRepository.class);
+			users.deleteAll();
+			for (int i = 0; i < 50; i++) {
+				context.getBean(UserService.class).createUser(user("logging-" + i));
+			}
+			try {
+				String base = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+				load(base, 2 * REQUESTS);
+				List<Result> sync = new ArrayList<>();
+				List<Result> async = new ArrayList<>();
+				for (int round = 0; round < ROUNDS; round++) {
+					appender.setAsync(false);
+					sync.add(load(base, REQUESTS));
+					appender.setAsync(true);
+					async.add(load(base, REQUESTS));
+				}
+
+				logger.info("sync console logging:  {}", sync);
+				logger.info("async console logging: {}", async);
+
+				sync.forEach(result -> assertEquals(0, result.failures, result::toString));
+				async.forEach(result -> assertEquals(0, result.failures, result::toString));
+				assertEquals(0, appender.getDroppedCount(), "the test profile blocks rather than drop SQL lines");
+				double syncP99 = medianP99(sync);
+				double asyncP99 = medianP99(async);
+				assertTrue(asyncP99 <= syncP99 * P99_TOLERANCE,
+						() -> String.format("async p99 %.1f ms against sync %.1f ms; sync %s, async %s", asyncP99, syncP99, sync, async));
+			} finally {
+				appender.setAsync(true);
+				users.deleteAll();
+			}
+		}
+	}
+
+	private static double medianP99(List<Result> results) {
+		return results.stream().mapToDouble(Result::p99Millis).sorted().toArray()[results.size() / 2];
+	}
+
+	private static RingBufferAppender ringBufferAppender() {
+		LoggerContext loggers = (LoggerContext) LoggerFactory.getILoggerFactory();
+		return (RingBufferAppender) loggers.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("ASYNC_CONSOLE");
+	}
+
+	private static Result load(String base, int requests) throws Exception {
+		long[] latencies = new long[requests];
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger failures = new AtomicInteger();
+		long start = System.nanoTime();
+		try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+			 ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<?>[] running = new Future<?>[CLIENTS];
+			for (int c = 0; c < CLIENTS; c++) {
+				running[c] = clients.submit(() -> {
+					for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+						long sent = System.nanoTime();
+						try {
+							HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/users?limit=20")).build(),
+									HttpResponse.BodyHandlers.ofString());
+							if (response.statusCode() != 200) {
+								failures.incrementAndGet();
+							}
+						} catch (Exception e) {
+							failures.incrementAndGet();
+						}
+						latencies[i] = System.nanoTime() - sent;
+					}
+					return null;
+				});
+			}
+			for (Future<?> task : running) {
+				task.get(2, TimeUnit.MINUTES);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		Arrays.sort(latencies);
+		return new Result(requests / seconds, latencies[requests / 2] / 1e6, latencies[(int) (requests * 0.99) - 1] / 1e6,
+				failures.get());
+	}
+
+	private static UserDetails user(String name) {
+		UserDetails user = new UserDetails();
+		user.setUserName(name);
+		user.setEmail(name + "@example.com");
+		return user;
+	}
+
+	private record Result(double throughput, double p50Millis, double p99Millis, int failures) {
+		@Override
+		public String toString() {
+			return String.format("%,.0f req/s p50 %.1f ms p99 %.1f ms", throughput, p50Millis, p99Millis);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package org.practice.bootpro8multiprofiles.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A 10-slot queue in front of an appender that stalls until released, standing in for a slow console.
+ * The background thread takes everything queued as one batch, so up to {@link #BUFFERED} events fit
+ * before the queue is full.
+ */
+class RingBufferAppenderTests {
+	private static final int QUEUE_SIZE = 10;
+	private static final int BUFFERED = 2 * QUEUE_SIZE;
+
+	private final LoggerContext context = new LoggerContext();
+	private final SlowAppender slow = new SlowAppender();
+	private RingBufferAppender ringBuffer;
+
+	@AfterEach
+	void tearDown() {
+		slow.release.countDown();
+		ringBuffer.stop();
+	}
+
+	@Test
+	void dropPolicyNeverWaitsAndCountsWhatItDiscards() {
+		ringBuffer = start(true, "drop");
+		long start = System.nanoTime();
+		for (int i = 0; i < 100; i++) {
+			ringBuffer.doAppend(event(Level.INFO, "event " + i));
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "the logging thread did not wait");
+		slow.release.countDown();
+		ringBuffer.stop();
+
+		assertTrue(slow.events.size() <= BUFFERED, "delivered " + slow.events.size());
+		assertTrue(ringBuffer.getDroppedCount() >= 100 - BUFFERED, "dropped " + ringBuffer.getDroppedCount());
+	}
+
+	@Test
+	void dropPolicyKeepsWarningsWhileInfoIsDiscarded() {
+		ringBuffer = start(true, "DROP");
+		ringBuffer.doAppend(event(Level.INFO, "taken by the worker"));
+		awaitQueueEmpty();
+		for (int i = 0; i < QUEUE_SIZE - 1; i++) {
+			ringBuffer.doAppend(event(Level.INFO, "queued " + i));
+		}
+		ringBuffer.doAppend(event(Level.INFO, "discarded, the queue is 80% full"));
+		ringBuffer.doAppend(event(Level.WARN, "kept"));
+		slow.release.countDown();
+		ringBuffer.stop();
+
+		assertEquals(1, ringBuffer.getDroppedCount());
+		assertTrue(slow.messages().contains("kept"));
+	}
+
+	@Test
+	void blockPolicyWaitsForRoomAndDropsNothing() throws Exception {
+		ringBuffer = start(true, "block");
+		Thread logging = Thread.ofVirtual().start(() -> {
+			for (int i = 0; i < 50; i++) {
+				ringBuffer.doAppend(event(Level.DEBUG, "event " + i));
+			}
+		});
+		logging.join(300);
+		assertTrue(logging.isAlive(), "the logging thread waits while the queue is full");
+
+		slow.release.countDown();
+		logging.join(TimeUnit.SECONDS.toMillis(5));
+		ringBuffer.stop();
+		assertEquals(50, slow.events.size());
+		assertEquals(0, ringBuffer.getDroppedCount());
+	}
+
+	@Test
+	void syncModeAppendsOnTheLoggingThread() {
+		ringBuffer = start(false, "drop");
+		slow.release.countDown();
+		ringBuffer.doAppend(event(Level.INFO, "direct"));
+
+		assertEquals(List.of("direct"), slow.messages());
+		assertEquals(Thread.currentThread(), slow.threads.get(0));
+	}
+
+	private RingBufferAppender start(boolean async, String overflow) {
+		context.setMDCAdapter(new LogbackMDCAdapter());
+		slow.setContext(context);
+		slow.start();
+		RingBufferAppender appender = new RingBufferAppender();
+		appender.setContext(context);
+		appender.setAsync(async);
+		appender.setOverflow(overflow);
+		appender.setQueueSize(QUEUE_SIZE);
+		appender.setMaxFlushTime(5_000);
+		appender.addAppender(slow);
+		appender.start();
+		return appender;
+	}
+
+	private void awaitQueueEmpty() {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (ringBuffer.getNumberOfElementsInQueue() > 0 && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+	}
+
+	private ILoggingEvent event(Level level, String message) {
+		return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, message, null, null);
+	}
+
+	private static final class SlowAppender extends AppenderBase<ILoggingEvent> {
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+		private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+		@Override
+		protected void append(ILoggingEvent event) {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			events.add(event);
+			threads.add(Thread.currentThread());
+		}
+
+		private List<String> messages() {
+			return events.stream().map(ILoggingEvent::getMessage).toList();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package org.practice.bootpro8multiprofiles.config.observability;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "app.observability.slow-request-threshold=0ms")
+@ExtendWith(OutputCaptureExtension.class)
+class RequestInstrumentationTests {
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private CacheManager cacheManager;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@LocalServerPort
+	private int port;
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void setUp() {
+		jdbc.update("DELETE FROM users");
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbc.update("DELETE FROM users");
+	}
+
+	@Test
+	void sqlIsRecordedPerEndpointAndCachedResponsesRunNone() throws Exception {
+		jdbc.update("INSERT INTO users (id, user_name, email, profile) VALUES (1, 'alice', 'alice@example.com', 'test')");
+		DistributionSummary statements = statements("/profile");
+		long requests = statements.count();
+		double total = statements.totalAmount();
+
+		assertEquals(200, get("/profile").statusCode());
+		awaitCount(statements, requests + 1);
+		double firstCall = statements.totalAmount() - total;
+		assertTrue(firstCall >= 1, "statements: " + firstCall);
+		assertTrue(meterRegistry.get("http.server.requests.sql.time").tag("uri", "/profile").timer().count() >= 1);
+
+		assertEquals(200, get("/profile").statusCode());
+		awaitCount(statements, requests + 2);
+		assertEquals(firstCall, statements.totalAmount() - total, "the second call is served from the cache");
+	}
+
+	@Test
+	void endpointsAreTaggedWithTheirUriPattern() throws Exception {
+		DistributionSummary statements = statements("/{username}");
+		long requests = statements.count();
+
+		assertEquals(200, get("/nobody").statusCode());
+		awaitCount(statements, requests + 1);
+		assertTrue(meterRegistry.find("http.server.requests.sql.statements").tag("uri", "/nobody").summary() == null);
+	}
+
+	@Test
+	void slowRequestsAreLoggedWithTheirSql(CapturedOutput output) throws Exception {
+		get("/active-profile");
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!output.getOut().contains("Slow request GET /active-profile") && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertTrue(output.getOut().contains("Slow request GET /active-profile took"), output.getOut());
+		assertTrue(output.getOut().contains("0 SQL statements"), output.getOut());
+	}
+
+	/**
+	 * The response body is flushed to the client before the filter records the request.
+	 */
+	private static void awaitCount(DistributionSummary summary, long count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (summary.count() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, summary.count());
+	}
+
+	private DistributionSummary statements(String uri) {
+		return DistributionSummary.builder("http.server.requests.sql.statements")
+				.tags("method", "GET", "uri", uri)
+				.register(meterRegistry);
+	}
+
+	private HttpResponse<String> get(String path) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,133 @@
+package org.practice.bootpro8multiprofiles.config.threading;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.practice.bootpro8multiprofiles.BootProj08MultiProfilesDbProjectApplication;
+import org.practice.bootpro8multiprofiles.Service.UserService;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.practice.bootpro8multiprofiles.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application once on platform threads and once on virtual threads and sends the same
+ * load to each: 400 concurrent clients, half looking up a cached user and half reading a page of
+ * users through the 5-connection test pool. Tagged load, so it runs with gradle loadTest rather
+ * than with the unit tests.
+ */
+@Tag("load")
+class VirtualThreadLoadTests {
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadTests.class);
+	private static final int CLIENTS = 400;
+	private static final int REQUESTS = 4_000;
+
+	@Test
+	void virtualAndPlatformThreadsServeTheSameLoad() throws Exception {
+		Result platform = run(false);
+		Result virtual = run(true);
+		logger.info("platform threads: {}", platform);
+		logger.info("virtual threads:  {}", virtual);
+
+		assertEquals(0, platform.failures, platform::toString);
+		assertEquals(0, virtual.failures, virtual::toString);
+	}
+
+	private static Result run(boolean virtualThreads) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BootProj08MultiProfilesDbProjectApplication.class)
+				// update, not create-drop: the in-memory test database is shared with the other test contexts
+				.run("--server.port=0", "--spring.threads.virtual.enabled=" + virtualThreads, "--spring.jpa.hibernate.ddl-auto=update")) {
+			TomcatWebServer server = (TomcatWebServer) ((ServletWebServerApplicationContext) context).getWebServer();
+			boolean virtualExecutor = server.getTomcat().getConnector().getProtocolHandler().getExecutor() instanceof VirtualThreadExecutor;
+			assertEquals(virtualThreads, virtualExecutor);
+			assertEquals(virtualThreads, context.getBeanNamesForType(VirtualThreadPinningMonitor.class).length == 1);
+
+			UserRepository users = context.getBean(UserRepository.class);
+			users.deleteAll();
+			for (int i = 0; i < 50; i++) {
+				context.getBean(UserService.class).createUser(user("load-" + i));
+			}
+			try {
+				String base = "http://localhost:" + server.getPort();
+				load(base, 500);
+				Result result = load(base, REQUESTS);
+				if (virtualThreads) {
+					logger.info("pinned at {}", context.getBean(VirtualThreadPinningMonitor.class).getPinnedSites());
+				}
+				return result;
+			} finally {
+				users.deleteAll();
+			}
+		}
+	}
+
+	private static Result load(String base, int requests) throws Exception {
+		long[] latencies = new long[requests];
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger failures = new AtomicInteger();
+		long start = System.nanoTime();
+		try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+			 ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<?>[] running = new Future<?>[CLIENTS];
+			for (int c = 0; c < CLIENTS; c++) {
+				running[c] = clients.submit(() -> {
+					for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+						String path = i % 2 == 0 ? "/load-" + (i % 50) : "/users?limit=20";
+						long sent = System.nanoTime();
+						try {
+							HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + path)).build(),
+									HttpResponse.BodyHandlers.ofString());
+							if (response.statusCode() != 200 || response.body().isEmpty()) {
+								failures.incrementAndGet();
+							}
+						} catch (Exception e) {
+							failures.incrementAndGet();
+						}
+						latencies[i] = System.nanoTime() - sent;
+					}
+					return null;
+				});
+			}
+			for (Future<?> task : running) {
+				task.get(2, TimeUnit.MINUTES);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		Arrays.sort(latencies);
+		assertTrue(next.get() >= requests);
+		return new Result(requests / seconds, latencies[(int) (requests * 0.99) - 1] / 1e6, failures.get());
+	}
+
+	private static UserDetails user(String name) {
+		UserDetails user = new UserDetails();
+		user.setUserName(name);
+		user.setEmail(name + "@example.com");
+		return user;
+	}
+
+	private record Result(double throughput, double p99Millis, int failures) {
+
+		@Override
+		public String toString() {
+			return String.format("%,.0f req/s, p99 %.1f ms, %d failed", throughput, p99Millis, failures);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package org.practice.bootpro8multiprofiles.config.threading;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadPinningMonitorTests {
+	private final Object monitor = new Object();
+	private final ReentrantLock lock = new ReentrantLock();
+
+	@Test
+	void blockingInsideSynchronizedIsReportedAndLocksAreNot() throws Exception {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		try (VirtualThreadPinningMonitor pinning = new VirtualThreadPinningMonitor(Duration.ofMillis(10), registry)) {
+			pinning.start();
+
+			Thread.ofVirtual().start(this::sleepHoldingLock).join();
+			Thread.ofVirtual().start(this::sleepHoldingMonitor).join();
+
+			Timer pinned = registry.get("jvm.threads.virtual.pinned").timer();
+			// the stream delivers events about once a second, later while JFR is still starting up
+			long deadline = System.currentTimeMillis() + 30_000;
+			while (pinning.getPinnedSites().isEmpty() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			Map<String, Long> sites = pinning.getPinnedSites();
+
+			assertEquals(1, pinned.count());
+			assertTrue(pinned.totalTime(TimeUnit.MILLISECONDS) >= 40);
+			assertEquals(1, sites.size(), "pinned at " + sites);
+			assertTrue(sites.keySet().iterator().next().startsWith(getClass().getName() + ".sleep:"));
+		}
+	}
+
+	private void sleepHoldingMonitor() {
+		synchronized (monitor) {
+			sleep();
+		}
+	}
+
+	private void sleepHoldingLock() {
+		lock.lock();
+		try {
+			sleep();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(50);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package org.practice.bootpro8multiprofiles.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.practice.bootpro8multiprofiles.config.cache.CacheConfig;
+import org.practice.bootpro8multiprofiles.testsupport.CaptureSql;
+import org.practice.bootpro8multiprofiles.testsupport.SqlCapture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@CaptureSql
+class ConditionalGetTests {
+	private static final long FIRST_ID = 1_000_001;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private CacheManager cacheManager;
+	@Autowired
+	private SqlCapture sql;
+	@LocalServerPort
+	private int port;
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void setUp() {
+		jdbc.update("DELETE FROM users");
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+		jdbc.update("INSERT INTO users (id, user_name, email, profile) VALUES (?, 'alice', 'alice@example.com', 'test')", FIRST_ID);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbc.update("DELETE FROM users");
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+	}
+
+	@Test
+	void profileListIsNotModifiedUntilAUserIsCreated() throws Exception {
+		// caching the list counts as a change, so the tag settles once the list is cached
+		get("/profile", null);
+		String eTag = get("/profile", null).headers().firstValue("ETag").orElseThrow();
+
+		HttpResponse<String> unchanged = get("/profile", eTag);
+		assertEquals(304, unchanged.statusCode());
+		assertEquals("", unchanged.body());
+
+		assertEquals(200, post("{\"userName\":\"bob\",\"email\":\"bob@example.com\"}").statusCode());
+		HttpResponse<String> changed = get("/profile", eTag);
+		assertEquals(200, changed.statusCode());
+		assertTrue(changed.body().contains("bob"), changed.body());
+		assertNotEquals(eTag, changed.headers().firstValue("ETag").orElseThrow());
+	}
+
+	@Test
+	void notModifiedIsAnsweredWithoutTheDatabaseOrTheCache() throws Exception {
+		get("/profile", null);
+		String eTag = get("/profile", null).headers().firstValue("ETag").orElseThrow();
+		// drop the cached list behind the versions' back, so only the tag can answer
+		((com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager.getCache(CacheConfig.PROFILES).getNativeCache()).invalidateAll();
+
+		assertEquals(304, sql.expectAtMost(0, () -> get("/profile", eTag)).statusCode());
+	}
+
+	@Test
+	void userTagsFollowTheirOwnUser() throws Exception {
+		// caching the user counts as a change, so the tag settles once the user is cached
+		get("/alice", null);
+		String alice = get("/alice", null).headers().firstValue("ETag").orElseThrow();
+		String nobody = get("/nobody", null).headers().firstValue("ETag").orElseThrow();
+
+		assertEquals(304, get("/alice", alice).statusCode());
+		assertEquals(304, get("/nobody", nobody).statusCode());
+
+		assertEquals(200, post("{\"userName\":\"nobody\",\"email\":\"nobody@example.com\"}").statusCode());
+		assertEquals(304, get("/alice", alice).statusCode());
+		HttpResponse<String> created = get("/nobody", nobody);
+		assertEquals(200, created.statusCode());
+		assertTrue(created.body().contains("nobody@example.com"), created.body());
+	}
+
+	/**
+	 * Clients polling /profile with If-None-Match get no body back; those without it get the
+	 * whole list every time.
+	 */
+	@Test
+	void conditionalPollsSendNoBodyWhileFullPollsResendTheList() throws Exception {
+		for (int i = 1; i < 200; i++) {
+			jdbc.update("INSERT INTO users (id, user_name, email, profile) VALUES (?, ?, ?, 'test')",
+					FIRST_ID + i, "poller-" + i, "poller-" + i + "@example.com");
+		}
+		cacheManager.getCache(CacheConfig.PROFILES).clear();
+		get("/profile", null);
+		HttpResponse<String> list = get("/profile", null);
+		String eTag = list.headers().firstValue("ETag").orElseThrow();
+		assertTrue(list.body().length() > 200 * 50, "bytes: " + list.body().length());
+
+		assertEquals(0, poll(100, eTag));
+		assertEquals(100L * list.body().length(), poll(100, null));
+	}
+
+	/**
+	 * Body bytes received.
+	 */
+	private long poll(int requests, String eTag) throws Exception {
+		long bytes = 0;
+		for (int i = 0; i < requests; i++) {
+			HttpResponse<String> response = get("/profile", eTag);
+			assertEquals(eTag == null ? 200 : 304, response.statusCode());
+			bytes += response.body().length();
+		}
+		return bytes;
+	}
+
+	private HttpResponse<String> get(String path, String eTag) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+		if (eTag != null) {
+			request.header("If-None-Match", eTag);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> post(String json) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/"))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(json))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+}
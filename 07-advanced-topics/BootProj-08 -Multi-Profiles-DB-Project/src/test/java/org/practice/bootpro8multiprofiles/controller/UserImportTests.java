@@ -0,0 +1,157 @@
+package org.practice.bootpro8multiprofiles.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserImportTests {
+	private static final Logger logger = LoggerFactory.getLogger(UserImportTests.class);
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private CacheManager cacheManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@LocalServerPort
+	private int port;
+	@TempDir
+	private Path directory;
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void setUp() {
+		jdbc.update("DELETE FROM users");
+	}
+
+	@AfterEach
+	void tearDown() {
+		// deleting row by row keeps an undo log of the whole table in the heap
+		jdbc.execute("TRUNCATE TABLE users");
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+	}
+
+	@Test
+	void importedUsersAreInsertedInJdbcBatches() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		HttpResponse<String> response = post(users(2_500, -1));
+
+		assertEquals(200, response.statusCode());
+		assertEquals(2_500L, ((Number) objectMapper.readValue(response.body(), Map.class).get("imported")).longValue());
+		assertEquals(2_500, jdbc.queryForObject("SELECT COUNT(DISTINCT id) FROM users WHERE profile = 'test'", Integer.class));
+		assertEquals(2_500, statistics.getEntityInsertCount());
+		// one statement per batch of 50 inserts plus one sequence call per block of 50 ids
+		assertTrue(statistics.getPrepareStatementCount() <= 2 * 2_500 / 50 + 10, "statements: " + statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void chunksBeforeAFailingOneStaySaved() throws Exception {
+		HttpResponse<String> response = post(users(1_500, 1_200));
+
+		assertEquals(500, response.statusCode());
+		assertEquals(1_000, jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+	}
+
+	@Test
+	void failedImportStillClearsCachedProfileList() throws Exception {
+		assertEquals(0, getProfile().size());
+
+		HttpResponse<String> response = post(users(1_500, 1_200));
+
+		assertEquals(500, response.statusCode());
+		assertEquals(1_000, getProfile().size());
+	}
+
+	@Test
+	void importSpanningSeveralChunksCommitsEachChunkOnItsOwn() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		HttpResponse<String> response = post(users(3_500, -1));
+
+		assertEquals(200, response.statusCode());
+		assertEquals(3_500L, ((Number) objectMapper.readValue(response.body(), Map.class).get("imported")).longValue());
+		assertEquals(3_500, jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+		assertEquals(3_500, statistics.getEntityInsertCount());
+		// chunks of 1000: three full ones and the remaining 500
+		assertEquals(4, statistics.getSuccessfulTransactionCount());
+	}
+
+	/**
+	 * Imports 200 000 users and reports the insert rate. Tagged load, so it runs with gradle
+	 * loadTest rather than with the unit tests.
+	 */
+	@Test
+	@Tag("load")
+	void largeImportReportsRate() throws Exception {
+		int users = 200_000;
+
+		HttpResponse<String> response = post(users(users, -1));
+
+		assertEquals(200, response.statusCode());
+		Map<?, ?> result = objectMapper.readValue(response.body(), Map.class);
+		logger.info("Imported {} users in {} ms ({} users/s)", result.get("imported"), result.get("millis"), result.get("usersPerSecond"));
+		assertEquals(users, jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class), result::toString);
+	}
+
+	private HttpResponse<String> post(Path file) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/import"))
+						.header("Content-Type", "application/x-ndjson")
+						.POST(HttpRequest.BodyPublishers.ofFile(file))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private List<?> getProfile() throws Exception {
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/profile")).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode());
+		return objectMapper.readValue(response.body(), List.class);
+	}
+
+	/**
+	 * Writes {@code count} users as NDJSON; the user at {@code duplicateAt}, if any, reuses the
+	 * first user's name.
+	 */
+	private Path users(int count, int duplicateAt) throws Exception {
+		Path file = directory.resolve("users-" + count + ".ndjson");
+		try (BufferedWriter out = Files.newBufferedWriter(file)) {
+			for (int i = 0; i < count; i++) {
+				String name = i == duplicateAt ? "import-0" : "import-" + i;
+				out.write("{\"userName\":\"" + name + "\",\"email\":\"import-" + i + "@example.com\"}\n");
+			}
+		}
+		return file;
+	}
+}
@@ -0,0 +1,175 @@
+package org.practice.bootpro8multiprofiles.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.practice.bootpro8multiprofiles.testsupport.CaptureSql;
+import org.practice.bootpro8multiprofiles.testsupport.SqlCapture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@CaptureSql(checkFullScans = false)
+class UserListingTests {
+	private static final long FIRST_ID = 1_000_001;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private CacheManager cacheManager;
+	@Autowired
+	private UserController userController;
+	@Autowired
+	private SqlCapture sql;
+	@LocalServerPort
+	private int port;
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void setUp() {
+		jdbc.update("DELETE FROM users");
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbc.update("DELETE FROM users");
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+	}
+
+	@Test
+	void keysetPagesReturnEveryUserOnceInIdOrder() throws Exception {
+		insertUsers(250, "test");
+		List<Long> ids = new ArrayList<>();
+		long afterId = 0;
+		List<UserDetails> page;
+		do {
+			page = get("/users?afterId=" + afterId + "&limit=100");
+			assertTrue(page.size() <= 100);
+			for (UserDetails user : page) {
+				ids.add(user.getId());
+				afterId = user.getId();
+			}
+		} while (!page.isEmpty());
+
+		assertEquals(250, ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			assertEquals(FIRST_ID + i, ids.get(i));
+		}
+	}
+
+	@Test
+	void profilePageOnlyReturnsTheActiveProfile() throws Exception {
+		insertUsers(20, "dev");
+		jdbc.update("UPDATE users SET profile = 'test' WHERE MOD(id, 2) = 0");
+
+		List<UserDetails> page = get("/profile/page?limit=1000");
+
+		assertEquals(10, page.size());
+		assertTrue(page.stream().allMatch(user -> user.getProfile().equals("test")));
+	}
+
+	@Test
+	void streamReturnsEveryUserAsNdjsonInIdOrder() throws Exception {
+		insertUsers(1_000, "test");
+
+		HttpResponse<InputStream> response = client.send(request("/users/stream"), HttpResponse.BodyHandlers.ofInputStream());
+		assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(""));
+		long lines = 0;
+		long lastId = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				UserDetails user = objectMapper.readValue(line, UserDetails.class);
+				assertTrue(user.getId() > lastId);
+				lastId = user.getId();
+				lines++;
+			}
+		}
+
+		assertEquals(1_000, lines);
+	}
+
+	/**
+	 * The body must reach the response stream while the cursor is still being read, a buffer at a
+	 * time, rather than after every user has been loaded.
+	 */
+	@Test
+	void streamWritesUsersWhileTheCursorAdvances() throws Exception {
+		int users = 5_000;
+		insertUsers(users, "test");
+		sql.reset();
+		RowCountingStream out = new RowCountingStream();
+
+		userController.streamUsers().getBody().writeTo(out);
+
+		assertEquals(users, out.lines);
+		assertEquals(users, sql.rowsRead());
+		assertTrue(out.writes > 1, "whole body written at once");
+		assertTrue(out.rowsReadAtFirstWrite < users / 2, out.rowsReadAtFirstWrite + " rows read before the first write");
+	}
+
+	private void insertUsers(int count, String profile) {
+		jdbc.update("INSERT INTO users (id, user_name, email, profile) SELECT X, 'user' || X, 'user' || X || '@example.com', ?"
+				+ " FROM SYSTEM_RANGE(?, ?)", profile, FIRST_ID, FIRST_ID + count - 1);
+	}
+
+	private List<UserDetails> get(String path) throws Exception {
+		HttpResponse<String> response = client.send(request(path), HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode());
+		return objectMapper.readValue(response.body(), new TypeReference<>() {
+		});
+	}
+
+	private HttpRequest request(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+	}
+
+	/**
+	 * Counts the NDJSON lines written to it and how many rows had been read when the first bytes arrived.
+	 */
+	private class RowCountingStream extends OutputStream {
+		private long lines;
+		private int writes;
+		private long rowsReadAtFirstWrite = -1;
+
+		@Override
+		public void write(int b) {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			if (writes++ == 0) {
+				rowsReadAtFirstWrite = sql.rowsRead();
+			}
+			for (int i = offset; i < offset + length; i++) {
+				if (bytes[i] == '\n') {
+					lines++;
+				}
+			}
+		}
+	}
+}
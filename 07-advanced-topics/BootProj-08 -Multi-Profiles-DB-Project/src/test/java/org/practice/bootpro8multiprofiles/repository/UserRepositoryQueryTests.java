@@ -0,0 +1,116 @@
+package org.practice.bootpro8multiprofiles.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.practice.bootpro8multiprofiles.Service.UserService;
+import org.practice.bootpro8multiprofiles.model.UserDetails;
+import org.practice.bootpro8multiprofiles.testsupport.CaptureSql;
+import org.practice.bootpro8multiprofiles.testsupport.SqlBudget;
+import org.practice.bootpro8multiprofiles.testsupport.SqlCapture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query shape of the repository lookups: one statement per call and an index behind every filter.
+ */
+@SpringBootTest
+@CaptureSql
+class UserRepositoryQueryTests {
+	private static final long FIRST_ID = 1_000_001;
+	private static final List<String> NAMES = List.of("alice", "bob", "carol");
+
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private JdbcTemplate jdbc;
+	@Autowired
+	private CacheManager cacheManager;
+	@Autowired
+	private SqlCapture sql;
+
+	@BeforeEach
+	void setUp() {
+		jdbc.update("DELETE FROM users");
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+		for (int i = 0; i < NAMES.size(); i++) {
+			jdbc.update("INSERT INTO users (id, user_name, email, profile) VALUES (?, ?, ?, 'test')",
+					FIRST_ID + i, NAMES.get(i), NAMES.get(i) + "@example.com");
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbc.update("DELETE FROM users");
+	}
+
+	@Test
+	@SqlBudget(1)
+	void findByUserNameIsOneIndexedLookup() throws Exception {
+		assertEquals("bob@example.com", sql.expectAtMost(1, () -> userRepository.findByUserName("bob")).getEmail());
+	}
+
+	@Test
+	@SqlBudget(1)
+	void findByEmailIsOneIndexedLookup() throws Exception {
+		assertEquals("carol", sql.expectAtMost(1, () -> userRepository.findByEmail("carol@example.com")).getUserName());
+	}
+
+	@Test
+	@SqlBudget(1)
+	void findByProfileUsesTheProfileIndex() throws Exception {
+		assertEquals(3, sql.expectAtMost(1, () -> userRepository.findByProfile("test")).size());
+	}
+
+	@Test
+	@SqlBudget(1)
+	void profileKeysetPageUsesTheProfileIndex() throws Exception {
+		List<UserDetails> page = sql.expectAtMost(1,
+				() -> userRepository.findByProfileAndIdGreaterThanOrderByIdAsc("test", FIRST_ID, Limit.of(10)));
+		assertEquals(List.of("bob", "carol"), page.stream().map(UserDetails::getUserName).toList());
+	}
+
+	@Test
+	@SqlBudget(1)
+	void cachedProfileListRunsNoSql() throws Exception {
+		userService.getUserByProfile();
+		assertEquals(3, sql.expectAtMost(0, () -> userService.getUserByProfile()).size());
+	}
+
+	@Test
+	@SqlBudget(2)
+	void createUserIsOneInsertPlusASequenceBlock() {
+		UserDetails user = new UserDetails();
+		user.setUserName("dave");
+		user.setEmail("dave@example.com");
+		userService.createUser(user);
+	}
+
+	@Test
+	void lookupsInALoopExceedTheirBudget() {
+		AssertionFailedError error = assertThrows(AssertionFailedError.class,
+				() -> sql.expectAtMost(1, () -> NAMES.forEach(userRepository::findByUserName)));
+		assertTrue(error.getMessage().contains("but 3 ran"), error.getMessage());
+	}
+
+	@Test
+	void unindexedFilterIsReportedAsAFullScan() throws Exception {
+		jdbc.queryForList("SELECT * FROM users WHERE email LIKE ?", "%@example.com");
+
+		AssertionFailedError error = assertThrows(AssertionFailedError.class, sql::assertNoFullScans);
+		assertTrue(error.getMessage().contains("1 queries scan a whole table"), error.getMessage());
+		sql.reset();
+	}
+}
@@ -0,0 +1,43 @@
+package org.practice.bootpro8multiprofiles.testsupport;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Captures the SQL a Spring test runs. Put it next to {@code @SpringBootTest}, {@code @DataJpaTest}
+ * or {@code @DataJdbcTest} and inject the {@link SqlCapture}:
+ * <pre>
+ * &#64;SpringBootTest
+ * &#64;CaptureSql
+ * class UserRepositoryQueryTests {
+ *     &#64;Autowired SqlCapture sql;
+ *
+ *     &#64;Test
+ *     &#64;SqlBudget(1)
+ *     void findByEmail() throws Exception {
+ *         sql.expectAtMost(1, () -&gt; repository.findByEmail("a@example.com"));
+ *     }
+ * }
+ * </pre>
+ * The capture is reset before each test method. After it the statement count is logged at debug level, checked
+ * against the method's {@link SqlBudget} if it has one, and every filtered select is checked for
+ * table scans (see {@link SqlCapture#assertNoFullScans()}) unless {@link #checkFullScans()} is off.
+ * <p>
+ * Only JDBC is seen; the package depends on nothing in this application and can be copied into
+ * any module whose tests run against H2.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Import(SqlCaptureConfiguration.class)
+@ExtendWith(SqlBudgetExtension.class)
+public @interface CaptureSql {
+
+	boolean checkFullScans() default true;
+}
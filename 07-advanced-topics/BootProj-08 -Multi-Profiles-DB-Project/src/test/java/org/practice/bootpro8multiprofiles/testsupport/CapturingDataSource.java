@@ -0,0 +1,112 @@
+package org.practice.bootpro8multiprofiles.testsupport;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Passes every statement executed through its connections, with the parameters bound to it, to a
+ * {@link SqlCapture}, and counts the rows read from their result sets. Works below any JDBC client,
+ * so JPA, Spring Data JDBC and JdbcTemplate statements are all seen.
+ */
+class CapturingDataSource extends DelegatingDataSource {
+	private final SqlCapture capture;
+
+	CapturingDataSource(DataSource target, SqlCapture capture) {
+		super(target);
+		this.capture = capture;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(super.getConnection(username, password));
+	}
+
+	private Connection wrap(Connection connection) {
+		return proxy(Connection.class, connection, (proxy, method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (result instanceof CallableStatement statement) {
+				return statement(CallableStatement.class, statement, (String) args[0]);
+			}
+			if (result instanceof PreparedStatement statement) {
+				return statement(PreparedStatement.class, statement, (String) args[0]);
+			}
+			if (result instanceof Statement statement) {
+				return statement(Statement.class, statement, null);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * @param sql the prepared SQL, or {@code null} for a plain statement that is given its SQL on execute
+	 */
+	private <S extends Statement> S statement(Class<S> type, S statement, String sql) {
+		Map<Integer, Object> parameters = new TreeMap<>();
+		return proxy(type, statement, (proxy, method, args) -> {
+			String name = method.getName();
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+				parameters.put(index, args[1]);
+			} else if (name.startsWith("execute")) {
+				if (args != null && args.length > 0 && args[0] instanceof String executed) {
+					capture.record(getTargetDataSource(), executed, Map.of());
+				} else if (sql != null) {
+					capture.record(getTargetDataSource(), sql, new TreeMap<>(parameters));
+				}
+			} else if (name.equals("clearParameters")) {
+				parameters.clear();
+			}
+			Object result = invoke(statement, method, args);
+			if (result instanceof ResultSet resultSet) {
+				return resultSet(resultSet);
+			}
+			return result;
+		});
+	}
+
+	private ResultSet resultSet(ResultSet resultSet) {
+		return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+			Object result = invoke(resultSet, method, args);
+			if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+				capture.rowRead();
+			}
+			return result;
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(CapturingDataSource.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+			return switch (method.getName()) {
+				case "equals" -> proxy == args[0];
+				case "hashCode" -> System.identityHashCode(proxy);
+				default -> handler.invoke(proxy, method, args);
+			};
+		});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package org.practice.bootpro8multiprofiles.testsupport;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most SQL statements a test in a {@link CaptureSql} class may run, not counting {@code @BeforeEach}
+ * and {@code @AfterEach} methods.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SqlBudget {
+
+	int value();
+}
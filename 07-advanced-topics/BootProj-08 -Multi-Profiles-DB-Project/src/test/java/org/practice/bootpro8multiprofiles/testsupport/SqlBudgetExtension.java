@@ -0,0 +1,47 @@
+package org.practice.bootpro8multiprofiles.testsupport;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Resets the {@link SqlCapture} right before each test method and applies the {@link CaptureSql}
+ * checks right after it, so {@code @BeforeEach} set-up and {@code @AfterEach} clean-up are not counted.
+ */
+class SqlBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+	private static final Logger logger = LoggerFactory.getLogger(SqlBudgetExtension.class);
+
+	@Override
+	public void beforeTestExecution(ExtensionContext context) {
+		capture(context).reset();
+	}
+
+	@Override
+	public void afterTestExecution(ExtensionContext context) throws Exception {
+		if (context.getExecutionException().isPresent()) {
+			return;
+		}
+		SqlCapture capture = capture(context);
+		logger.debug("{}: {} SQL statements", context.getDisplayName(), capture.count());
+		AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), SqlBudget.class).ifPresent(budget -> {
+			if (capture.count() > budget.value()) {
+				fail("Expected at most " + budget.value() + " SQL statements but " + capture);
+			}
+		});
+		boolean checkFullScans = AnnotationSupport.findAnnotation(context.getRequiredTestClass(), CaptureSql.class)
+				.map(CaptureSql::checkFullScans).orElse(true);
+		if (checkFullScans) {
+			capture.assertNoFullScans();
+		}
+	}
+
+	private static SqlCapture capture(ExtensionContext context) {
+		return SpringExtension.getApplicationContext(context).getBean(SqlCapture.class);
+	}
+}
@@ -0,0 +1,154 @@
+package org.practice.bootpro8multiprofiles.testsupport;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * The SQL statements run against the application's data sources since the current test started,
+ * on any thread. {@link CaptureSql} makes one available for injection and resets it before each test.
+ * <p>
+ * {@link #expectAtMost} fails a call that runs more statements than its budget, which is how N+1
+ * selects show up. {@link #assertNoFullScans()} asks H2 for the plan of every filtered select run
+ * so far and fails on a table scan; on other databases it checks nothing. {@link #rowsRead()}
+ * tells how far the result sets have been read, so tests can check that results are streamed.
+ */
+public class SqlCapture {
+	private static final int MAX_RECORDED = 10_000;
+	private static final Pattern FILTERED_SELECT = Pattern.compile("^\\s*select\\b.*\\bwhere\\b.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private final List<CapturedStatement> statements = new ArrayList<>();
+	private final AtomicInteger count = new AtomicInteger();
+	private final AtomicLong rowsRead = new AtomicLong();
+
+	void record(DataSource dataSource, String sql, Map<Integer, Object> parameters) {
+		count.incrementAndGet();
+		synchronized (statements) {
+			if (statements.size() < MAX_RECORDED) {
+				statements.add(new CapturedStatement(dataSource, sql, parameters));
+			}
+		}
+	}
+
+	void rowRead() {
+		rowsRead.incrementAndGet();
+	}
+
+	public void reset() {
+		synchronized (statements) {
+			statements.clear();
+			count.set(0);
+			rowsRead.set(0);
+		}
+	}
+
+	/**
+	 * Statements executed since the last reset; a JDBC batch counts once.
+	 */
+	public int count() {
+		return count.get();
+	}
+
+	/**
+	 * Rows read from result sets since the last reset.
+	 */
+	public long rowsRead() {
+		return rowsRead.get();
+	}
+
+	public List<String> sql() {
+		synchronized (statements) {
+			return statements.stream().map(CapturedStatement::sql).toList();
+		}
+	}
+
+	/**
+	 * Runs {@code call} and fails if it executes more than {@code budget} statements.
+	 */
+	public <T> T expectAtMost(int budget, Callable<T> call) throws Exception {
+		int before = count();
+		int recordedBefore = sql().size();
+		T result = call.call();
+		int executed = count() - before;
+		if (executed > budget) {
+			List<String> sql = sql();
+			fail("Expected at most " + budget + " SQL statements but " + executed + " ran:\n\t"
+					+ String.join("\n\t", sql.subList(Math.min(recordedBefore, sql.size()), sql.size())));
+		}
+		return result;
+	}
+
+	public void expectAtMost(int budget, Runnable call) throws Exception {
+		expectAtMost(budget, () -> {
+			call.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Fails if H2 plans any select with a where clause captured so far as a table scan. Unfiltered
+	 * selects, such as findAll, scan by design and are not checked.
+	 */
+	public void assertNoFullScans() throws SQLException {
+		Map<String, CapturedStatement> selects = new LinkedHashMap<>();
+		synchronized (statements) {
+			for (CapturedStatement statement : statements) {
+				if (FILTERED_SELECT.matcher(statement.sql()).matches()) {
+					selects.putIfAbsent(statement.sql(), statement);
+				}
+			}
+		}
+		List<String> scans = new ArrayList<>();
+		for (CapturedStatement statement : selects.values()) {
+			String plan = explain(statement);
+			if (plan != null && plan.contains(".tableScan")) {
+				scans.add(statement.sql() + "\n\t\t" + plan.replace("\n", "\n\t\t"));
+			}
+		}
+		if (!scans.isEmpty()) {
+			fail(scans.size() + " queries scan a whole table:\n\t" + String.join("\n\t", scans));
+		}
+	}
+
+	/**
+	 * The H2 plan of {@code statement} with its captured parameters, or {@code null} on other databases.
+	 */
+	private static String explain(CapturedStatement statement) throws SQLException {
+		try (Connection connection = statement.dataSource().getConnection()) {
+			if (!connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("h2")) {
+				return null;
+			}
+			try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+				int parameters = explain.getParameterMetaData().getParameterCount();
+				for (int index = 1; index <= parameters; index++) {
+					explain.setObject(index, statement.parameters().get(index));
+				}
+				try (ResultSet plan = explain.executeQuery()) {
+					return plan.next() ? plan.getString(1) : null;
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return sql().stream().collect(Collectors.joining("\n", count() + " statements:\n", ""));
+	}
+
+	record CapturedStatement(DataSource dataSource, String sql, Map<Integer, Object> parameters) {
+	}
+}
@@ -0,0 +1,34 @@
+package org.practice.bootpro8multiprofiles.testsupport;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every DataSource bean in a {@link CapturingDataSource} feeding the {@link SqlCapture} bean.
+ * Imported by {@link CaptureSql}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class SqlCaptureConfiguration {
+
+	@Bean
+	SqlCapture sqlCapture() {
+		return new SqlCapture();
+	}
+
+	@Bean
+	static BeanPostProcessor sqlCapturingDataSources(ObjectProvider<SqlCapture> capture) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof CapturingDataSource)) {
+					return new CapturingDataSource(dataSource, capture.getObject());
+				}
+				return bean;
+			}
+		};
+	}
+}